@@ -0,0 +1,80 @@
+package Benchmarks;
+
+import Data.CircleStore;
+import Data.Emotion;
+
+import java.awt.*;
+import java.lang.ref.Reference;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap retained by the circles on the display when each circle is an object with a
+ * {@link Color} reference in a {@link ConcurrentLinkedDeque}, as the view logic originally kept them,
+ * and when they are columns in a {@link CircleStore}, at 10k, 100k and 1M circles.
+ * <p>
+ * Retained heap is the used heap after a full collection with the circles reachable, minus the used heap
+ * before they were created. The time of a full collection with the circles live is reported as well,
+ * since every object on the heap has to be traced. Run with
+ * {@code java -Xmx2g Benchmarks.CircleMemoryBenchmark}, ideally with a single-threaded collector
+ * such as {@code -XX:+UseSerialGC} for steadier numbers.
+ */
+public class CircleMemoryBenchmark {
+
+    private static final int[] CIRCLE_COUNTS = {10_000, 100_000, 1_000_000};
+    private static final Emotion[] EMOTIONS = Emotion.values();
+    private static final Color[] COLORS = {Color.GRAY, Color.YELLOW, Color.RED, Color.BLUE, Color.GREEN, Color.MAGENTA};
+
+    public static void main(String[] args) {
+        System.out.printf("%-26s %10s %14s %14s %10s%n", "layout", "circles", "retained B", "B/circle", "gc ms");
+        for (int circles : CIRCLE_COUNTS) {
+            measure("objects in deque", circles, () -> objectDeque(circles));
+            measure("CircleStore columns", circles, () -> circleStore(circles));
+        }
+    }
+
+    private static void measure(String name, int circles, Supplier<Object> build) {
+        long before = usedHeapAfterGc();
+        Object retained = build.get();
+        long after = usedHeapAfterGc();
+        long start = System.nanoTime();
+        System.gc();
+        long gcNanos = System.nanoTime() - start;
+        long bytes = after - before;
+        System.out.printf("%-26s %10d %14d %14.1f %10.1f%n", name, circles, bytes,
+                (double) bytes / circles, gcNanos / 1e6);
+        Reference.reachabilityFence(retained); // keep the circles reachable until measured
+    }
+
+    private static Deque<ObjectCircle> objectDeque(int circles) {
+        Deque<ObjectCircle> deque = new ConcurrentLinkedDeque<>();
+        for (int i = 0; i < circles; i++) {
+            deque.addLast(new ObjectCircle(i % 1000, i / 1000, COLORS[i % COLORS.length], 50));
+        }
+        return deque;
+    }
+
+    private static CircleStore circleStore(int circles) {
+        CircleStore store = new CircleStore(circles);
+        for (int i = 0; i < circles; i++) {
+            store.add(i % 1000, i / 1000, 50, EMOTIONS[i % EMOTIONS.length]);
+        }
+        return store;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The layout of a circle before the circles were stored as columns.
+     */
+    private record ObjectCircle(int xCoord, int yCoord, Color color, int radius) {
+
+    }
+}
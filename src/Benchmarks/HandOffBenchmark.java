@@ -0,0 +1,150 @@
+package Benchmarks;
+
+import Data.GazeSample;
+import Model.OverflowPolicy;
+import Model.SpscRingBuffer;
+import Model.WaitStrategy;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares handing eye-tracking samples from one producer thread to one consumer thread through
+ * a {@link LinkedBlockingQueue}, as the Blackboard originally did, and through a {@link SpscRingBuffer}
+ * with each {@link WaitStrategy}.
+ * <p>
+ * Throughput is measured with the producer running flat out into a blocking queue of the Blackboard's capacity.
+ * Latency is measured with the producer paced at one sample every {@value #PACED_INTERVAL_NANOS} ns,
+ * from just before the sample is added to just after the consumer has copied it out.
+ * Run with {@code java Benchmarks.HandOffBenchmark [samples]}.
+ */
+public class HandOffBenchmark {
+
+    private static final int DEFAULT_SAMPLES = 5_000_000;
+    private static final int CAPACITY = 1024;
+    private static final int PACED_SAMPLES = 200_000;
+    private static final long PACED_INTERVAL_NANOS = 10_000; // 100 kHz
+
+    public static void main(String[] args) throws InterruptedException {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SAMPLES;
+        System.out.printf("%-34s %14s %12s %12s%n", "hand-off", "samples/s", "p50 ns", "p99 ns");
+
+        // run each once to warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            report(print, "LinkedBlockingQueue",
+                    blockingQueueThroughput(samples), blockingQueueLatency());
+            for (WaitStrategy strategy : WaitStrategy.values()) {
+                report(print, "SpscRingBuffer " + strategy,
+                        ringThroughput(samples, strategy), ringLatency(strategy));
+            }
+        }
+    }
+
+    private static void report(boolean print, String name, double throughput, long[] latencies) {
+        if (print) {
+            Arrays.sort(latencies);
+            System.out.printf("%-34s %14.0f %12d %12d%n", name, throughput,
+                    latencies[latencies.length / 2], latencies[(int) (latencies.length * 0.99)]);
+        }
+    }
+
+    private static double blockingQueueThroughput(int samples) throws InterruptedException {
+        BlockingQueue<GazeSample> queue = new LinkedBlockingQueue<>(CAPACITY);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < samples; i++) {
+                    GazeSample sample = new GazeSample();
+                    sample.set(i, i, 0, 0);
+                    queue.put(sample);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long start = System.nanoTime();
+        producer.start();
+        for (int i = 0; i < samples; i++) {
+            queue.take();
+        }
+        return samples * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static long[] blockingQueueLatency() throws InterruptedException {
+        BlockingQueue<GazeSample> queue = new LinkedBlockingQueue<>(CAPACITY);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < PACED_SAMPLES; i++) {
+                    pace();
+                    GazeSample sample = new GazeSample();
+                    sample.set(i, i, 0, System.nanoTime());
+                    queue.put(sample);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        long[] latencies = new long[PACED_SAMPLES];
+        for (int i = 0; i < PACED_SAMPLES; i++) {
+            GazeSample sample = queue.take();
+            latencies[i] = System.nanoTime() - sample.getTimestamp();
+        }
+        return latencies;
+    }
+
+    private static double ringThroughput(int samples, WaitStrategy strategy) throws InterruptedException {
+        SpscRingBuffer<GazeSample> ring = new SpscRingBuffer<>(CAPACITY, GazeSample::new, OverflowPolicy.BLOCK, strategy);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < samples; i++) {
+                    ring.claim().set(i, i, 0, 0);
+                    ring.publish();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        GazeSample target = new GazeSample();
+        long start = System.nanoTime();
+        producer.start();
+        for (int i = 0; i < samples; i++) {
+            target.copyFrom(ring.peek(1, TimeUnit.SECONDS));
+            ring.release();
+        }
+        return samples * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static long[] ringLatency(WaitStrategy strategy) throws InterruptedException {
+        SpscRingBuffer<GazeSample> ring = new SpscRingBuffer<>(CAPACITY, GazeSample::new, OverflowPolicy.BLOCK, strategy);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < PACED_SAMPLES; i++) {
+                    pace();
+                    ring.claim().set(i, i, 0, System.nanoTime());
+                    ring.publish();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        GazeSample target = new GazeSample();
+        long[] latencies = new long[PACED_SAMPLES];
+        for (int i = 0; i < PACED_SAMPLES; i++) {
+            target.copyFrom(ring.peek(1, TimeUnit.SECONDS));
+            ring.release();
+            latencies[i] = System.nanoTime() - target.getTimestamp();
+        }
+        return latencies;
+    }
+
+    private static void pace() {
+        long until = System.nanoTime() + PACED_INTERVAL_NANOS;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package Benchmarks;
+
+import Model.SampleParser;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the bytes allocated and the time taken per sample when parsing eye-tracking and emotion data,
+ * comparing the original {@code String.split} based parsing with {@link SampleParser}.
+ * <p>
+ * Allocation is read from the per-thread allocation counter of the HotSpot {@code ThreadMXBean},
+ * so this benchmark needs a HotSpot based JVM.
+ * Run with {@code java Benchmarks.ParserAllocationBenchmark [samples]}.
+ */
+public class ParserAllocationBenchmark {
+
+    private static final int DEFAULT_SAMPLES = 2_000_000;
+    private static final String[] EYE_TRACKING_DATA = {"120, 450", "999, 749", "0, 0", "512, 384"};
+    private static final String[] EMOTION_DATA = {
+            "0.12345678, 0.5, 0.99999, 0.0, 1.0",
+            "0.7260442, 0.31034362, 0.021546245, 0.9013871, 0.44806498",
+            "3.5126805E-4, 0.25, 0.75, 0.125, 0.875"
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink; // keeps the JIT from removing the parsing
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SAMPLES;
+
+        // warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            splitEyeTracking(samples / 4);
+            parserEyeTracking(samples / 4);
+            splitEmotion(samples / 4);
+            parserEmotion(samples / 4);
+        }
+
+        report("eye tracking, String.split", samples, () -> splitEyeTracking(samples));
+        report("eye tracking, SampleParser", samples, () -> parserEyeTracking(samples));
+        report("emotion, String.split", samples, () -> splitEmotion(samples));
+        report("emotion, SampleParser", samples, () -> parserEmotion(samples));
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void report(String name, int samples, Runnable work) {
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        work.run();
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        System.out.printf("%-30s %10.1f bytes/sample %8.1f ns/sample%n",
+                name, (double) bytes / samples, (double) elapsed / samples);
+    }
+
+    private static void splitEyeTracking(int samples) {
+        for (int i = 0; i < samples; i++) {
+            List<Integer> values = Arrays.stream(EYE_TRACKING_DATA[i % EYE_TRACKING_DATA.length].split(","))
+                    .map(String::trim)
+                    .map(Integer::parseInt)
+                    .collect(Collectors.toList());
+            sink += values.get(0) + values.get(1);
+        }
+    }
+
+    private static void parserEyeTracking(int samples) {
+        int[] values = new int[2];
+        for (int i = 0; i < samples; i++) {
+            SampleParser.parseInts(EYE_TRACKING_DATA[i % EYE_TRACKING_DATA.length], values);
+            sink += values[0] + values[1];
+        }
+    }
+
+    private static void splitEmotion(int samples) {
+        for (int i = 0; i < samples; i++) {
+            List<Float> values = Arrays.stream(EMOTION_DATA[i % EMOTION_DATA.length].split(","))
+                    .map(String::trim)
+                    .map(Float::parseFloat)
+                    .collect(Collectors.toList());
+            sink += Float.floatToIntBits(values.get(4));
+        }
+    }
+
+    private static void parserEmotion(int samples) {
+        float[] values = new float[5];
+        for (int i = 0; i < samples; i++) {
+            SampleParser.parseFloats(EMOTION_DATA[i % EMOTION_DATA.length], values);
+            sink += Float.floatToIntBits(values[4]);
+        }
+    }
+}
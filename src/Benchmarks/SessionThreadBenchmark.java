@@ -0,0 +1,236 @@
+package Benchmarks;
+
+import Model.Blackboard;
+import Model.CustomThread;
+import Model.RawDataProcessor;
+import Model.ViewDataProcessor;
+import Model.WireProtocol;
+import Model.WorkerExecution;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Compares running many concurrent sessions with each {@link WorkerExecution}: every worker as its own platform
+ * thread, on a shared pool, and on virtual threads.
+ * <p>
+ * Each session is a real pipeline on a {@link Blackboard} of its own: a {@link RawDataProcessor} and a
+ * {@link ViewDataProcessor} working on the Blackboard's queues, fed by an eye-tracking and an emotion source
+ * which stand in for the clients. The sources park until their next sample is due, as a client blocked on its
+ * socket would, and queue it with {@link Blackboard#addToEyeTrackingQueue} and {@link Blackboard#addToEmotionQueue}
+ * as a client does once a line is parsed. Throughput is the samples processed and handed to the view logic per
+ * second, against the rate the sources offer. CPU is the process's CPU time over the measurement, as a percentage
+ * of one core. Memory is the used heap after a full collection and the resident set of the process while every
+ * session runs, with the number of live threads.
+ * <p>
+ * Each mode runs in a fresh JVM so their memory does not mix. Run with
+ * {@code java Benchmarks.SessionThreadBenchmark [sessions] [gaze Hz] [seconds]}, by default
+ * {@value #DEFAULT_SESSIONS} sessions at {@value #DEFAULT_GAZE_RATE} Hz for {@value #DEFAULT_SECONDS} s.
+ * Virtual threads need Java 21 or later; on older runtimes that mode is reported as unavailable.
+ */
+public class SessionThreadBenchmark {
+
+    private static final int DEFAULT_SESSIONS = 1000;
+    private static final int DEFAULT_GAZE_RATE = 100;
+    private static final int DEFAULT_SECONDS = 10;
+    private static final int EMOTION_DIVISOR = 10; // emotion arrives ten times less often than gaze
+    private static final long WARM_UP_IN_MS = 2000;
+    private static final String CHILD_FLAG = "--mode";
+
+    private static final LongAdder offered = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD_FLAG)) {
+            run(WorkerExecution.valueOf(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]));
+            return;
+        }
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAZE_RATE;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        System.out.printf("%d sessions, %d workers, %d Hz gaze for %d s, %d cores%n", sessions, sessions * 4, rate,
+                seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-16s %10s %12s %12s %10s %8s %10s %10s %10s%n", "execution", "start ms",
+                "offered/s", "processed/s", "processed", "cpu %", "threads", "heap MB", "rss MB");
+        String java = ProcessHandle.current().info().command().orElse("java");
+        for (WorkerExecution execution : WorkerExecution.values()) {
+            if (!execution.isAvailable()) {
+                System.out.printf("%-16s unavailable on Java %s%n", execution, Runtime.version().feature());
+                continue;
+            }
+            Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SessionThreadBenchmark.class.getName(), CHILD_FLAG, execution.name(),
+                    String.valueOf(sessions), String.valueOf(rate), String.valueOf(seconds))
+                    .inheritIO().start();
+            child.waitFor();
+        }
+    }
+
+    private static void run(WorkerExecution execution, int sessions, int rate, int seconds)
+            throws InterruptedException {
+        Logger.getLogger("").setLevel(java.util.logging.Level.SEVERE); // idle processors warn of timeouts
+        List<Blackboard> blackboards = new ArrayList<>();
+        List<CustomThread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            Blackboard blackboard = new Blackboard("benchmark-" + i);
+            blackboards.add(blackboard);
+            long phase = TimeUnit.SECONDS.toNanos(1) * i / sessions / rate; // spread the sessions over a period
+            workers.add(new GazeSource(blackboard, rate, phase, i));
+            workers.add(new EmotionSource(blackboard, Math.max(1, rate / EMOTION_DIVISOR), phase));
+            workers.add(new RawDataProcessor(blackboard));
+            workers.add(new ViewDataProcessor(blackboard));
+        }
+        for (CustomThread worker : workers) {
+            worker.start(execution);
+        }
+        long startMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Thread.sleep(WARM_UP_IN_MS);
+        long offeredBefore = offered.sum();
+        long processedBefore = processed(blackboards);
+        long cpuBefore = processCpuTime();
+        long measureStart = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        long elapsedNanos = System.nanoTime() - measureStart;
+        long cpuNanos = processCpuTime() - cpuBefore;
+        long offeredCount = offered.sum() - offeredBefore;
+        long processedCount = processed(blackboards) - processedBefore;
+        double elapsed = elapsedNanos / 1e9;
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.gc();
+        long heap = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        long rss = residentSetSize();
+
+        for (CustomThread worker : workers) {
+            worker.stopThread();
+        }
+        for (CustomThread worker : workers) {
+            worker.awaitStop();
+        }
+        System.out.printf("%-16s %10d %12.0f %12.0f %9.1f%% %8s %10d %10.1f %10s%n", execution, startMs,
+                offeredCount / elapsed, processedCount / elapsed,
+                offeredCount > 0 ? processedCount * 100.0 / offeredCount : 0,
+                cpuBefore < 0 ? "n/a" : String.format("%.1f", cpuNanos * 100.0 / elapsedNanos), threads,
+                heap / 1e6, rss < 0 ? "n/a" : String.format("%.1f", rss / 1e6));
+    }
+
+    /**
+     * @return the samples processed and handed to the view logic of every session so far
+     */
+    private static long processed(List<Blackboard> blackboards) {
+        long total = 0;
+        for (Blackboard blackboard : blackboards) {
+            total += blackboard.getMetricsRegistry().getValue("blackboard.processed.samples");
+        }
+        return total;
+    }
+
+    /**
+     * @return the CPU time used by this process in nanoseconds, or -1 where the runtime does not report it
+     */
+    private static long processCpuTime() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * @return the resident set of this process in bytes, or -1 where /proc is not available
+     */
+    private static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not on Linux
+        }
+        return -1;
+    }
+
+    /**
+     * Queues samples at a fixed rate, parking in between as a client blocked on its socket would.
+     */
+    private abstract static class Source extends CustomThread {
+        private final long intervalNanos;
+        private final long phase;
+        private long due; // 0 until the source starts
+
+        Source(Blackboard blackboard, String name, int rate, long phase) {
+            super(blackboard);
+            super.setLog(Logger.getLogger(SessionThreadBenchmark.class.getName()));
+            super.setThreadName(name);
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            this.phase = phase;
+        }
+
+        @Override
+        public void doYourWork() throws InterruptedException {
+            if (due == 0) {
+                due = System.nanoTime() + phase;
+            }
+            long remaining;
+            while ((remaining = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            due += intervalNanos;
+            send();
+        }
+
+        abstract void send() throws InterruptedException;
+
+        @Override
+        public void cleanUpThread() {
+        }
+    }
+
+    /**
+     * Moves the gaze around the display, so the view logic both adds circles and consolidates them.
+     */
+    private static class GazeSource extends Source {
+        private final Random random;
+        private int xCoord = 800;
+        private int yCoord = 500;
+
+        GazeSource(Blackboard blackboard, int rate, long phase, long seed) {
+            super(blackboard, "BenchmarkGazeSource", rate, phase);
+            this.random = new Random(seed);
+        }
+
+        @Override
+        void send() throws InterruptedException {
+            xCoord = Math.floorMod(xCoord + random.nextInt(41) - 20, 1600);
+            yCoord = Math.floorMod(yCoord + random.nextInt(41) - 20, 1000);
+            getBlackboard().addToEyeTrackingQueue(xCoord, yCoord, 0, System.nanoTime());
+            offered.increment();
+        }
+    }
+
+    private static class EmotionSource extends Source {
+        private final float[] scores = new float[WireProtocol.EMOTION_COUNT];
+
+        EmotionSource(Blackboard blackboard, int rate, long phase) {
+            super(blackboard, "BenchmarkEmotionSource", rate, phase);
+            Arrays.fill(scores, 1f / scores.length);
+        }
+
+        @Override
+        void send() throws InterruptedException {
+            getBlackboard().addToEmotionQueue(scores, scores.length, 0, System.nanoTime());
+        }
+    }
+}
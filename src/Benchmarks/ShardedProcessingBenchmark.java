@@ -0,0 +1,164 @@
+package Benchmarks;
+
+import Data.ProcessedDataObject;
+import Model.Blackboard;
+import Model.MetricsRegistry;
+import Model.OverflowPolicy;
+import Model.RawDataProcessor;
+import Model.ShardedProcessingEngine;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compares processing the raw data of many sessions with a {@link RawDataProcessor} thread per session and with
+ * a {@link ShardedProcessingEngine} at one worker up to one per core.
+ * <p>
+ * Each session has its own {@link Blackboard} with blocking queues, so nothing is dropped. Producer threads, one
+ * per core, each own a share of the sessions and queue their gaze samples as fast as they can. The processed
+ * data of each session is drained as soon as it is published and checked to still be in the order the samples
+ * were queued. Throughput is the processed samples per second from the first sample queued to the last one
+ * processed. Run with {@code java Benchmarks.ShardedProcessingBenchmark [sessions] [samples per session]},
+ * by default {@value #DEFAULT_SESSIONS} sessions of {@value #DEFAULT_SAMPLES} samples.
+ */
+public class ShardedProcessingBenchmark {
+
+    private static final int DEFAULT_SESSIONS = 64;
+    private static final int DEFAULT_SAMPLES = 50_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES;
+        int cores = Runtime.getRuntime().availableProcessors();
+        Logger.getLogger("").setLevel(Level.SEVERE); // idle processors warn of timeouts between runs
+        System.out.printf("%d sessions of %d samples, %d cores%n", sessions, samples, cores);
+        System.out.printf("%-26s %14s %10s %12s%n", "processing", "samples/s", "steals", "out of order");
+
+        // run each once to warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            run(print, "thread per session", sessions, samples, 0);
+            for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+                run(print, "sharded, " + parallelism + " worker(s)", sessions, samples, parallelism);
+            }
+            if (Integer.bitCount(cores) != 1) {
+                run(print, "sharded, " + cores + " worker(s)", sessions, samples, cores);
+            }
+        }
+    }
+
+    /**
+     * @param parallelism the engine's workers, or 0 for a processor thread per session
+     */
+    private static void run(boolean print, String name, int sessions, int samples, int parallelism)
+            throws InterruptedException {
+        List<Blackboard> blackboards = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(sessions);
+        LongAdder outOfOrder = new LongAdder();
+        for (int i = 0; i < sessions; i++) {
+            Blackboard blackboard = new Blackboard("benchmark-" + i);
+            blackboard.setOverflowPolicy(OverflowPolicy.BLOCK);
+            blackboard.addDataListener(Blackboard.PROPERTY_NAME_PROCESSED_DATA,
+                    new OrderCheck(blackboard, samples, done, outOfOrder), Runnable::run, 0);
+            blackboards.add(blackboard);
+        }
+
+        ShardedProcessingEngine engine = null;
+        List<RawDataProcessor> processors = new ArrayList<>();
+        if (parallelism == 0) {
+            for (Blackboard blackboard : blackboards) {
+                RawDataProcessor processor = new RawDataProcessor(blackboard);
+                processors.add(processor);
+                processor.start();
+            }
+        } else {
+            engine = new ShardedProcessingEngine(parallelism, ShardedProcessingEngine.DEFAULT_BATCH_SIZE,
+                    new MetricsRegistry());
+            for (Blackboard blackboard : blackboards) {
+                engine.addSession(blackboard);
+            }
+        }
+
+        int producerCount = Math.min(sessions, Runtime.getRuntime().availableProcessors());
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            int first = p;
+            producers.add(new Thread(() -> produce(blackboards, first, producerCount, samples)));
+        }
+        long start = System.nanoTime();
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long steals = engine != null ? engine.getStealCount() : 0;
+        for (RawDataProcessor processor : processors) {
+            processor.stopThread();
+        }
+        for (RawDataProcessor processor : processors) {
+            processor.join();
+        }
+        if (engine != null) {
+            engine.shutdown();
+        }
+        if (print) {
+            System.out.printf("%-26s %14.0f %10d %12d%n", name, (double) sessions * samples / seconds,
+                    steals, outOfOrder.sum());
+        }
+    }
+
+    /**
+     * Queues every sample of every {@code step}th session from {@code first}, one session after the other
+     * in turn, as the clients of those sessions would.
+     */
+    private static void produce(List<Blackboard> blackboards, int first, int step, int samples) {
+        try {
+            for (int i = 0; i < samples; i++) {
+                for (int s = first; s < blackboards.size(); s += step) {
+                    blackboards.get(s).addToEyeTrackingQueue(i % 1000, i % 700, 0, System.nanoTime());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drains a session's processed data as it is published, counting samples that arrive out of order.
+     */
+    private static class OrderCheck implements PropertyChangeListener {
+        private final Blackboard blackboard;
+        private final CountDownLatch done;
+        private final LongAdder outOfOrder;
+        private int remaining;
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        OrderCheck(Blackboard blackboard, int samples, CountDownLatch done, LongAdder outOfOrder) {
+            this.blackboard = blackboard;
+            this.remaining = samples;
+            this.done = done;
+            this.outOfOrder = outOfOrder;
+        }
+
+        @Override
+        public synchronized void propertyChange(PropertyChangeEvent evt) {
+            ProcessedDataObject data;
+            while ((data = blackboard.getFromProcessedDataObjectQueue()) != null) {
+                if (data.timestamp() < lastTimestamp) {
+                    outOfOrder.increment();
+                }
+                lastTimestamp = data.timestamp();
+                if (--remaining == 0) {
+                    done.countDown();
+                }
+            }
+        }
+    }
+}
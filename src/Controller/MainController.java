@@ -18,6 +18,8 @@ import java.util.logging.Logger;
  */
 public class MainController implements ActionListener {
 
+    public static final String REPLAY_COMMAND = "Replay Session...";
+
     private final Main parent;
 
     private static final Logger controllerLog = Logger.getLogger(MainController.class.getName());
@@ -31,6 +33,7 @@ public class MainController implements ActionListener {
      * <p>
      * If the "Start" action is triggered, all necessary threads are instantiated.
      * If the "Stop" action is triggered, it tears down all existing threads.
+     * If the "Replay Session..." action is triggered, a recorded session is chosen and replayed.
      *
      * @param e the {@link ActionEvent} containing the action command
      */
@@ -46,6 +49,10 @@ public class MainController implements ActionListener {
                 controllerLog.info("Stop Pressed. Disconnecting.");
                 parent.cleanUpThreads();
             }
+            case (REPLAY_COMMAND) -> {
+                controllerLog.info("Replay Pressed. Choosing a session.");
+                parent.chooseSessionToReplay();
+            }
         }
     }
 }
@@ -0,0 +1,40 @@
+package Data;
+
+/**
+ * A fixed block of {@value #SIZE} consecutive circle ids, as parallel primitive columns. The circle with id
+ * {@code id} is at offset {@code id & MASK} of the chunk numbered {@code id >> SHIFT}.
+ * <p>
+ * A chunk is written only by the {@link CircleStore} that owns it, until a {@link CircleSnapshot} takes it.
+ * From then on it is frozen and shared by every later snapshot that has not changed it; the store copies
+ * it before writing to it again.
+ */
+final class CircleChunk {
+
+    static final int SHIFT = 8;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+
+    final int[] xCoords;
+    final int[] yCoords;
+    final int[] radii;
+    final byte[] emotions; // Emotion ordinals
+    boolean frozen; // owner thread only: set once a snapshot holds the chunk
+
+    CircleChunk() {
+        this(new int[SIZE], new int[SIZE], new int[SIZE], new byte[SIZE]);
+    }
+
+    private CircleChunk(int[] xCoords, int[] yCoords, int[] radii, byte[] emotions) {
+        this.xCoords = xCoords;
+        this.yCoords = yCoords;
+        this.radii = radii;
+        this.emotions = emotions;
+    }
+
+    /**
+     * @return a writable copy of the chunk
+     */
+    CircleChunk copy() {
+        return new CircleChunk(xCoords.clone(), yCoords.clone(), radii.clone(), emotions.clone());
+    }
+}
@@ -0,0 +1,151 @@
+package Data;
+
+import java.io.IOException;
+
+/**
+ * The {@code CircleSnapshot} class is an immutable copy of the circles on the display, taken when the
+ * view logic publishes them. Each publish produces a new snapshot with a higher epoch, so the renderer can
+ * tell with one comparison whether anything changed, and can draw a whole frame without seeing a circle
+ * grow or disappear part way through.
+ * <p>
+ * Circles are kept in the {@link CircleStore}'s chunks of primitive columns, shared rather than copied, and keep
+ * the store's consecutive ids, so two snapshots can be compared in a single pass.
+ * <p>
+ * Each snapshot also carries the time it was published and the arrival time of the newest gaze sample it
+ * reflects, so the time from a sample reaching the hub to its circle being published and painted can be measured.
+ */
+public final class CircleSnapshot {
+
+    public static final CircleSnapshot EMPTY = new CircleSnapshot(0, 0, 0, 0, 0, new CircleChunk[0]);
+
+    private static final Emotion[] EMOTIONS = Emotion.values();
+
+    private final long epoch;
+    private final long sourceTimestamp;
+    private final long publishTime;
+    private final long firstId;
+    private final int size;
+    private final CircleChunk[] chunks; // frozen, the first one holding firstId
+
+    /**
+     * Shares the given chunks, which must be frozen and never written to again.
+     */
+    CircleSnapshot(long epoch, long sourceTimestamp, long publishTime, long firstId, int size, CircleChunk[] chunks) {
+        this.epoch = epoch;
+        this.sourceTimestamp = sourceTimestamp;
+        this.publishTime = publishTime;
+        this.firstId = firstId;
+        this.size = size;
+        this.chunks = chunks;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the arrival time of the newest gaze sample reflected in the circles, as given by
+     *         {@link System#nanoTime()}, or 0 if there was none
+     */
+    public long getSourceTimestamp() {
+        return sourceTimestamp;
+    }
+
+    /**
+     * @return when the snapshot was published, as given by {@link System#nanoTime()}
+     */
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the id of the oldest circle
+     */
+    public long getFirstId() {
+        return firstId;
+    }
+
+    /**
+     * @param index the position of the circle, 0 being the oldest
+     * @return the id of the circle
+     */
+    public long getId(int index) {
+        return firstId + index;
+    }
+
+    public int getX(int index) {
+        return chunkAt(index).xCoords[offset(index)];
+    }
+
+    public int getY(int index) {
+        return chunkAt(index).yCoords[offset(index)];
+    }
+
+    public int getRadius(int index) {
+        return chunkAt(index).radii[offset(index)];
+    }
+
+    public Emotion getEmotion(int index) {
+        return EMOTIONS[chunkAt(index).emotions[offset(index)]];
+    }
+
+    /**
+     * Counts the circles, from the one at the given position on, that are unchanged in another snapshot because both
+     * snapshots share the chunk holding them. A count of 0 only means sharing cannot tell, not that they changed.
+     *
+     * @param other another snapshot of the same store
+     * @param index the position of a circle in this snapshot
+     * @return the number of circles from that position on, up to the end of its chunk, that are the same in both
+     */
+    public int countUnchangedIn(CircleSnapshot other, int index) {
+        long id = firstId + index;
+        if (!other.containsId(id) || chunkAt(index) != other.chunkAt((int) (id - other.firstId))) {
+            return 0;
+        }
+        long end = Math.min((id | CircleChunk.MASK) + 1, Math.min(firstId + size, other.firstId + other.size));
+        return (int) (end - id);
+    }
+
+    /**
+     * Writes the circles, oldest first, as comma separated values with a header line.
+     *
+     * @param out where to write the circles
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("id,x,y,radius,emotion\n");
+        for (int i = 0; i < size; i++) {
+            out.append(Long.toString(firstId + i)).append(',')
+                    .append(Integer.toString(getX(i))).append(',')
+                    .append(Integer.toString(getY(i))).append(',')
+                    .append(Integer.toString(getRadius(i))).append(',')
+                    .append(getEmotion(i).name()).append('\n');
+        }
+    }
+
+    /**
+     * @return the shared chunks, for a {@link CircleStore} to pick up
+     */
+    CircleChunk[] getChunks() {
+        return chunks;
+    }
+
+    private boolean containsId(long id) {
+        return id >= firstId && id < firstId + size;
+    }
+
+    private CircleChunk chunkAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No circle at " + index);
+        }
+        return chunks[(int) (((firstId + index) >> CircleChunk.SHIFT) - (firstId >> CircleChunk.SHIFT))];
+    }
+
+    private int offset(int index) {
+        return (int) ((firstId + index) & CircleChunk.MASK);
+    }
+}
@@ -0,0 +1,222 @@
+package Data;
+
+/**
+ * The {@code CircleStore} class holds the circles on the display as parallel primitive columns, x, y, radius and
+ * emotion, instead of one object per circle, so a long session with many circles costs a few arrays rather than
+ * millions of small objects for the garbage collector to trace.
+ * <p>
+ * Each circle is identified by an id that increases by one with every add, so the circles in the store always
+ * have the consecutive ids {@link #getFirstId()} to {@link #getEndId()} - 1. The columns are split into chunks of
+ * {@value CircleChunk#SIZE} ids, kept in a ring: circles are added at the end, evicted oldest first, and a chunk
+ * is let go once its last circle is evicted. The ring grows when it is full, so eviction is left to the owner.
+ * <p>
+ * A {@link #snapshot} shares the chunks instead of copying them, and the store copies a shared chunk only
+ * when it next writes to it, so publishing costs the chunks changed since the last publish rather than
+ * every circle.
+ * <p>
+ * This class is not thread safe and is meant to be owned by the view logic thread. Other threads see the
+ * circles through a {@link CircleSnapshot}.
+ */
+public class CircleStore {
+
+    private static final Emotion[] EMOTIONS = Emotion.values();
+
+    private CircleChunk[] chunks; // a ring of chunks, the oldest at chunkHead
+    private int chunkHead;
+    private int chunkCount;
+    private int size;
+    private long firstId; // the id of the oldest circle
+
+    /**
+     * @param initialCapacity the number of circles the store holds before it needs to grow
+     */
+    public CircleStore(int initialCapacity) {
+        chunks = new CircleChunk[Math.max(2, (initialCapacity >> CircleChunk.SHIFT) + 2)];
+    }
+
+    /**
+     * Adds a circle after the newest one.
+     *
+     * @return the id of the new circle
+     */
+    public long add(int xCoord, int yCoord, int radius, Emotion emotion) {
+        long id = firstId + size;
+        if (chunkCount == 0 || (id & CircleChunk.MASK) == 0) {
+            if (chunkCount == chunks.length) {
+                grow();
+            }
+            chunks[ring(chunkCount)] = new CircleChunk();
+            chunkCount++;
+        }
+        CircleChunk chunk = writableChunk(chunkCount - 1);
+        int offset = (int) (id & CircleChunk.MASK);
+        chunk.xCoords[offset] = xCoord;
+        chunk.yCoords[offset] = yCoord;
+        chunk.radii[offset] = radius;
+        chunk.emotions[offset] = (byte) emotion.ordinal();
+        size++;
+        return id;
+    }
+
+    /**
+     * Evicts the oldest circle.
+     *
+     * @return the id of the evicted circle
+     * @throws IllegalStateException if the store is empty
+     */
+    public long removeOldest() {
+        if (size == 0) {
+            throw new IllegalStateException("No circles to remove");
+        }
+        long id = firstId++;
+        size--;
+        if ((firstId & CircleChunk.MASK) == 0 || size == 0) {
+            dropOldestChunk();
+        }
+        return id;
+    }
+
+    /**
+     * Removes every circle. Ids keep increasing, so a circle added later never reuses an id.
+     */
+    public void clear() {
+        firstId += size;
+        size = 0;
+        while (chunkCount > 0) {
+            dropOldestChunk();
+        }
+        chunkHead = 0;
+    }
+
+    /**
+     * Replaces the contents of the store with the circles of a snapshot, keeping their ids,
+     * so a new view logic thread can pick up where a previous one left off. The snapshot's chunks are shared.
+     *
+     * @param snapshot the circles to copy
+     */
+    public void copyFrom(CircleSnapshot snapshot) {
+        clear();
+        firstId = snapshot.getFirstId();
+        CircleChunk[] shared = snapshot.getChunks();
+        while (chunks.length < shared.length) {
+            grow();
+        }
+        System.arraycopy(shared, 0, chunks, 0, shared.length);
+        chunkCount = shared.length;
+        size = snapshot.size();
+    }
+
+    /**
+     * Freezes the chunks and shares them with a new immutable snapshot.
+     *
+     * @param epoch the number of the snapshot
+     * @param sourceTimestamp the arrival time of the newest gaze sample reflected in the circles
+     * @param publishTime when the snapshot is published
+     * @return the snapshot
+     */
+    public CircleSnapshot snapshot(long epoch, long sourceTimestamp, long publishTime) {
+        CircleChunk[] shared = new CircleChunk[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            CircleChunk chunk = chunks[ring(i)];
+            chunk.frozen = true;
+            shared[i] = chunk;
+        }
+        return new CircleSnapshot(epoch, sourceTimestamp, publishTime, firstId, size, shared);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the id of the oldest circle, or of the next circle to be added if the store is empty
+     */
+    public long getFirstId() {
+        return firstId;
+    }
+
+    /**
+     * @return the id the next circle added will get
+     */
+    public long getEndId() {
+        return firstId + size;
+    }
+
+    public boolean contains(long id) {
+        return id >= firstId && id < firstId + size;
+    }
+
+    public int getX(long id) {
+        return chunkOf(id).xCoords[(int) (id & CircleChunk.MASK)];
+    }
+
+    public int getY(long id) {
+        return chunkOf(id).yCoords[(int) (id & CircleChunk.MASK)];
+    }
+
+    public int getRadius(long id) {
+        return chunkOf(id).radii[(int) (id & CircleChunk.MASK)];
+    }
+
+    public Emotion getEmotion(long id) {
+        return EMOTIONS[chunkOf(id).emotions[(int) (id & CircleChunk.MASK)]];
+    }
+
+    public void increaseRadius(long id, int increment) {
+        writableChunk(chunkIndex(id)).radii[(int) (id & CircleChunk.MASK)] += increment;
+    }
+
+    private CircleChunk chunkOf(long id) {
+        return chunks[ring(chunkIndex(id))];
+    }
+
+    /**
+     * @return the position in the ring, from the oldest chunk, of the chunk holding the circle
+     */
+    private int chunkIndex(long id) {
+        if (!contains(id)) {
+            throw new IndexOutOfBoundsException("No circle with id " + id);
+        }
+        return (int) ((id >> CircleChunk.SHIFT) - (firstId >> CircleChunk.SHIFT));
+    }
+
+    /**
+     * @return the chunk at the position from the oldest, first copied if a snapshot holds it
+     */
+    private CircleChunk writableChunk(int index) {
+        int slot = ring(index);
+        CircleChunk chunk = chunks[slot];
+        if (chunk.frozen) {
+            chunk = chunk.copy();
+            chunks[slot] = chunk;
+        }
+        return chunk;
+    }
+
+    private void dropOldestChunk() {
+        chunks[chunkHead] = null;
+        chunkHead = ring(1);
+        chunkCount--;
+    }
+
+    private int ring(int index) {
+        int slot = chunkHead + index;
+        return slot < chunks.length ? slot : slot - chunks.length;
+    }
+
+    /**
+     * Doubles the ring of chunks, moving them so the oldest is in slot 0.
+     */
+    private void grow() {
+        CircleChunk[] grown = new CircleChunk[chunks.length * 2];
+        for (int i = 0; i < chunkCount; i++) {
+            grown[i] = chunks[ring(i)];
+        }
+        chunks = grown;
+        chunkHead = 0;
+    }
+}
@@ -1,29 +1,30 @@
 package Data;
 
-import java.awt.*;
-
-
 /**
  * Enum representing various emotions that can be processed.
+ * Each emotion's display color is kept as a 0xRRGGBB value, so the processing path does not need AWT.
  */
 public enum Emotion {
-    NONE(Color.GRAY, -1),
-    FOCUS(Color.YELLOW, 0),
-    STRESS(Color.RED, 1),
-    ENGAGEMENT(Color.BLUE, 2),
-    EXCITEMENT(Color.GREEN, 3),
-    INTEREST(Color.MAGENTA, 4);
-
-    private final Color color;
+    NONE(0x808080, -1),
+    FOCUS(0xFFFF00, 0),
+    STRESS(0xFF0000, 1),
+    ENGAGEMENT(0x0000FF, 2),
+    EXCITEMENT(0x00FF00, 3),
+    INTEREST(0xFF00FF, 4);
+
+    private final int rgb;
     private final int value;
 
-    private Emotion(Color color, int value){
-        this.color = color;
+    private Emotion(int rgb, int value){
+        this.rgb = rgb;
         this.value = value;
     }
 
-    public Color getColor() {
-        return color;
+    /**
+     * @return the emotion's display color as 0xRRGGBB
+     */
+    public int getRgb() {
+        return rgb;
     }
 
     public int getValue() {
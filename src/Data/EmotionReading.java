@@ -0,0 +1,56 @@
+package Data;
+
+import Model.WireProtocol;
+
+/**
+ * The {@code EmotionReading} class represents one decoded emotion sample as received by the hub,
+ * before its scores are validated.
+ * <p>
+ * Instances are mutable so they can be preallocated as slots of a {@link Model.SpscRingBuffer}
+ * and reused for every sample. The scores are copied into a fixed array owned by the reading.
+ */
+public class EmotionReading {
+
+    private final float[] emotionScores = new float[WireProtocol.EMOTION_COUNT];
+    private int scoreCount;
+    private long sendTime;
+    private long timestamp;
+
+    /**
+     * Overwrites this reading.
+     *
+     * @param emotionScores the emotion scores, copied into this reading
+     * @param scoreCount the number of scores to copy from the start of {@code emotionScores}
+     * @param sendTime the time the server sent the sample in epoch milliseconds, or 0 if the wire format carries none
+     * @param timestamp the arrival time of the sample at the hub in nanoseconds, as given by {@link System#nanoTime()}
+     */
+    public void set(float[] emotionScores, int scoreCount, long sendTime, long timestamp) {
+        System.arraycopy(emotionScores, 0, this.emotionScores, 0, scoreCount);
+        this.scoreCount = scoreCount;
+        this.sendTime = sendTime;
+        this.timestamp = timestamp;
+    }
+
+    public void copyFrom(EmotionReading other) {
+        set(other.emotionScores, other.scoreCount, other.sendTime, other.timestamp);
+    }
+
+    /**
+     * @return the score array, of which only the first {@link #getScoreCount()} entries are in use
+     */
+    public float[] getEmotionScores() {
+        return emotionScores;
+    }
+
+    public int getScoreCount() {
+        return scoreCount;
+    }
+
+    public long getSendTime() {
+        return sendTime;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
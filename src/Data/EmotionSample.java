@@ -0,0 +1,13 @@
+package Data;
+
+/**
+ * The {@code EmotionSample} record holds an emotion reading that has already been parsed and validated,
+ * so it can be joined with any number of eye-tracking samples without being parsed again.
+ *
+ * @param emotionScores the emotion scores, or null if the reading was invalid
+ * @param prominentEmotion the most prominent emotion in the scores, {@link Emotion#NONE} if the reading was invalid
+ * @param timestamp the arrival time of the reading in nanoseconds
+ */
+public record EmotionSample(float[] emotionScores, Emotion prominentEmotion, long timestamp) {
+
+}
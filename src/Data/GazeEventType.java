@@ -0,0 +1,12 @@
+package Data;
+
+/**
+ * The kind of gaze data a {@link ProcessedDataObject} carries: a single raw gaze point, or the start,
+ * progress or end of a fixation found by a {@link Model.FixationDetector}.
+ */
+public enum GazeEventType {
+    POINT,
+    FIXATION_START,
+    FIXATION_UPDATE,
+    FIXATION_END
+}
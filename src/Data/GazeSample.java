@@ -0,0 +1,63 @@
+package Data;
+
+/**
+ * The {@code GazeSample} class represents one decoded eye-tracking sample as received by the hub.
+ * <p>
+ * Instances are mutable so they can be preallocated as slots of a {@link Model.SpscRingBuffer}
+ * and reused for every sample, rather than allocating an object per sample.
+ */
+public class GazeSample {
+
+    private int xCoord;
+    private int yCoord;
+    private long sendTime;
+    private long timestamp;
+    private long queuedTime;
+
+    /**
+     * Overwrites this sample.
+     *
+     * @param xCoord the x-coordinate of the gaze point
+     * @param yCoord the y-coordinate of the gaze point
+     * @param sendTime the time the server sent the sample in epoch milliseconds, or 0 if the wire format carries none
+     * @param timestamp the arrival time of the sample at the hub in nanoseconds, as given by {@link System#nanoTime()}
+     */
+    public void set(int xCoord, int yCoord, long sendTime, long timestamp) {
+        this.xCoord = xCoord;
+        this.yCoord = yCoord;
+        this.sendTime = sendTime;
+        this.timestamp = timestamp;
+    }
+
+    public void copyFrom(GazeSample other) {
+        set(other.xCoord, other.yCoord, other.sendTime, other.timestamp);
+        queuedTime = other.queuedTime;
+    }
+
+    public int getXCoord() {
+        return xCoord;
+    }
+
+    public int getYCoord() {
+        return yCoord;
+    }
+
+    public long getSendTime() {
+        return sendTime;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return when the sample was added to the eye-tracking queue, as given by {@link System#nanoTime()}
+     */
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    public void setQueuedTime(long queuedTime) {
+        this.queuedTime = queuedTime;
+    }
+}
@@ -1,21 +1,34 @@
 package Data;
 
-import java.util.List;
-
 /**
  * The {@code ProcessedDataObject} record represents the processed data for a particular
  * set of coordinates and emotions. It stores the x and y coordinates, the prominent emotion
- * detected from the data, and the list of emotion scores.
+ * detected from the data, and the emotion scores.
  * <p>
  * This record is used to encapsulate the data produced by the {@link Model.RawDataProcessor} and
  * passed to other components such as the {@link Model.ViewDataProcessor} for further processing and visualization.
+ * <p>
+ * When fixation detection is on, the coordinates are the center of a fixation rather than a raw gaze point.
  *
  * @param xCoord the x-coordinate of the processed data, representing the x-position on the display
  * @param yCoord the y-coordinate of the processed data, representing the y-position on the display
  * @param prominentEmotion the most prominent emotion determined from the emotion scores
- * @param emotionScores the list of emotion scores associated with the data
+ * @param emotionScores the emotion scores associated with the data, or null if there were none.
+ *                      The array is shared by every sample joined with the same emotion reading and must not be modified.
+ * @param eventType whether this is a raw gaze point or the start, progress or end of a fixation
+ * @param durationInMs how long the fixation has lasted, or 0 for a raw gaze point
+ * @param timestamp the arrival time of the gaze sample this was produced from, as given by {@link System#nanoTime()},
+ *                  so the latency of later stages can be measured from it
+ * @param processedTime when this was produced, as given by {@link System#nanoTime()}
  */
 public record ProcessedDataObject(int xCoord, int yCoord, Emotion prominentEmotion,
-                                  List<Float> emotionScores) {
+                                  float[] emotionScores, GazeEventType eventType, long durationInMs,
+                                  long timestamp, long processedTime) {
 
+    /**
+     * Constructs the processed data for a single raw gaze point, produced as it arrived.
+     */
+    public ProcessedDataObject(int xCoord, int yCoord, Emotion prominentEmotion, float[] emotionScores, long timestamp) {
+        this(xCoord, yCoord, prominentEmotion, emotionScores, GazeEventType.POINT, 0, timestamp, timestamp);
+    }
 }
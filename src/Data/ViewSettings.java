@@ -0,0 +1,32 @@
+package Data;
+
+/**
+ * The {@code ViewSettings} record is an immutable snapshot of the settings that control how processed data
+ * is turned into circles. Each change to the settings produces a new snapshot with a higher version,
+ * so a reader can tell with one comparison whether anything changed since it last looked.
+ *
+ * @param version increases by one with every change
+ * @param maxCircles the largest number of circles kept on the display
+ * @param thresholdRadius the largest distance at which a gaze point is consolidated into an existing circle
+ * @param circleRadius the radius of a newly created circle
+ * @param radiusIncrement how much a circle grows each time a gaze point is consolidated into it
+ */
+public record ViewSettings(long version, int maxCircles, int thresholdRadius,
+                           int circleRadius, int radiusIncrement) {
+
+    public ViewSettings withMaxCircles(int maxCircles) {
+        return new ViewSettings(version + 1, maxCircles, thresholdRadius, circleRadius, radiusIncrement);
+    }
+
+    public ViewSettings withThresholdRadius(int thresholdRadius) {
+        return new ViewSettings(version + 1, maxCircles, thresholdRadius, circleRadius, radiusIncrement);
+    }
+
+    public ViewSettings withCircleRadius(int circleRadius) {
+        return new ViewSettings(version + 1, maxCircles, thresholdRadius, circleRadius, radiusIncrement);
+    }
+
+    public ViewSettings withRadiusIncrement(int radiusIncrement) {
+        return new ViewSettings(version + 1, maxCircles, thresholdRadius, circleRadius, radiusIncrement);
+    }
+}
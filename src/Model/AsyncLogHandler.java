@@ -0,0 +1,144 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The {@code AsyncLogHandler} class takes log records off the threads that log them and writes them to the
+ * wrapped handlers, usually the console, on a daemon writer thread of its own.
+ * <p>
+ * Records wait in a bounded queue of {@value #DEFAULT_CAPACITY} records. When the writer falls behind, new
+ * records are dropped and counted under {@code log.async.dropped} in the {@link MetricsRegistry}, so a slow
+ * console never blocks the pipeline. The class and method that logged each record are worked out before the
+ * record is queued, since they cannot be found from the writer thread.
+ * <p>
+ * {@link #install()} moves the handlers of the root logger behind one {@code AsyncLogHandler}, so every logger
+ * in the application writes asynchronously.
+ */
+public class AsyncLogHandler extends Handler {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final String WRITER_NAME = "AsyncLogWriter";
+    private static final long CLOSE_TIMEOUT_IN_MS = 1000;
+
+    private final Handler[] targets;
+    private final BlockingQueue<LogRecord> queue;
+    private final LongAdder droppedRecords;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * @param targets the handlers the records are written to, on the writer thread
+     * @param capacity the most records waiting to be written
+     */
+    public AsyncLogHandler(Handler[] targets, int capacity) {
+        this.targets = targets.clone();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        MetricsRegistry metrics = Blackboard.getInstance().getMetricsRegistry();
+        this.droppedRecords = metrics.counter("log.async.dropped");
+        metrics.gauge("log.async.depth", queue::size);
+        this.writer = new Thread(this::write, WRITER_NAME);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Puts the root logger's handlers behind an {@code AsyncLogHandler}, unless that was already done.
+     */
+    public static synchronized void install() {
+        Logger root = Logger.getLogger("");
+        List<Handler> targets = new ArrayList<>();
+        for (Handler handler : root.getHandlers()) {
+            if (handler instanceof AsyncLogHandler) {
+                return;
+            }
+            targets.add(handler);
+        }
+        for (Handler handler : targets) {
+            root.removeHandler(handler);
+        }
+        AsyncLogHandler handler = new AsyncLogHandler(targets.toArray(new Handler[0]), DEFAULT_CAPACITY);
+        root.addHandler(handler);
+        Runtime.getRuntime().addShutdownHook(new Thread(handler::close, WRITER_NAME + "-Shutdown"));
+    }
+
+    /**
+     * Queues the record to be written, or drops and counts it if the queue is full. Never blocks.
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        record.getSourceClassName(); // find the caller now, it is lost once the record changes threads
+        if (!queue.offer(record)) {
+            droppedRecords.increment();
+        }
+    }
+
+    private void write() {
+        List<LogRecord> batch = new ArrayList<>();
+        try {
+            while (!closed || !queue.isEmpty()) {
+                LogRecord record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    continue;
+                }
+                batch.add(record);
+                queue.drainTo(batch);
+                for (LogRecord queued : batch) {
+                    for (Handler target : targets) {
+                        target.publish(queued);
+                    }
+                }
+                batch.clear();
+                flushTargets();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushTargets() {
+        for (Handler target : targets) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Nothing to do, the writer flushes the wrapped handlers after every batch.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Stops taking records, waits briefly for the queued ones to be written, then closes the wrapped handlers.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join(CLOSE_TIMEOUT_IN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.sum();
+    }
+}
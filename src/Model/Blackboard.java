@@ -1,27 +1,36 @@
 package Model;
 
-import Data.Circle;
+import Data.CircleSnapshot;
+import Data.CircleStore;
+import Data.EmotionReading;
+import Data.GazeSample;
 import Data.ProcessedDataObject;
+import Data.ViewSettings;
+import Model.Recording.SessionRecorder;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
-import java.util.Deque;
-import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 
 /**
  * The {@code Blackboard} class serves as the central hub for managing data across different components
- * of the system. It holds data queues for eye-tracking and emotion information, a list of circles for the display,
+ * of the system. It holds data queues for eye-tracking and emotion information, a snapshot of the circles on the display,
  * and settings for server information and display behavior.
  * <p>
- * This class follows the singleton design pattern, ensuring that only one instance of {@code Blackboard}
- * exists during the application's lifecycle. It provides synchronized access to the data being exchanged
- * between components, and manages the state of data retrieval.
+ * The instance returned by {@link #getInstance()} is the default one, shown on the display. Each further
+ * {@link Session} has a {@code Blackboard} of its own, with its own queues, settings, view state, events and
+ * metrics, so sessions running side by side share no locks. It provides synchronized access to the data
+ * being exchanged between components, and manages the state of data retrieval.
+ * <p>
+ * Every queue has a fixed capacity and an {@link OverflowPolicy} that can be changed while the system is running.
+ * The eye-tracking and emotion queues are lock-free {@link SpscRingBuffer}s of preallocated samples, each with
+ * a single producing client and the {@link RawDataProcessor} as its single consumer.
  */
 public class Blackboard {
 
@@ -29,24 +38,54 @@ public class Blackboard {
     private String eyeTrackingSocket_Host = "localhost";  // default for testing
     private int eyeTrackingSocket_Port = 6001;  // default for testing
 
-    private final BlockingQueue<String> eyeTrackingQueue;
+    private final SpscRingBuffer<GazeSample> eyeTrackingQueue;
+    public static final String PROPERTY_NAME_EYE_TRACKING_DATA = "eye tracking data"; // fired for every gaze sample queued
 
     // EMOTION TRACKING DATA
     private String emotionSocket_Host = "localhost"; // default for testing
     private int emotionSocket_Port = 6000; // default for testing
-    private final BlockingQueue<String> emotionQueue;
+    private final SpscRingBuffer<EmotionReading> emotionQueue;
+
+    //CONNECTION
+    private WireFormat requestedWireFormat = WireFormat.BINARY; // falls back to text for older servers
+    private boolean selectorIngestion = true; // one selector thread for all servers instead of a thread per server
+
+    //FUSION
+    private long fusionWindowInMs = 1000; // largest gap allowed between a gaze sample and its emotion sample
+    private volatile FixationAlgorithm fixationAlgorithm = FixationAlgorithm.NONE; // raw gaze points by default
+    private volatile EmotionAggregation emotionAggregation = EmotionAggregation.MEAN;
+    private volatile long emotionWindowInMs = 3000; // how far back emotion samples are aggregated
+    private volatile int emotionWindowSamples = 64; // the most emotion samples averaged at once
+
+    //RECORDING
+    private volatile boolean recordingEnabled; // record a session every time the system starts
+    private Path recordingDirectory = Path.of("recordings");
+    private volatile SessionRecorder sessionRecorder; // null when not recording
+
+    //WORKERS
+    private volatile WorkerExecution workerExecution = WorkerExecution.PLATFORM_THREAD; // used from the next start
 
     //COMBINED DATA
-    private final Queue<ProcessedDataObject> processedDataQueue;
+    private final BoundedSampleQueue<ProcessedDataObject> processedDataQueue;
     public static final String PROPERTY_NAME_PROCESSED_DATA = "processed data";
-    private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+    private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this); // rare events, such as errors
+    private final EventDispatcher dataDispatcher = new EventDispatcher(this); // per-sample data events
 
     //VIEW DATA
     public static final String PROPERTY_NAME_VIEW_DATA = "view data";
-    private Deque<Circle> circleList;
-    private int maxCircles = 5;
-    private int thresholdRadius = 50;
-    private int circleRadius = 50;
+    public static final String PROPERTY_NAME_VIEW_SETTINGS = "view settings";
+    // replaced as a whole on every publish, so readers never block the writer or see a partial update
+    private volatile CircleSnapshot circleSnapshot = CircleSnapshot.EMPTY;
+    private volatile int targetFramesPerSecond = 60;
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final LongAdder eyeTrackingSamples = metricsRegistry.counter("blackboard.eyeTracking.samples");
+    private final LongAdder emotionSamples = metricsRegistry.counter("blackboard.emotion.samples");
+    private final LongAdder processedSamples = metricsRegistry.counter("blackboard.processed.samples");
+    private volatile long metricsLogIntervalInSeconds = 10; // 0 turns the periodic metrics log line off
+    private volatile boolean latencyOverlayVisible;
+    // replaced as a whole on every change, so readers need only one volatile read
+    private volatile ViewSettings viewSettings = new ViewSettings(0, 5, 50, 50, 50);
     public static final int paddingFromTop = 150; // height of the top panel
 
     //THREAD MAINTENANCE
@@ -55,69 +94,383 @@ public class Blackboard {
 
     //MISC
     private static final int TIMEOUT_IN_MS = 500;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024; // per queue, so a stalled consumer cannot exhaust memory
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DROP_OLDEST;
+    public static final WaitStrategy DEFAULT_WAIT_STRATEGY = WaitStrategy.PARK;
 
 
-    private static final Blackboard INSTANCE = new Blackboard();
+    public static final String DEFAULT_SESSION_ID = "default";
+    private static final Blackboard INSTANCE = new Blackboard(DEFAULT_SESSION_ID);
 
-    // Private constructor to prevent instantiation from other classes
-    private Blackboard() {
-        eyeTrackingQueue = new LinkedBlockingQueue<>();
-        emotionQueue = new LinkedBlockingQueue<>();
-        processedDataQueue  = new ConcurrentLinkedQueue<>();
-        circleList = new ConcurrentLinkedDeque<>();
+    private final String sessionId;
+
+    /**
+     * Creates the Blackboard of a session with queues of the {@link #DEFAULT_QUEUE_CAPACITY default capacity}.
+     * The display uses {@link #getInstance()}; sessions are normally created through a {@link SessionManager}.
+     *
+     * @param sessionId names the session, for example the participant
+     */
+    public Blackboard(String sessionId) {
+        this(sessionId, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates the Blackboard of a session. The queues are allocated up front, so their capacity cannot change
+     * afterwards; a deeper queue absorbs longer stalls of its consumer, a shallower one keeps less stale data.
+     *
+     * @param sessionId names the session, for example the participant
+     * @param queueCapacity the number of samples each queue holds, which must be a power of two
+     * @throws IllegalArgumentException if the capacity is not a power of two
+     */
+    public Blackboard(String sessionId, int queueCapacity) {
+        this.sessionId = sessionId;
+        eyeTrackingQueue = new SpscRingBuffer<>(queueCapacity, GazeSample::new,
+                DEFAULT_OVERFLOW_POLICY, DEFAULT_WAIT_STRATEGY);
+        emotionQueue = new SpscRingBuffer<>(queueCapacity, EmotionReading::new,
+                DEFAULT_OVERFLOW_POLICY, DEFAULT_WAIT_STRATEGY);
+        processedDataQueue  = new BoundedSampleQueue<>(queueCapacity, DEFAULT_OVERFLOW_POLICY);
+        registerGauges();
     }
 
-    // Provide a global point of access to the singleton instance
+    /**
+     * Reports the queue depths and drops, the recording, the data notifications and the latency percentiles
+     * of each stage as gauges, which are only read when the metrics are.
+     */
+    private void registerGauges() {
+        metricsRegistry.gauge("blackboard.eyeTracking.depth", eyeTrackingQueue::size);
+        metricsRegistry.gauge("blackboard.eyeTracking.drops", eyeTrackingQueue::getDropCount);
+        metricsRegistry.gauge("blackboard.emotion.depth", emotionQueue::size);
+        metricsRegistry.gauge("blackboard.emotion.drops", emotionQueue::getDropCount);
+        metricsRegistry.gauge("blackboard.processed.depth", processedDataQueue::size);
+        metricsRegistry.gauge("blackboard.processed.drops", processedDataQueue::getDropCount);
+        metricsRegistry.gauge("recording.records", () -> {
+            SessionRecorder recorder = sessionRecorder;
+            return recorder != null ? recorder.getRecordCount() : 0;
+        });
+        metricsRegistry.gauge("recording.drops", () -> {
+            SessionRecorder recorder = sessionRecorder;
+            return recorder != null ? recorder.getDroppedRecords() : 0;
+        });
+        metricsRegistry.gauge("dispatch.delivered",
+                () -> dataDispatcher.getStats().stream().mapToLong(EventDispatcher.DispatchStats::delivered).sum());
+        metricsRegistry.gauge("dispatch.coalesced",
+                () -> dataDispatcher.getStats().stream().mapToLong(EventDispatcher.DispatchStats::coalesced).sum());
+        for (LatencyStage stage : LatencyStage.values()) {
+            LatencyHistogram histogram = latencyTracker.getHistogram(stage);
+            String name = "latency." + stage.name().toLowerCase();
+            metricsRegistry.gauge(name + ".p50Nanos", () -> histogram.getValueAtPercentile(50));
+            metricsRegistry.gauge(name + ".p99Nanos", () -> histogram.getValueAtPercentile(99));
+            metricsRegistry.gauge(name + ".maxNanos", histogram::getMax);
+        }
+    }
+
+    // Provide a global point of access to the default instance
     public static Blackboard getInstance() {
         return INSTANCE;
     }
 
-    public void addToEyeTrackingQueue(String data) throws InterruptedException {
-        eyeTrackingQueue.put(data);
+    public String getSessionId() {
+        return sessionId;
     }
 
     /**
-    * Retrieves and removes the head of the eye-tracking queue, waiting up to a specified
+     * Adds a decoded eye-tracking sample to the queue along with the time it arrived.
+     * The sample is written into a preallocated slot, so adding does not allocate.
+     * Must only be called from the single thread that produces eye-tracking data.
+     *
+     * @param xCoord the x-coordinate of the gaze point
+     * @param yCoord the y-coordinate of the gaze point
+     * @param sendTime the send time in epoch milliseconds, or 0 if unknown
+     * @param timestamp the arrival time in nanoseconds, as given by {@link System#nanoTime()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void addToEyeTrackingQueue(int xCoord, int yCoord, long sendTime, long timestamp) throws InterruptedException {
+        countGaze(xCoord, yCoord, sendTime, timestamp);
+        enqueueGaze(eyeTrackingQueue.claim(), xCoord, yCoord, sendTime, timestamp);
+    }
+
+    /**
+     * Adds a decoded eye-tracking sample as {@link #addToEyeTrackingQueue} does, but never waits, for a producer
+     * that must not block, such as a selector thread.
+     *
+     * @return false if the queue is full under {@link OverflowPolicy#BLOCK}, in which case the sample was neither
+     * added nor counted and should be offered again once the queue has room
+     */
+    public boolean tryAddToEyeTrackingQueue(int xCoord, int yCoord, long sendTime, long timestamp) {
+        GazeSample slot = eyeTrackingQueue.tryClaim();
+        if (slot == null && eyeTrackingQueue.getOverflowPolicy() == OverflowPolicy.BLOCK) {
+            return false;
+        }
+        countGaze(xCoord, yCoord, sendTime, timestamp);
+        enqueueGaze(slot, xCoord, yCoord, sendTime, timestamp);
+        return true;
+    }
+
+    private void countGaze(int xCoord, int yCoord, long sendTime, long timestamp) {
+        SessionRecorder recorder = sessionRecorder;
+        if (recorder != null) {
+            recorder.recordGaze(xCoord, yCoord, sendTime, timestamp);
+        }
+        eyeTrackingSamples.increment();
+        if (sendTime != 0) {
+            latencyTracker.record(LatencyStage.WIRE,
+                    TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - sendTime));
+        }
+    }
+
+    /**
+     * @param slot the claimed slot, or null if the overflow policy dropped the sample
+     */
+    private void enqueueGaze(GazeSample slot, int xCoord, int yCoord, long sendTime, long timestamp) {
+        if (slot != null) {
+            slot.set(xCoord, yCoord, sendTime, timestamp);
+            long queuedTime = System.nanoTime();
+            slot.setQueuedTime(queuedTime);
+            eyeTrackingQueue.publish();
+            latencyTracker.record(LatencyStage.ENQUEUE, queuedTime - timestamp);
+            dataDispatcher.fire(PROPERTY_NAME_EYE_TRACKING_DATA);
+        }
+    }
+
+    /**
+    * Copies the head of the eye-tracking queue into the given sample and removes it, waiting up to a specified
     * timeout if necessary for an element to become available.
     *
-    * @return the eye-tracking data or null if the specified timeout is reached
+    * @param target the sample to copy the data into
+    * @return true if a sample was copied, false if the specified timeout is reached
     * @throws InterruptedException if interrupted while waiting
     */
-    public String pollEyeTrackingQueue() throws InterruptedException {
-        return eyeTrackingQueue.poll(TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+    public boolean pollEyeTrackingQueue(GazeSample target) throws InterruptedException {
+        GazeSample slot;
+        while ((slot = eyeTrackingQueue.peek(TIMEOUT_IN_MS, TimeUnit.MILLISECONDS)) != null) {
+            target.copyFrom(slot);
+            if (eyeTrackingQueue.release()) {
+                return true;
+            } // otherwise the slot was overwritten while copying, so read the next one
+        }
+        return false;
     }
 
-    public void addToEmotionQueue(String data) throws InterruptedException {
-        emotionQueue.put(data);
+    /**
+     * Copies the head of the eye-tracking queue into the given sample and removes it, without waiting.
+     *
+     * @param target the sample to copy the data into
+     * @return true if a sample was copied, false if the queue is empty
+     */
+    public boolean tryPollEyeTrackingQueue(GazeSample target) {
+        GazeSample slot;
+        while ((slot = eyeTrackingQueue.peek()) != null) {
+            target.copyFrom(slot);
+            if (eyeTrackingQueue.release()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-    * Retrieves and removes the head of the emotion queue, waiting up to a specified
-    * timeout if necessary for an element to become available.
+     * Adds a decoded emotion sample to the queue along with the time it arrived.
+     * The scores are copied into a preallocated slot, so adding does not allocate.
+     * Must only be called from the single thread that produces emotion data.
+     *
+     * @param emotionScores the emotion scores
+     * @param scoreCount the number of scores at the start of {@code emotionScores}
+     * @param sendTime the send time in epoch milliseconds, or 0 if unknown
+     * @param timestamp the arrival time in nanoseconds, as given by {@link System#nanoTime()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void addToEmotionQueue(float[] emotionScores, int scoreCount, long sendTime, long timestamp) throws InterruptedException {
+        countEmotion(emotionScores, scoreCount, sendTime, timestamp);
+        enqueueEmotion(emotionQueue.claim(), emotionScores, scoreCount, sendTime, timestamp);
+    }
+
+    /**
+     * Adds a decoded emotion sample as {@link #addToEmotionQueue} does, but never waits, for a producer
+     * that must not block, such as a selector thread.
+     *
+     * @return false if the queue is full under {@link OverflowPolicy#BLOCK}, in which case the sample was neither
+     * added nor counted and should be offered again once the queue has room
+     */
+    public boolean tryAddToEmotionQueue(float[] emotionScores, int scoreCount, long sendTime, long timestamp) {
+        EmotionReading slot = emotionQueue.tryClaim();
+        if (slot == null && emotionQueue.getOverflowPolicy() == OverflowPolicy.BLOCK) {
+            return false;
+        }
+        countEmotion(emotionScores, scoreCount, sendTime, timestamp);
+        enqueueEmotion(slot, emotionScores, scoreCount, sendTime, timestamp);
+        return true;
+    }
+
+    private void countEmotion(float[] emotionScores, int scoreCount, long sendTime, long timestamp) {
+        SessionRecorder recorder = sessionRecorder;
+        if (recorder != null) {
+            recorder.recordEmotion(emotionScores, scoreCount, sendTime, timestamp);
+        }
+        emotionSamples.increment();
+    }
+
+    /**
+     * @param slot the claimed slot, or null if the overflow policy dropped the sample
+     */
+    private void enqueueEmotion(EmotionReading slot, float[] emotionScores, int scoreCount, long sendTime,
+                                long timestamp) {
+        if (slot != null) {
+            slot.set(emotionScores, scoreCount, sendTime, timestamp);
+            emotionQueue.publish();
+        }
+    }
+
+    /**
+    * Copies the head of the emotion queue into the given reading and removes it, without waiting.
+    * The emotion stream is joined to the eye-tracking stream by timestamp,
+    * so the processor never blocks on it.
     *
-    * @return the emotion data or null if the specified timeout is reached
-    * @throws InterruptedException if interrupted while waiting
+    * @param target the reading to copy the data into
+    * @return true if a reading was copied, false if the queue is empty
     */
-    public String pollEmotionQueue() throws InterruptedException {
-        return emotionQueue.poll(TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+    public boolean pollEmotionQueue(EmotionReading target) {
+        EmotionReading slot;
+        while ((slot = emotionQueue.peek()) != null) {
+            target.copyFrom(slot);
+            if (emotionQueue.release()) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public void addToProcessedDataQueue(ProcessedDataObject data){
-        processedDataQueue.add(data);
-        changeSupport.firePropertyChange(PROPERTY_NAME_PROCESSED_DATA, null, null);
+    public void addToProcessedDataQueue(ProcessedDataObject data) throws InterruptedException {
+        SessionRecorder recorder = sessionRecorder;
+        if (recorder != null) {
+            recorder.recordProcessed(data);
+        }
+        processedSamples.increment();
+        processedDataQueue.put(data);
+        dataDispatcher.fire(PROPERTY_NAME_PROCESSED_DATA);
     }
 
     public ProcessedDataObject getFromProcessedDataObjectQueue(){
         return processedDataQueue.poll();
     }
 
-    public Deque<Circle> getCircleList() {
-        return circleList;
+    /**
+     * Sets the overflow policy of the eye-tracking, emotion and processed data queues.
+     * Takes effect immediately, including for producers already waiting on a full queue.
+     *
+     * @param overflowPolicy what each queue does when a sample arrives while it is full
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        eyeTrackingQueue.setOverflowPolicy(overflowPolicy);
+        emotionQueue.setOverflowPolicy(overflowPolicy);
+        processedDataQueue.setOverflowPolicy(overflowPolicy);
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return eyeTrackingQueue.getOverflowPolicy();
+    }
+
+    /**
+     * @return the number of samples each of the eye-tracking, emotion and processed data queues holds
+     */
+    public int getQueueCapacity() {
+        return eyeTrackingQueue.getCapacity();
+    }
+
+    /**
+     * Sets how the eye-tracking and emotion queues wait for data or space.
+     *
+     * @param waitStrategy busy-spin, yield or park
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        eyeTrackingQueue.setWaitStrategy(waitStrategy);
+        emotionQueue.setWaitStrategy(waitStrategy);
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return eyeTrackingQueue.getWaitStrategy();
+    }
+
+    /**
+     * @return the processed data objects handed to the view logic since the Blackboard was created
+     */
+    public long getProcessedSampleCount() {
+        return processedSamples.sum();
+    }
+
+    public long getEyeTrackingDropCount() {
+        return eyeTrackingQueue.getDropCount();
+    }
+
+    public long getEmotionDropCount() {
+        return emotionQueue.getDropCount();
     }
 
-    public void setCircleList(Deque<Circle> circleList) {
-        this.circleList = circleList;
-        changeSupport.firePropertyChange(PROPERTY_NAME_VIEW_DATA, null, null);
+    public long getProcessedDataDropCount() {
+        return processedDataQueue.getDropCount();
+    }
+
+    /**
+     * @return the circles most recently published, which never change once published
+     */
+    public CircleSnapshot getCircleSnapshot() {
+        return circleSnapshot;
+    }
+
+    /**
+     * Publishes a snapshot of the circles under the next epoch and notifies the view data listeners.
+     * The snapshot shares the store's chunks, so only those changed since the last publish are copied.
+     * Only the view logic thread publishes circles.
+     *
+     * @param circles the circles on the display
+     * @param sourceTimestamp the arrival time of the newest gaze sample reflected in the circles
+     * @return the snapshot published
+     */
+    public CircleSnapshot publishCircles(CircleStore circles, long sourceTimestamp) {
+        CircleSnapshot snapshot = circles.snapshot(circleSnapshot.getEpoch() + 1, sourceTimestamp, System.nanoTime());
+        circleSnapshot = snapshot;
+        dataDispatcher.fire(PROPERTY_NAME_VIEW_DATA);
+        return snapshot;
+    }
+
+    /**
+     * @return the counters and gauges every part of the pipeline reports into
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public long getMetricsLogIntervalInSeconds() {
+        return metricsLogIntervalInSeconds;
+    }
+
+    /**
+     * @param metricsLogIntervalInSeconds how often the {@link MetricsReporter} logs the metrics, or 0 to stop it
+     */
+    public void setMetricsLogIntervalInSeconds(long metricsLogIntervalInSeconds) {
+        this.metricsLogIntervalInSeconds = metricsLogIntervalInSeconds;
+    }
+
+    /**
+     * @return the latency histograms of each stage of the pipeline
+     */
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    public boolean isLatencyOverlayVisible() {
+        return latencyOverlayVisible;
+    }
+
+    public void setLatencyOverlayVisible(boolean latencyOverlayVisible) {
+        this.latencyOverlayVisible = latencyOverlayVisible;
+    }
+
+    public int getTargetFramesPerSecond() {
+        return targetFramesPerSecond;
+    }
+
+    public void setTargetFramesPerSecond(int targetFramesPerSecond) {
+        this.targetFramesPerSecond = Math.max(1, targetFramesPerSecond);
     }
 
     public String getFormattedConnectionSettings(){
@@ -165,28 +518,195 @@ public class Blackboard {
     public void addChangeSupportListener(String propertyName, PropertyChangeListener pcl) {
         changeSupport.addPropertyChangeListener(propertyName, pcl);
     }
+
+    /**
+     * Listens for new data without ever blocking the thread that produced it.
+     * Notifications for {@link #PROPERTY_NAME_PROCESSED_DATA} and {@link #PROPERTY_NAME_VIEW_DATA}
+     * are delivered on the given executor, and a burst of notifications is coalesced into one,
+     * so the listener should drain everything available each time it is called.
+     *
+     * @param propertyName the data property to listen to
+     * @param pcl the listener to notify
+     * @param executor runs each notification
+     * @param minIntervalInMs the shortest time between two notifications, or 0 for no limit
+     */
+    public void addDataListener(String propertyName, PropertyChangeListener pcl,
+                                Executor executor, long minIntervalInMs) {
+        dataDispatcher.addListener(propertyName, pcl, executor, minIntervalInMs);
+    }
+
+    public void removeDataListener(String propertyName, PropertyChangeListener pcl) {
+        dataDispatcher.removeListener(propertyName, pcl);
+    }
+
+    /**
+     * @return how many data notifications each listener has been delivered, and how many were coalesced
+     */
+    public List<EventDispatcher.DispatchStats> getDataListenerStats() {
+        return dataDispatcher.getStats();
+    }
+    /**
+     * @return the current view settings; read it once and use the snapshot for a whole batch of work
+     */
+    public ViewSettings getViewSettings() {
+        return viewSettings;
+    }
+
+    /**
+     * Replaces the view settings with a new version and notifies the view logic, which applies them
+     * straight away, including trimming the circles if {@code maxCircles} shrank.
+     *
+     * @param update produces the new snapshot from the current one
+     */
+    private void updateViewSettings(UnaryOperator<ViewSettings> update) {
+        synchronized (this) {
+            viewSettings = update.apply(viewSettings);
+        }
+        dataDispatcher.fire(PROPERTY_NAME_VIEW_SETTINGS);
+    }
+
     public int getMaxCircles() {
-        return maxCircles;
+        return viewSettings.maxCircles();
     }
 
     public void setMaxCircles(int maxCircles) {
-        this.maxCircles = maxCircles;
+        updateViewSettings(settings -> settings.withMaxCircles(maxCircles));
     }
 
     public int getThresholdRadius() {
-        return thresholdRadius;
+        return viewSettings.thresholdRadius();
     } 
 
     public int getCircleRadius() {
-        return circleRadius;
+        return viewSettings.circleRadius();
     }
 
     public void setCircleRadius(int circleRadius) {
-        this.circleRadius = circleRadius;
+        updateViewSettings(settings -> settings.withCircleRadius(circleRadius));
     }
 
     public void setThresholdRadius(int thresholdRadius) {
-        this.thresholdRadius = thresholdRadius;
+        updateViewSettings(settings -> settings.withThresholdRadius(thresholdRadius));
+    }
+
+    public int getRadiusIncrement() {
+        return viewSettings.radiusIncrement();
+    }
+
+    public void setRadiusIncrement(int radiusIncrement) {
+        updateViewSettings(settings -> settings.withRadiusIncrement(radiusIncrement));
+    }
+
+    public WireFormat getRequestedWireFormat() {
+        return requestedWireFormat;
+    }
+
+    public void setRequestedWireFormat(WireFormat requestedWireFormat) {
+        this.requestedWireFormat = requestedWireFormat;
+    }
+
+    public boolean isSelectorIngestion() {
+        return selectorIngestion;
+    }
+
+    public void setSelectorIngestion(boolean selectorIngestion) {
+        this.selectorIngestion = selectorIngestion;
+    }
+
+    public long getFusionWindowInMs() {
+        return fusionWindowInMs;
+    }
+
+    public void setFusionWindowInMs(long fusionWindowInMs) {
+        this.fusionWindowInMs = fusionWindowInMs;
+    }
+
+    public boolean isRecordingEnabled() {
+        return recordingEnabled;
+    }
+
+    public void setRecordingEnabled(boolean recordingEnabled) {
+        this.recordingEnabled = recordingEnabled;
+    }
+
+    public WorkerExecution getWorkerExecution() {
+        return workerExecution;
+    }
+
+    public void setWorkerExecution(WorkerExecution workerExecution) {
+        this.workerExecution = workerExecution;
+    }
+
+    public Path getRecordingDirectory() {
+        return recordingDirectory;
+    }
+
+    public void setRecordingDirectory(Path recordingDirectory) {
+        this.recordingDirectory = recordingDirectory;
+    }
+
+    /**
+     * @return the recorder everything flowing through the Blackboard is written to, or null when not recording
+     */
+    public SessionRecorder getSessionRecorder() {
+        return sessionRecorder;
+    }
+
+    /**
+     * Starts writing everything that flows through the Blackboard to the given recorder, closing any previous one.
+     *
+     * @param sessionRecorder the recorder, or null to stop recording
+     */
+    public void setSessionRecorder(SessionRecorder sessionRecorder) {
+        SessionRecorder previous = this.sessionRecorder;
+        this.sessionRecorder = sessionRecorder;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public FixationAlgorithm getFixationAlgorithm() {
+        return fixationAlgorithm;
+    }
+
+    /**
+     * Chooses how gaze samples are turned into fixations. Takes effect on the next gaze sample,
+     * ending any fixation in progress.
+     *
+     * @param fixationAlgorithm I-VT, I-DT, or none to pass every gaze sample on as a point
+     */
+    public void setFixationAlgorithm(FixationAlgorithm fixationAlgorithm) {
+        this.fixationAlgorithm = fixationAlgorithm;
+    }
+
+    public EmotionAggregation getEmotionAggregation() {
+        return emotionAggregation;
+    }
+
+    /**
+     * Chooses how the emotion of a gaze sample or fixation is decided. Takes effect on the next emotion sample;
+     * switching starts the aggregation over from the samples that arrive after the switch.
+     *
+     * @param emotionAggregation the nearest single sample, or a summary of the samples in the emotion window
+     */
+    public void setEmotionAggregation(EmotionAggregation emotionAggregation) {
+        this.emotionAggregation = emotionAggregation;
+    }
+
+    public long getEmotionWindowInMs() {
+        return emotionWindowInMs;
+    }
+
+    public void setEmotionWindowInMs(long emotionWindowInMs) {
+        this.emotionWindowInMs = emotionWindowInMs;
+    }
+
+    public int getEmotionWindowSamples() {
+        return emotionWindowSamples;
+    }
+
+    public void setEmotionWindowSamples(int emotionWindowSamples) {
+        this.emotionWindowSamples = emotionWindowSamples;
     }
 
     public void removePropertyChangeListener(String propertyName, PropertyChangeListener pcl) {
@@ -0,0 +1,213 @@
+package Model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code BoundedSampleQueue} class is a fixed-capacity FIFO queue backed by a ring buffer.
+ * <p>
+ * When a sample is added to a full queue, the queue's {@link OverflowPolicy} decides whether the producer
+ * waits or a sample is dropped. The policy can be changed at any time, and every dropped sample is counted,
+ * so a stalled consumer can never grow the queue past its capacity. A producer waiting for room on a
+ * {@link ForkJoinPool} worker lets the pool start another worker meanwhile, so the pool's other tasks keep running.
+ *
+ * @param <T> the type of sample held in the queue
+ */
+public class BoundedSampleQueue<T> {
+
+    private final Object[] items;
+    private int head;  // index of the oldest sample
+    private int count;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private volatile OverflowPolicy overflowPolicy;
+    private final AtomicLong dropCount = new AtomicLong();
+    private final ForkJoinPool.ManagedBlocker roomWaiter = new RoomWaiter();
+
+    /**
+     * @param capacity the largest number of samples the queue holds
+     * @param overflowPolicy what to do when a sample is added to a full queue
+     */
+    public BoundedSampleQueue(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.items = new Object[capacity];
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds a sample, applying the overflow policy if the queue is full.
+     * With {@link OverflowPolicy#LATEST_ONLY} any queued samples are dropped first.
+     *
+     * @param item the sample to add
+     * @throws InterruptedException if interrupted while waiting for room under {@link OverflowPolicy#BLOCK}
+     */
+    public void put(T item) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            // re-read the policy after every wait, since it may change while a producer is blocked
+            while (true) {
+                OverflowPolicy policy = overflowPolicy;
+                if (policy == OverflowPolicy.LATEST_ONLY) {
+                    dropCount.addAndGet(count);
+                    clearItems();
+                    break;
+                }
+                if (count < items.length) {
+                    break;
+                }
+                switch (policy) {
+                    case BLOCK -> ForkJoinPool.managedBlock(roomWaiter);
+                    case DROP_OLDEST -> {
+                        dequeue();
+                        dropCount.incrementAndGet();
+                    }
+                    case DROP_NEWEST -> {
+                        dropCount.incrementAndGet();
+                        return;
+                    }
+                }
+            }
+            items[(head + count) % items.length] = item;
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the oldest sample, waiting up to the given time for one to arrive.
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the oldest sample, or null if the timeout is reached
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the oldest sample without waiting.
+     *
+     * @return the oldest sample, or null if the queue is empty
+     */
+    public T poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every queued sample. Cleared samples are not counted as drops.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            clearItems();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Changes the overflow policy. Producers already waiting under {@link OverflowPolicy#BLOCK}
+     * are woken so the new policy applies to them as well.
+     *
+     * @param overflowPolicy the new policy
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        lock.lock();
+        try {
+            this.overflowPolicy = overflowPolicy;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of samples dropped by the overflow policy since the queue was created
+     */
+    public long getDropCount() {
+        return dropCount.get();
+    }
+
+    /**
+     * Waits for room in the queue under {@link OverflowPolicy#BLOCK}. Only used by a producer holding the lock.
+     */
+    private class RoomWaiter implements ForkJoinPool.ManagedBlocker {
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!isReleasable()) {
+                notFull.await();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return count < items.length || overflowPolicy != OverflowPolicy.BLOCK;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T dequeue() {
+        T item = (T) items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        count--;
+        notFull.signal();
+        return item;
+    }
+
+    private void clearItems() {
+        while (count > 0) {
+            items[head] = null;
+            head = (head + 1) % items.length;
+            count--;
+        }
+        head = 0;
+        notFull.signalAll();
+    }
+}
@@ -0,0 +1,40 @@
+package Model;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The {@code ByteBufferPool} class hands out direct {@link ByteBuffer}s of a fixed size and takes them back
+ * when a connection closes, so buffers are allocated once and reused across connections and engines.
+ */
+public class ByteBufferPool {
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final int bufferSize;
+
+    public ByteBufferPool(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return a cleared buffer from the pool, or a newly allocated one if the pool is empty
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer afterwards.
+     *
+     * @param buffer a buffer previously taken from this pool
+     */
+    public void release(ByteBuffer buffer) {
+        buffers.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,141 @@
+package Model;
+
+import Data.CircleStore;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code CircleIndex} class is a uniform grid over the centers of the active circles, used to find the circle
+ * a new gaze point should be consolidated with without scanning every circle.
+ * <p>
+ * The grid cells are as wide as the consolidation threshold, so any circle within the threshold of a point
+ * lies in the point's cell or one of the eight cells around it. Distances are compared squared.
+ * Cells hold the ids of circles in the {@link CircleStore}, and coordinates are read from the store's columns.
+ * Only the centers are indexed, so circles can grow without the index changing; circles must be
+ * {@link #add(long) added} after they enter the store and {@link #remove(long) removed} before they leave it.
+ * <p>
+ * This class is not thread safe and is meant to be owned by the {@link ViewDataProcessor}.
+ */
+public class CircleIndex {
+
+    public static final long NONE = -1;
+
+    private final CircleStore store;
+    private final Map<Long, IdList> cells = new HashMap<>();
+    private int thresholdRadius;
+    private int cellSize;
+
+    /**
+     * @param store the circles the ids refer to
+     * @param thresholdRadius the largest distance at which a point is consolidated with a circle
+     */
+    public CircleIndex(CircleStore store, int thresholdRadius) {
+        this.store = store;
+        setThreshold(thresholdRadius);
+    }
+
+    /**
+     * Changes the consolidation threshold, re-bucketing every circle in the store.
+     *
+     * @param thresholdRadius the largest distance at which a point is consolidated with a circle
+     */
+    public void setThreshold(int thresholdRadius) {
+        this.thresholdRadius = thresholdRadius;
+        this.cellSize = Math.max(1, thresholdRadius);
+        cells.clear();
+        for (long id = store.getFirstId(); id < store.getEndId(); id++) {
+            add(id);
+        }
+    }
+
+    public void add(long id) {
+        cells.computeIfAbsent(cellKeyOf(id), key -> new IdList()).add(id);
+    }
+
+    public void remove(long id) {
+        long key = cellKeyOf(id);
+        IdList cell = cells.get(key);
+        if (cell != null && cell.remove(id) && cell.size == 0) {
+            cells.remove(key); // keep the grid no larger than the set of occupied cells
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+    }
+
+    /**
+     * Finds the circle a point should be consolidated with: of the circles whose center is within
+     * the threshold, the one added first, matching a scan of the circles from oldest to newest.
+     * Ids increase in the order circles are added, so the oldest is the one with the lowest id.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the id of the oldest circle within the threshold, or {@link #NONE} if there is none
+     */
+    public long findWithinThreshold(int x, int y) {
+        long thresholdSquared = (long) thresholdRadius * thresholdRadius;
+        int cellX = cellCoord(x);
+        int cellY = cellCoord(y);
+        long oldest = NONE;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                IdList cell = cells.get(cellKey(cellX + dx, cellY + dy));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    long id = cell.ids[i];
+                    if (oldest != NONE && id > oldest) {
+                        continue;
+                    }
+                    long distanceX = store.getX(id) - x;
+                    long distanceY = store.getY(id) - y;
+                    if (distanceX * distanceX + distanceY * distanceY <= thresholdSquared) {
+                        oldest = id;
+                    }
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private long cellKeyOf(long id) {
+        return cellKey(cellCoord(store.getX(id)), cellCoord(store.getY(id)));
+    }
+
+    private int cellCoord(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The ids of the circles in one cell.
+     */
+    private static class IdList {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -3,22 +3,38 @@ package Model;
 import Model.DataClients.EmotionDataClient;
 import Model.DataClients.EyeTrackingClient;
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.Socket;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 /**
  * Establishes data and functions necessary for client threads.
+ * <p>
+ * On connecting, the {@link WireFormat} requested in the {@link Blackboard} is negotiated
+ * with the server through {@link WireProtocol}, falling back to text for servers that do not support it.
+ * <p>
+ * The samples received and the invalid samples dropped are counted in the {@link Blackboard}'s
+ * {@link MetricsRegistry}, under {@code client.<thread name>.<host>:<port>}.
  */
 public abstract class ClientThread extends CustomThread {
 
     private final String IP_host;
     private final int IP_port;
-    private Socket connection;
+    private volatile Socket connection;
     private DataInputStream inputStream;
+    private WireFormat wireFormat = WireFormat.TEXT;
+    private LongAdder receivedSamples;
+    private LongAdder invalidSamples;
 
     public ClientThread(String IP_host, int IP_port) {
+        this(IP_host, IP_port, Blackboard.getInstance());
+    }
+
+    public ClientThread(String IP_host, int IP_port, Blackboard blackboard) {
+        super(blackboard);
         this.IP_host = IP_host;
         this.IP_port = IP_port;
     }
@@ -28,15 +44,23 @@ public abstract class ClientThread extends CustomThread {
      */
     @Override
     public void run(){
+        MetricsRegistry metrics = getBlackboard().getMetricsRegistry();
+        String metricName = "client." + super.getThreadName() + "." + IP_host + ":" + IP_port;
+        receivedSamples = metrics.counter(metricName + ".received");
+        invalidSamples = metrics.counter(metricName + ".invalid");
         try(Socket connection = new Socket(IP_host, IP_port);
-            DataInputStream inputStream= new DataInputStream(connection.getInputStream())){
+            BufferedInputStream bufferedStream = new BufferedInputStream(connection.getInputStream());
+            DataInputStream inputStream= new DataInputStream(bufferedStream)){
             this.connection = connection;
             this.inputStream = inputStream;
+            this.wireFormat = WireProtocol.requestFormat(connection, bufferedStream,
+                    getBlackboard().getRequestedWireFormat());
+            super.getLog().info(super.getThreadName() + ": Using " + wireFormat + " wire format.");
             super.run();
         } catch (IOException ex){
             switch (super.getThreadName()){
-                case EmotionDataClient.THREAD_NAME -> Blackboard.getInstance().reportEmotionThreadError(ex.getMessage());
-                case EyeTrackingClient.THREAD_NAME -> Blackboard.getInstance().reportEyeThreadError(ex.getMessage());
+                case EmotionDataClient.THREAD_NAME -> getBlackboard().reportEmotionThreadError(ex.getMessage());
+                case EyeTrackingClient.THREAD_NAME -> getBlackboard().reportEyeThreadError(ex.getMessage());
             }
             super.getLog().log(Level.SEVERE, super.getThreadName() + ": Unable to connect to server.");
         }
@@ -60,7 +84,41 @@ public abstract class ClientThread extends CustomThread {
         }
     }
 
+    /**
+     * Stops the thread and closes its connection, so a read blocked on the socket returns straight away.
+     */
+    @Override
+    public void stopThread() {
+        super.stopThread();
+        Socket socket = connection;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                super.getLog().fine(super.getThreadName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Counts a sample received and added to the Blackboard.
+     */
+    protected void countReceived() {
+        receivedSamples.increment();
+    }
+
+    /**
+     * Counts a sample dropped because it could not be decoded.
+     */
+    protected void countInvalid() {
+        invalidSamples.increment();
+    }
+
     public DataInputStream getInputStream() {
         return inputStream;
     }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
 }
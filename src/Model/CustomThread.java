@@ -1,17 +1,44 @@
 package Model;
 
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
  * Established data for threads to be managed
+ * <p>
+ * Every thread counts the times it performed its work and the errors that stopped it in the
+ * {@link Blackboard}'s {@link MetricsRegistry}, under {@code thread.<name>}.
+ * <p>
+ * A worker is either started as a thread of its own with {@link #start()}, or with {@link #start(WorkerExecution)}
+ * on a shared pool or a virtual thread, in which case this object is never started as a thread itself and
+ * {@link #awaitStop()} must be used instead of {@link #join()}.
+ * <p>
+ * Each worker belongs to one {@link Blackboard}, the default one unless it is given another, for example
+ * the Blackboard of a {@link Session}.
  */
 public abstract class CustomThread extends Thread{
 
+    private final Blackboard blackboard;
     private Logger log;
     private String threadName;
-    private boolean running =  true;
+    private volatile boolean running =  true;
+    private volatile boolean startedOnExecutor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public CustomThread() {
+        this(Blackboard.getInstance());
+    }
+
+    /**
+     * @param blackboard the Blackboard the worker reads from and writes to
+     */
+    public CustomThread(Blackboard blackboard) {
+        this.blackboard = blackboard;
+    }
 
     /**
      * try performing work and catch any exceptions.
@@ -19,22 +46,61 @@ public abstract class CustomThread extends Thread{
      */
     @Override
     public void run() {
+        MetricsRegistry metrics = blackboard.getMetricsRegistry();
+        String metricName = "thread." + (threadName != null ? threadName : getName());
+        LongAdder iterations = metrics.counter(metricName + ".iterations");
         try{
 
             while(running){
                 doYourWork();
+                iterations.increment();
             }
 
         } catch (InterruptedException e) {
             log.log(Level.SEVERE, threadName + " thread was interrupted", e);
             Thread.currentThread().interrupt();
         } catch(Exception e){
-            log.warning(e.toString());
+            if (running) { // otherwise this is the worker being stopped, for example by closing its socket
+                metrics.counter(metricName + ".errors").increment();
+                log.warning(e.toString());
+            }
         } finally{
             cleanUpThread();
         }
     }
 
+    /**
+     * Start the worker the given way. Workers run as their own thread for {@link WorkerExecution#PLATFORM_THREAD}.
+     *
+     * @param execution how to run the worker
+     */
+    public void start(WorkerExecution execution) {
+        Executor executor = execution.getExecutor();
+        if (executor == null) {
+            start();
+            return;
+        }
+        startedOnExecutor = true;
+        executor.execute(() -> {
+            try {
+                run();
+            } finally {
+                stopped.countDown();
+            }
+        });
+    }
+
+    /**
+     * Wait for the worker to stop, however it was started
+     */
+    public void awaitStop() throws InterruptedException {
+        if (startedOnExecutor) {
+            stopped.await();
+        } else {
+            join();
+        }
+    }
+
     /**
      * Perform duties of thread
      */
@@ -53,6 +119,17 @@ public abstract class CustomThread extends Thread{
         //interrupt(); // Interrupt any blocking operations
     }
 
+    /**
+     * @return false once the worker has been asked to stop
+     */
+    protected boolean isRunning() {
+        return running;
+    }
+
+    public Blackboard getBlackboard() {
+        return blackboard;
+    }
+
     public void setThreadName(String threadName) {
         this.threadName = threadName;
     }
@@ -3,8 +3,14 @@ package Model.DataClients;
 
 import Model.Blackboard;
 import Model.ClientThread;
+import Model.RateLimitedLog;
+import Model.SampleParser;
+import Model.WireFormat;
+import Model.WireProtocol;
 
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
@@ -12,29 +18,65 @@ import java.util.logging.Logger;
  * receiving emotion data, and adding it to the {@link Blackboard} for further processing.
  * <p>
  * This class extends {@link ClientThread} and is designed to run as a separate thread.
- * It continuously receives emotion data while the system is running and stores the data in a queue
- * for processing.
+ * It continuously receives emotion data while the system is running, decodes it from
+ * the negotiated {@link WireFormat} and stores the data in a queue for processing.
  */
 public class EmotionDataClient extends ClientThread {
 
     public static final String THREAD_NAME = "EmotionDataClient";
+
+    // reused for every sample, the queue copies the scores into its own slot
+    private final float[] emotionScores = new float[WireProtocol.EMOTION_COUNT];
+    private final RateLimitedLog receivedLog;
+    private final RateLimitedLog invalidLog;
+
     public EmotionDataClient(String host, int port){
-        super(host, port);
+        this(host, port, Blackboard.getInstance());
+    }
+
+    public EmotionDataClient(String host, int port, Blackboard blackboard){
+        super(host, port, blackboard);
         super.setLog(Logger.getLogger(EmotionDataClient.class.getName()));
         super.setThreadName(THREAD_NAME);
+        receivedLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".received");
+        invalidLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".invalid");
     }
 
     /**
-     * The emotion data from the server via the {@link java.io.DataInputStream},
-     * is added to the {@code Blackboard}'s emotion queue for processing.
+     * The emotion data from the server via the {@link java.io.DataInputStream}
+     * is decoded, stamped with its arrival time and added to the {@code Blackboard}'s emotion queue for processing.
+     * Text samples that are not a comma separated list of floats are logged and dropped.
+     * Both messages are rate limited, so logging never holds up the samples.
      *
      */
     @Override
     public void doYourWork() throws InterruptedException, IOException {
         long startTime = System.currentTimeMillis();
-        String str = super.getInputStream().readUTF();
-        Blackboard.getInstance().addToEmotionQueue(str);
-        long endTime = System.currentTimeMillis();
-        super.getLog().info("Received emotion data: " + str + " in " + (endTime - startTime) + "ms");
+        DataInputStream inputStream = super.getInputStream();
+        if (super.getWireFormat() == WireFormat.BINARY) {
+            float[] scores = emotionScores;
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = inputStream.readFloat();
+            }
+            long sendTime = inputStream.readLong();
+            getBlackboard().addToEmotionQueue(scores, scores.length, sendTime, System.nanoTime());
+            countReceived();
+            long endTime = System.currentTimeMillis();
+            receivedLog.info(() -> "Received emotion data: " + Arrays.toString(scores) + " in " + (endTime - startTime) + "ms");
+        } else {
+            String str = inputStream.readUTF();
+            long arrivalTime = System.nanoTime();
+            int count = SampleParser.parseFloats(str, emotionScores);
+            if (count == SampleParser.INVALID_FORMAT) {
+                invalidLog.warning(() -> "Emotion data is expected to be a comma seperated list of 5 floats between 0 and 1." +
+                        "Invalid emotion data format: " + str);
+                countInvalid();
+                return;
+            }
+            getBlackboard().addToEmotionQueue(emotionScores, count, 0, arrivalTime);
+            countReceived();
+            long endTime = System.currentTimeMillis();
+            receivedLog.info(() -> "Received emotion data: " + str + " in " + (endTime - startTime) + "ms");
+        }
     }
 }
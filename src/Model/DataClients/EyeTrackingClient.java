@@ -2,7 +2,11 @@ package Model.DataClients;
 
 import Model.Blackboard;
 import Model.ClientThread;
+import Model.RateLimitedLog;
+import Model.SampleParser;
+import Model.WireFormat;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.logging.Logger;
 
@@ -11,30 +15,64 @@ import java.util.logging.Logger;
  * receiving eye-tracking data, and adding it to the {@link Blackboard} for further processing.
  * <p>
  * This class extends {@link ClientThread} and is designed to run as a separate thread.
- * It continuously receives eye-tracking data while the system is running and stores the data in a queue
- * for processing.
+ * It continuously receives eye-tracking data while the system is running, decodes it from
+ * the negotiated {@link WireFormat} and stores the data in a queue for processing.
  */
 public class EyeTrackingClient extends ClientThread {
 
     public static final String THREAD_NAME = "EyeTrackingClient";
+    private static final int COORDINATE_COUNT = 2;
+
+    // reused for every text sample so parsing does not allocate
+    private final int[] coordinates = new int[COORDINATE_COUNT];
+    private final RateLimitedLog receivedLog;
+    private final RateLimitedLog invalidLog;
+
     public EyeTrackingClient(String host, int port){
-        super(host, port);
-        super.setLog(Logger.getLogger(EmotionDataClient.class.getName()));
+        this(host, port, Blackboard.getInstance());
+    }
+
+    public EyeTrackingClient(String host, int port, Blackboard blackboard){
+        super(host, port, blackboard);
+        super.setLog(Logger.getLogger(EyeTrackingClient.class.getName()));
         super.setThreadName(THREAD_NAME);
+        receivedLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".received");
+        invalidLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".invalid");
     }
 
     /**
-     * The emotion data from the server via the {@link java.io.DataInputStream},
-     * is added to the {@code Blackboard}'s eye tracking queue for processing.
+     * The eye-tracking data from the server via the {@link java.io.DataInputStream}
+     * is decoded, stamped with its arrival time and added to the {@code Blackboard}'s eye tracking queue for processing.
+     * Text samples that are not in the form "int, int" are logged and dropped.
+     * Both messages are rate limited, so logging never holds up the samples.
      *
      */
     @Override
     public void doYourWork() throws InterruptedException, IOException {
         long startTime = System.currentTimeMillis();
-        String str = super.getInputStream().readUTF();
-        Blackboard.getInstance().addToEyeTrackingQueue(str);
-        long endTime = System.currentTimeMillis();
-        super.getLog().info("Received eye tracking data: " + str + " in " + (endTime - startTime) + "ms");
+        DataInputStream inputStream = super.getInputStream();
+        if (super.getWireFormat() == WireFormat.BINARY) {
+            int xCoord = inputStream.readInt();
+            int yCoord = inputStream.readInt();
+            long sendTime = inputStream.readLong();
+            getBlackboard().addToEyeTrackingQueue(xCoord, yCoord, sendTime, System.nanoTime());
+            countReceived();
+            long endTime = System.currentTimeMillis();
+            receivedLog.info(() -> "Received eye tracking data: " + xCoord + ", " + yCoord + " in " + (endTime - startTime) + "ms");
+        } else {
+            String str = inputStream.readUTF();
+            long arrivalTime = System.nanoTime();
+            if (SampleParser.parseInts(str, coordinates) != COORDINATE_COUNT) {
+                invalidLog.warning(() -> "Eye-tracking data must be in the form \"int, int\"." +
+                        "Invalid eye-tracking data format: " + str);
+                countInvalid();
+                return;
+            }
+            getBlackboard().addToEyeTrackingQueue(coordinates[0], coordinates[1], 0, arrivalTime);
+            countReceived();
+            long endTime = System.currentTimeMillis();
+            receivedLog.info(() -> "Received eye tracking data: " + str + " in " + (endTime - startTime) + "ms");
+        }
     }
 
 }
@@ -0,0 +1,501 @@
+package Model.DataClients;
+
+import Model.Blackboard;
+import Model.ByteBufferPool;
+import Model.CustomThread;
+import Model.MetricsRegistry;
+import Model.RateLimitedLog;
+import Model.SampleParser;
+import Model.WireFormat;
+import Model.WireProtocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code SelectorClientEngine} class receives data from any number of eye-tracking and emotion servers
+ * on a single thread, using a {@link Selector} over non-blocking {@link SocketChannel}s.
+ * <p>
+ * This class extends {@link CustomThread} and replaces one {@link Model.ClientThread} per server.
+ * Each connection reads into a {@link ByteBuffer} taken from a shared {@link ByteBufferPool}.
+ * Frames are cut from the buffer in the {@link WireFormat} negotiated through {@link WireProtocol}:
+ * writeUTF length-prefixed text, or fixed-width binary frames. Decoded samples are stamped with their
+ * arrival time and added to the {@link Blackboard} queues, exactly as the client threads do.
+ * <p>
+ * The selector thread never waits on a queue. When a queue is full under {@link Model.OverflowPolicy#BLOCK},
+ * the frame stays in the connection's buffer and the channel stops being read, so the socket's receive buffer
+ * and then the server are held back instead; the frame is offered again every {@value #STALL_RETRY_IN_MS} ms
+ * and the channel is read again once it is taken. Other channels are read meanwhile.
+ * <p>
+ * Channels can be added before or after the engine is started. Several engines can share one pool
+ * if a single thread is not enough.
+ * <p>
+ * The samples received and the invalid samples dropped on each connection are counted in the
+ * {@link Blackboard}'s {@link MetricsRegistry}, under {@code client.SelectorClientEngine.<feed>.<host>:<port>},
+ * with the times the connection stalled on a full queue.
+ */
+public class SelectorClientEngine extends CustomThread {
+
+    public static final String THREAD_NAME = "SelectorClientEngine";
+    public static final int BUFFER_SIZE = 16 * 1024;
+    private static final int SELECT_TIMEOUT_IN_MS = 500;
+    private static final int STALL_RETRY_IN_MS = 1;
+    private static final int UTF_LENGTH_BYTES = 2;
+    private static final int COORDINATE_COUNT = 2;
+
+    /**
+     * The kind of data a channel receives.
+     */
+    public enum Feed { EYE_TRACKING, EMOTION }
+
+    private final Selector selector;
+    private final ByteBufferPool bufferPool;
+    private final Queue<Connection> pendingConnections = new ConcurrentLinkedQueue<>();
+
+    // reused for every sample so decoding does not allocate
+    private final AsciiView asciiView = new AsciiView();
+    private final int[] coordinates = new int[COORDINATE_COUNT];
+    private final float[] emotionScores = new float[WireProtocol.EMOTION_COUNT];
+    private final RateLimitedLog invalidLog;
+
+    public SelectorClientEngine(ByteBufferPool bufferPool) throws IOException {
+        this(bufferPool, Blackboard.getInstance());
+    }
+
+    /**
+     * @param bufferPool the pool read buffers are borrowed from, which may be shared by several engines
+     * @param blackboard where the decoded samples are added
+     */
+    public SelectorClientEngine(ByteBufferPool bufferPool, Blackboard blackboard) throws IOException {
+        super(blackboard);
+        this.selector = Selector.open();
+        this.bufferPool = bufferPool;
+        super.setLog(Logger.getLogger(SelectorClientEngine.class.getName()));
+        super.setThreadName(THREAD_NAME);
+        invalidLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".invalid");
+        super.setName(THREAD_NAME);
+    }
+
+    /**
+     * Starts a non-blocking connection to a server. The connection is registered with the selector
+     * on the engine thread, so this method can be called from any thread.
+     *
+     * @param host the server host
+     * @param port the server port
+     * @param feed the kind of data the server sends
+     * @param requestedFormat the wire format to request from the server
+     */
+    public void addChannel(String host, int port, Feed feed, WireFormat requestedFormat) {
+        pendingConnections.add(new Connection(host, port, feed, requestedFormat, getBlackboard().getMetricsRegistry()));
+        selector.wakeup();
+    }
+
+    /**
+     * Registers new connections, offers the frames of stalled connections again, waits for socket events
+     * and handles each ready channel.
+     */
+    @Override
+    public void doYourWork() throws InterruptedException, IOException {
+        Connection pending;
+        while ((pending = pendingConnections.poll()) != null) {
+            open(pending);
+        }
+
+        selector.select(resumeStalled() ? STALL_RETRY_IN_MS : SELECT_TIMEOUT_IN_MS);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isConnectable()) {
+                    finishConnect(connection);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(connection);
+                }
+            } catch (IOException ex) {
+                reportError(connection, ex);
+                close(connection);
+            }
+        }
+
+        // servers that never answer the handshake are read as text
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            Connection connection = (Connection) key.attachment();
+            if (connection.format == null && connection.handshakeDeadline != 0
+                    && now > connection.handshakeDeadline && connection.buffer != null) {
+                connection.format = WireFormat.TEXT;
+                connection.readTime = now;
+                try {
+                    decodeFrames(connection);
+                } catch (IOException ex) {
+                    reportError(connection, ex);
+                    close(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Offers the frames left in the buffer of every stalled connection again, and reads again from those
+     * whose frames were all taken.
+     *
+     * @return whether a connection is still stalled
+     */
+    private boolean resumeStalled() {
+        boolean anyStalled = false;
+        for (SelectionKey key : selector.keys()) {
+            Connection connection = (Connection) key.attachment();
+            if (!connection.stalled || !key.isValid()) {
+                continue;
+            }
+            connection.stalled = false;
+            try {
+                decodeFrames(connection);
+            } catch (IOException ex) {
+                reportError(connection, ex);
+                close(connection);
+                continue;
+            }
+            if (connection.stalled) {
+                anyStalled = true;
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+        return anyStalled;
+    }
+
+    private void open(Connection connection) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            connection.channel = channel;
+            connection.buffer = bufferPool.acquire();
+            if (channel.connect(new InetSocketAddress(connection.host, connection.port))) {
+                channel.register(selector, SelectionKey.OP_READ, connection);
+                startHandshake(connection);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+        } catch (IOException ex) {
+            reportError(connection, ex);
+            close(connection);
+        }
+    }
+
+    private void finishConnect(Connection connection) throws IOException {
+        connection.channel.finishConnect();
+        connection.channel.keyFor(selector).interestOps(SelectionKey.OP_READ);
+        startHandshake(connection);
+    }
+
+    /**
+     * Sends the hello for a binary request, or settles on text straight away.
+     */
+    private void startHandshake(Connection connection) throws IOException {
+        if (connection.requestedFormat == WireFormat.TEXT) {
+            connection.format = WireFormat.TEXT;
+            return;
+        }
+        ByteBuffer hello = ByteBuffer.allocate(Integer.BYTES + 1);
+        hello.putInt(WireProtocol.MAGIC).put(connection.requestedFormat.getCode()).flip();
+        while (hello.hasRemaining()) {
+            connection.channel.write(hello);
+        }
+        connection.handshakeDeadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(WireProtocol.HANDSHAKE_TIMEOUT_IN_MS);
+    }
+
+    private void read(Connection connection) throws IOException {
+        int bytesRead = connection.channel.read(connection.buffer);
+        connection.readTime = System.nanoTime();
+        if (bytesRead < 0) {
+            super.getLog().warning(THREAD_NAME + ": " + connection + " closed by server.");
+            close(connection);
+            return;
+        }
+        decodeFrames(connection);
+    }
+
+    /**
+     * Cuts every complete frame out of the connection's buffer and leaves any partial frame
+     * at the start of the buffer for the next read. If a queue is full, the frame and those after it are
+     * left as well, and the connection is {@link Connection#stalled stalled} until they are taken.
+     */
+    private void decodeFrames(Connection connection) throws IOException {
+        ByteBuffer buffer = connection.buffer;
+        buffer.flip();
+        try {
+            if (connection.format == null && !readHandshakeReply(connection, buffer)) {
+                return;
+            }
+            while (true) {
+                if (connection.format == WireFormat.BINARY) {
+                    int frameBytes = connection.feed == Feed.EYE_TRACKING
+                            ? WireProtocol.GAZE_FRAME_BYTES : WireProtocol.EMOTION_FRAME_BYTES;
+                    if (buffer.remaining() < frameBytes) {
+                        return;
+                    }
+                    int start = buffer.position();
+                    if (!decodeBinaryFrame(connection, buffer)) {
+                        buffer.position(start);
+                        stall(connection);
+                        return;
+                    }
+                } else {
+                    if (buffer.remaining() < UTF_LENGTH_BYTES) {
+                        return;
+                    }
+                    int length = buffer.getShort(buffer.position()) & 0xFFFF;
+                    if (length + UTF_LENGTH_BYTES > buffer.capacity()) {
+                        throw new IOException("Frame of " + length + " bytes does not fit the read buffer");
+                    }
+                    if (buffer.remaining() < length + UTF_LENGTH_BYTES) {
+                        return;
+                    }
+                    int start = buffer.position() + UTF_LENGTH_BYTES;
+                    if (!decodeTextFrame(connection, asciiView.reset(buffer, start, length))) {
+                        stall(connection);
+                        return;
+                    }
+                    buffer.position(start + length);
+                }
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Stops reading a connection whose frame could not be queued, until {@link #resumeStalled()} queues it.
+     */
+    private void stall(Connection connection) {
+        connection.stalled = true;
+        SelectionKey key = connection.channel.keyFor(selector);
+        if (key.interestOps() != 0) { // not when offered again by resumeStalled
+            key.interestOps(0);
+            connection.stalls.increment();
+        }
+    }
+
+    /**
+     * @return true once the format is settled, false if more bytes are needed
+     */
+    private boolean readHandshakeReply(Connection connection, ByteBuffer buffer) {
+        if (buffer.remaining() >= Integer.BYTES && buffer.getInt(buffer.position()) != WireProtocol.MAGIC) {
+            connection.format = WireFormat.TEXT; // an older server already sending text
+            return true;
+        }
+        if (buffer.remaining() < Integer.BYTES + 1) {
+            return false;
+        }
+        buffer.getInt();
+        connection.format = WireFormat.getByCode(buffer.get());
+        super.getLog().info(THREAD_NAME + ": " + connection + " using " + connection.format + " wire format.");
+        return true;
+    }
+
+    /**
+     * @return false if the queue was full, in which case the frame must be offered again
+     */
+    private boolean decodeBinaryFrame(Connection connection, ByteBuffer buffer) {
+        if (connection.feed == Feed.EYE_TRACKING) {
+            int xCoord = buffer.getInt();
+            int yCoord = buffer.getInt();
+            long sendTime = buffer.getLong();
+            if (!getBlackboard().tryAddToEyeTrackingQueue(xCoord, yCoord, sendTime, connection.readTime)) {
+                return false;
+            }
+        } else {
+            float[] scores = emotionScores;
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = buffer.getFloat();
+            }
+            long sendTime = buffer.getLong();
+            if (!getBlackboard().tryAddToEmotionQueue(scores, scores.length, sendTime, connection.readTime)) {
+                return false;
+            }
+        }
+        connection.receivedSamples.increment();
+        return true;
+    }
+
+    /**
+     * @return false if the queue was full, in which case the frame must be offered again
+     */
+    private boolean decodeTextFrame(Connection connection, AsciiView data) {
+        long arrivalTime = connection.readTime;
+        if (connection.feed == Feed.EYE_TRACKING) {
+            if (!data.isAscii() || SampleParser.parseInts(data, coordinates) != COORDINATE_COUNT) {
+                invalidLog.warning(() -> "Eye-tracking data must be in the form \"int, int\"." +
+                        "Invalid eye-tracking data format: " + data);
+                connection.invalidSamples.increment();
+                return true;
+            }
+            if (!getBlackboard().tryAddToEyeTrackingQueue(coordinates[0], coordinates[1], 0, arrivalTime)) {
+                return false;
+            }
+        } else {
+            int count = data.isAscii() ? SampleParser.parseFloats(data, emotionScores) : SampleParser.INVALID_FORMAT;
+            if (count == SampleParser.INVALID_FORMAT) {
+                invalidLog.warning(() -> "Emotion data is expected to be a comma seperated list of 5 floats between 0 and 1." +
+                        "Invalid emotion data format: " + data);
+                connection.invalidSamples.increment();
+                return true;
+            }
+            if (!getBlackboard().tryAddToEmotionQueue(emotionScores, count, 0, arrivalTime)) {
+                return false;
+            }
+        }
+        connection.receivedSamples.increment();
+        return true;
+    }
+
+    private void reportError(Connection connection, IOException ex) {
+        switch (connection.feed) {
+            case EMOTION -> getBlackboard().reportEmotionThreadError(ex.getMessage());
+            case EYE_TRACKING -> getBlackboard().reportEyeThreadError(ex.getMessage());
+        }
+        super.getLog().log(Level.SEVERE, THREAD_NAME + ": Unable to read from " + connection + ".");
+    }
+
+    private void close(Connection connection) {
+        try {
+            if (connection.channel != null) {
+                connection.channel.close(); // also cancels the selection key
+            }
+        } catch (IOException e) {
+            super.getLog().warning(e.toString());
+        }
+        if (connection.buffer != null) {
+            bufferPool.release(connection.buffer);
+            connection.buffer = null;
+        }
+    }
+
+    /**
+     * Close every channel and the selector, and return all buffers to the pool.
+     */
+    @Override
+    public void cleanUpThread() {
+        for (SelectionKey key : selector.keys()) {
+            close((Connection) key.attachment());
+        }
+        Connection pending;
+        while ((pending = pendingConnections.poll()) != null) {
+            close(pending);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Stop the loop and wake the selector so the thread can terminate.
+     */
+    @Override
+    public void stopThread() {
+        super.stopThread();
+        selector.wakeup();
+    }
+
+    /**
+     * State of one server connection, owned by the engine thread.
+     */
+    private static class Connection {
+        private final String host;
+        private final int port;
+        private final Feed feed;
+        private final WireFormat requestedFormat;
+        private SocketChannel channel;
+        private ByteBuffer buffer;
+        private WireFormat format; // null until the handshake is settled
+        private long handshakeDeadline;
+        private long readTime; // when the bytes in the buffer were read, the arrival time of the frames in them
+        private boolean stalled; // a frame is waiting for room in its queue, and the channel is not read meanwhile
+        private final LongAdder receivedSamples;
+        private final LongAdder invalidSamples;
+        private final LongAdder stalls;
+
+        private Connection(String host, int port, Feed feed, WireFormat requestedFormat, MetricsRegistry metrics) {
+            this.host = host;
+            this.port = port;
+            this.feed = feed;
+            this.requestedFormat = requestedFormat;
+            String metricName = "client." + THREAD_NAME + "." + feed + "." + host + ":" + port;
+            receivedSamples = metrics.counter(metricName + ".received");
+            invalidSamples = metrics.counter(metricName + ".invalid");
+            stalls = metrics.counter(metricName + ".stalls");
+        }
+
+        @Override
+        public String toString() {
+            return feed + " server " + host + ":" + port;
+        }
+    }
+
+    /**
+     * A reusable {@link CharSequence} over the bytes of a text frame, so frames can be parsed
+     * without decoding them into a {@link String}. Only ASCII frames are read this way.
+     */
+    private static class AsciiView implements CharSequence {
+        private ByteBuffer buffer;
+        private int offset;
+        private int length;
+
+        private AsciiView reset(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        private boolean isAscii() {
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(offset + i) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
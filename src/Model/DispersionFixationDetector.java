@@ -0,0 +1,228 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code DispersionFixationDetector} class finds fixations with the dispersion-threshold algorithm (I-DT):
+ * a group of samples is a fixation while its dispersion, the width plus the height of the box around the samples,
+ * stays within the threshold.
+ * <p>
+ * Before a fixation starts, the samples are kept in a sliding window, and the oldest are dropped until
+ * the window is within half the threshold. Starting on a tighter window than the one needed to continue keeps
+ * the end of the preceding saccade out of the fixation, so jitter on the far side does not split it in two.
+ * The minimum and maximum coordinates of the window are kept in monotonic queues, so each sample is added
+ * and dropped in constant amortized time. Once a fixation has started, only running sums and extremes are kept,
+ * so a long fixation needs no more memory than a short one.
+ */
+public class DispersionFixationDetector extends FixationDetector {
+
+    public static final double DEFAULT_DISPERSION_THRESHOLD = 50; // pixels
+
+    private static final int INITIAL_WINDOW_CAPACITY = 64;
+
+    private final double dispersionThreshold;
+
+    // the window of samples before a fixation starts, by sequence number
+    private double[] windowX = new double[INITIAL_WINDOW_CAPACITY];
+    private double[] windowY = new double[INITIAL_WINDOW_CAPACITY];
+    private long[] windowTime = new long[INITIAL_WINDOW_CAPACITY];
+    private long firstSequence;
+    private long nextSequence;
+    private final MonotonicQueue minX = new MonotonicQueue();
+    private final MonotonicQueue maxX = new MonotonicQueue(); // holds negated coordinates
+    private final MonotonicQueue minY = new MonotonicQueue();
+    private final MonotonicQueue maxY = new MonotonicQueue(); // holds negated coordinates
+
+    // the current group, whether a window or a fixation
+    private double sumX;
+    private double sumY;
+    private int count;
+    private long startTime;
+
+    // the extremes of the fixation in progress
+    private double fixationMinX;
+    private double fixationMaxX;
+    private double fixationMinY;
+    private double fixationMaxY;
+
+    /**
+     * @param dispersionThreshold the largest width plus height, in pixels, of a group of samples that still counts as fixating
+     */
+    public DispersionFixationDetector(double dispersionThreshold) {
+        this.dispersionThreshold = dispersionThreshold;
+    }
+
+    public DispersionFixationDetector(double dispersionThreshold, long minDurationInMs, long updateIntervalInMs,
+                                      long maxGapInMs, GazeSmoother smoother) {
+        super(minDurationInMs, updateIntervalInMs, maxGapInMs, smoother);
+        this.dispersionThreshold = dispersionThreshold;
+    }
+
+    @Override
+    protected void detect(double xCoord, double yCoord, long timestamp, FixationListener listener)
+            throws InterruptedException {
+        if (isFixating()) {
+            double newMinX = Math.min(fixationMinX, xCoord);
+            double newMaxX = Math.max(fixationMaxX, xCoord);
+            double newMinY = Math.min(fixationMinY, yCoord);
+            double newMaxY = Math.max(fixationMaxY, yCoord);
+            if ((newMaxX - newMinX) + (newMaxY - newMinY) <= dispersionThreshold) {
+                fixationMinX = newMinX;
+                fixationMaxX = newMaxX;
+                fixationMinY = newMinY;
+                fixationMaxY = newMaxY;
+                sumX += xCoord;
+                sumY += yCoord;
+                count++;
+                candidate(listener, sumX / count, sumY / count, startTime, timestamp);
+                return;
+            }
+            endFixation(listener);
+            reset(); // the sample that broke the fixation begins a new window
+        }
+
+        addToWindow(xCoord, yCoord, timestamp);
+        while (windowDispersion() > dispersionThreshold / 2) {
+            removeOldestFromWindow();
+        }
+        candidate(listener, sumX / count, sumY / count, startTime, timestamp);
+        if (isFixating()) {
+            // from now on the group only grows, so running extremes replace the window
+            fixationMinX = minX.peek();
+            fixationMaxX = -maxX.peek();
+            fixationMinY = minY.peek();
+            fixationMaxY = -maxY.peek();
+            clearWindow();
+        }
+    }
+
+    @Override
+    protected void reset() {
+        clearWindow();
+        sumX = 0;
+        sumY = 0;
+        count = 0;
+    }
+
+    private void addToWindow(double xCoord, double yCoord, long timestamp) {
+        if (nextSequence - firstSequence == windowX.length) {
+            growWindow();
+        }
+        int slot = slot(nextSequence);
+        windowX[slot] = xCoord;
+        windowY[slot] = yCoord;
+        windowTime[slot] = timestamp;
+        minX.add(nextSequence, xCoord);
+        maxX.add(nextSequence, -xCoord);
+        minY.add(nextSequence, yCoord);
+        maxY.add(nextSequence, -yCoord);
+        nextSequence++;
+        if (count == 0) {
+            startTime = timestamp;
+        }
+        sumX += xCoord;
+        sumY += yCoord;
+        count++;
+    }
+
+    private void removeOldestFromWindow() {
+        int slot = slot(firstSequence);
+        sumX -= windowX[slot];
+        sumY -= windowY[slot];
+        count--;
+        firstSequence++;
+        minX.removeBefore(firstSequence);
+        maxX.removeBefore(firstSequence);
+        minY.removeBefore(firstSequence);
+        maxY.removeBefore(firstSequence);
+        startTime = windowTime[slot(firstSequence)];
+    }
+
+    private double windowDispersion() {
+        return (-maxX.peek() - minX.peek()) + (-maxY.peek() - minY.peek());
+    }
+
+    private void clearWindow() {
+        firstSequence = nextSequence;
+        minX.clear();
+        maxX.clear();
+        minY.clear();
+        maxY.clear();
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % windowX.length);
+    }
+
+    private void growWindow() {
+        double[] x = new double[windowX.length * 2];
+        double[] y = new double[x.length];
+        long[] time = new long[x.length];
+        for (long sequence = firstSequence; sequence < nextSequence; sequence++) {
+            int from = slot(sequence);
+            int to = (int) (sequence % x.length);
+            x[to] = windowX[from];
+            y[to] = windowY[from];
+            time[to] = windowTime[from];
+        }
+        windowX = x;
+        windowY = y;
+        windowTime = time;
+    }
+
+    /**
+     * The minimum of a sliding window of values: values that can never be the minimum again, because a
+     * smaller or equal value arrived after them, are dropped as soon as they are outdone.
+     */
+    private static class MonotonicQueue {
+        private long[] sequences = new long[INITIAL_WINDOW_CAPACITY];
+        private double[] values = new double[INITIAL_WINDOW_CAPACITY];
+        private int head;
+        private int size;
+
+        void add(long sequence, double value) {
+            while (size > 0 && values[index(size - 1)] >= value) {
+                size--;
+            }
+            if (size == values.length) {
+                grow();
+            }
+            int index = index(size);
+            sequences[index] = sequence;
+            values[index] = value;
+            size++;
+        }
+
+        void removeBefore(long sequence) {
+            while (size > 0 && sequences[head] < sequence) {
+                head = index(1);
+                size--;
+            }
+        }
+
+        double peek() {
+            return values[head];
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int index(int offset) {
+            return (head + offset) % values.length;
+        }
+
+        private void grow() {
+            long[] newSequences = new long[sequences.length * 2];
+            double[] newValues = new double[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                newSequences[i] = sequences[index(i)];
+                newValues[i] = values[index(i)];
+            }
+            sequences = newSequences;
+            values = newValues;
+            head = 0;
+        }
+    }
+}
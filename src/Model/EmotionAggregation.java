@@ -0,0 +1,11 @@
+package Model;
+
+/**
+ * The ways the {@link RawDataProcessor} can decide which emotion goes with a gaze sample or fixation.
+ */
+public enum EmotionAggregation {
+    NEAREST,   // the single emotion sample nearest in time, see EmotionFusion
+    MEAN,      // the mean of the samples in the window, see EmotionAggregator
+    EWMA,      // an exponentially weighted moving average with the window as its time constant
+    MAX_DECAY  // the highest recent score of each emotion, decaying with the window as its time constant
+}
@@ -0,0 +1,192 @@
+package Model;
+
+import Data.Emotion;
+
+import java.util.Arrays;
+
+/**
+ * The {@code EmotionAggregator} class keeps a running summary of the recent emotion samples, so the emotion
+ * chosen for a gaze sample or fixation reflects a window of readings rather than a single noisy one.
+ * Depending on the {@link EmotionAggregation}, the summary of each emotion is:
+ * <ul>
+ *     <li>{@link EmotionAggregation#MEAN} the mean score over the window. Samples are kept in a ring of
+ *     primitive arrays with running sums, and leave the window when they are older than the window's time,
+ *     or when the window already holds its maximum number of samples.</li>
+ *     <li>{@link EmotionAggregation#EWMA} an exponentially weighted moving average, with the window's time
+ *     as its time constant.</li>
+ *     <li>{@link EmotionAggregation#MAX_DECAY} the highest score, decaying exponentially with the window's
+ *     time as its time constant, so a brief strong reading holds for a while.</li>
+ * </ul>
+ * Adding a sample takes time proportional to the number of emotions and allocates nothing. If no sample
+ * arrived within the window, there is no emotion.
+ * <p>
+ * This class is not thread safe and is meant to be owned by the {@link RawDataProcessor}.
+ */
+public class EmotionAggregator {
+
+    private static final int EMOTION_COUNT = WireProtocol.EMOTION_COUNT;
+
+    private final EmotionAggregation mode;
+    private final long windowNanos;
+    private final int maxSamples;
+
+    // MEAN: the samples in the window, oldest first, EMOTION_COUNT scores per sample
+    private final float[] sampleScores;
+    private final long[] sampleTimes;
+    private int head;
+    private int size;
+
+    // the summary of each emotion: running sums for MEAN, the current value otherwise
+    private final double[] summary = new double[EMOTION_COUNT];
+    private boolean hasSample;
+    private long lastSampleTime;
+
+    /**
+     * @param mode how the samples are summarized
+     * @param windowInMs how long a sample counts for, or the time constant of the decay
+     * @param maxSamples the largest number of samples in a {@link EmotionAggregation#MEAN} window
+     */
+    public EmotionAggregator(EmotionAggregation mode, long windowInMs, int maxSamples) {
+        if (mode == EmotionAggregation.NEAREST) {
+            throw new IllegalArgumentException("Nearest matching is done by EmotionFusion");
+        }
+        this.mode = mode;
+        this.windowNanos = Math.max(1, windowInMs * 1_000_000L);
+        this.maxSamples = Math.max(1, maxSamples);
+        this.sampleScores = new float[mode == EmotionAggregation.MEAN ? this.maxSamples * EMOTION_COUNT : 0];
+        this.sampleTimes = new long[mode == EmotionAggregation.MEAN ? this.maxSamples : 0];
+    }
+
+    public EmotionAggregation getMode() {
+        return mode;
+    }
+
+    public long getWindowInMs() {
+        return windowNanos / 1_000_000L;
+    }
+
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+    /**
+     * Adds a validated emotion sample. Samples are expected in arrival order, and scores
+     * missing from a short sample count as 0.
+     *
+     * @param scores the emotion scores, which are copied
+     * @param scoreCount how many of the scores are valid
+     * @param timestamp the arrival time of the sample in nanoseconds
+     */
+    public void add(float[] scores, int scoreCount, long timestamp) {
+        int count = Math.min(scoreCount, EMOTION_COUNT);
+        switch (mode) {
+            case MEAN -> {
+                expire(timestamp);
+                if (size == maxSamples) {
+                    removeOldest();
+                }
+                int slot = (head + size) % maxSamples;
+                int offset = slot * EMOTION_COUNT;
+                for (int i = 0; i < EMOTION_COUNT; i++) {
+                    float score = i < count ? scores[i] : 0;
+                    sampleScores[offset + i] = score;
+                    summary[i] += score;
+                }
+                sampleTimes[slot] = timestamp;
+                size++;
+            }
+            case EWMA -> {
+                double alpha = hasSample ? 1 - decay(timestamp) : 1;
+                for (int i = 0; i < EMOTION_COUNT; i++) {
+                    float score = i < count ? scores[i] : 0;
+                    summary[i] += alpha * (score - summary[i]);
+                }
+            }
+            case MAX_DECAY -> {
+                double decay = hasSample ? decay(timestamp) : 0;
+                for (int i = 0; i < EMOTION_COUNT; i++) {
+                    float score = i < count ? scores[i] : 0;
+                    summary[i] = Math.max(summary[i] * decay, score);
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected mode: " + mode);
+        }
+        hasSample = true;
+        lastSampleTime = timestamp;
+    }
+
+    /**
+     * @param timestamp the time of the gaze sample or fixation, in nanoseconds
+     * @return the emotion with the highest summary, or {@link Emotion#NONE} if no sample is within the window
+     */
+    public Emotion getProminentEmotion(long timestamp) {
+        if (!hasSampleWithinWindow(timestamp)) {
+            return Emotion.NONE;
+        }
+        int maxIndex = 0;
+        for (int i = 1; i < EMOTION_COUNT; i++) {
+            if (summary[i] > summary[maxIndex]) {
+                maxIndex = i;
+            }
+        }
+        return Emotion.getByValue(maxIndex);
+    }
+
+    /**
+     * @param timestamp the time of the gaze sample or fixation, in nanoseconds
+     * @return a new array holding the summary of each emotion, or null if no sample is within the window
+     */
+    public float[] getScores(long timestamp) {
+        if (!hasSampleWithinWindow(timestamp)) {
+            return null;
+        }
+        float[] scores = new float[EMOTION_COUNT];
+        for (int i = 0; i < EMOTION_COUNT; i++) {
+            scores[i] = (float) (mode == EmotionAggregation.MEAN ? summary[i] / size : summary[i]);
+        }
+        return scores;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        hasSample = false;
+        Arrays.fill(summary, 0);
+    }
+
+    private boolean hasSampleWithinWindow(long timestamp) {
+        if (mode == EmotionAggregation.MEAN) {
+            expire(timestamp);
+            return size > 0;
+        }
+        return hasSample && timestamp - lastSampleTime < windowNanos;
+    }
+
+    /**
+     * Removes the samples that are older than the window at the given time.
+     */
+    private void expire(long timestamp) {
+        while (size > 0 && timestamp - sampleTimes[head] >= windowNanos) {
+            removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        int offset = head * EMOTION_COUNT;
+        for (int i = 0; i < EMOTION_COUNT; i++) {
+            summary[i] -= sampleScores[offset + i];
+        }
+        head = (head + 1) % maxSamples;
+        size--;
+        if (size == 0) {
+            Arrays.fill(summary, 0); // do not let rounding errors build up
+        }
+    }
+
+    /**
+     * @return how much of the previous summary remains after the time since the last sample
+     */
+    private double decay(long timestamp) {
+        return Math.exp(-(double) Math.max(0, timestamp - lastSampleTime) / windowNanos);
+    }
+}
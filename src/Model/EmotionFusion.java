@@ -0,0 +1,93 @@
+package Model;
+
+import Data.EmotionSample;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code EmotionFusion} class joins eye-tracking samples with the emotion sample that
+ * arrived closest in time, instead of pairing the two streams in lock-step.
+ * <p>
+ * Emotion samples are buffered as they arrive. When a gaze sample is matched, the buffered emotion
+ * sample with the smallest time difference is chosen, provided it lies inside the fusion window.
+ * Samples are handled by the following rules:
+ * <ul>
+ *     <li>An emotion sample is reused for every gaze sample it is the nearest match for.</li>
+ *     <li>An emotion sample is dropped once it falls outside the window of the current gaze sample,
+ *     or once a newer emotion sample has arrived at or before the current gaze sample.</li>
+ *     <li>If no emotion sample lies inside the window, there is no match.</li>
+ * </ul>
+ * Gaze samples are never held back waiting for a future emotion sample, so fusion adds no latency.
+ * <p>
+ * This class is not thread safe and is meant to be owned by the {@link RawDataProcessor}.
+ */
+public class EmotionFusion {
+
+    private final Deque<EmotionSample> emotionSamples = new ArrayDeque<>();
+    private long windowNanos;
+
+    /**
+     * @param windowInMs the largest time difference allowed between a gaze sample and its emotion sample
+     */
+    public EmotionFusion(long windowInMs) {
+        setWindow(windowInMs);
+    }
+
+    public void setWindow(long windowInMs) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowInMs);
+    }
+
+    /**
+     * Buffers a newly arrived emotion sample. Samples are expected in arrival order.
+     *
+     * @param sample the parsed emotion sample and its arrival time
+     */
+    public void addEmotionSample(EmotionSample sample) {
+        emotionSamples.addLast(sample);
+    }
+
+    /**
+     * Finds the emotion sample nearest in time to a gaze sample, dropping samples that can
+     * no longer be the nearest match for this or any later gaze sample.
+     *
+     * @param gazeTimestamp the arrival time of the gaze sample in nanoseconds
+     * @return the nearest emotion sample inside the window, or null if there is none
+     */
+    public EmotionSample match(long gazeTimestamp) {
+        // drop samples that are too old or superseded by a newer sample that is not in the future
+        while (!emotionSamples.isEmpty()) {
+            EmotionSample oldest = emotionSamples.peekFirst();
+            boolean outsideWindow = gazeTimestamp - oldest.timestamp() > windowNanos;
+            boolean superseded = emotionSamples.size() > 1
+                    && nextAfterFirst().timestamp() <= gazeTimestamp;
+            if (!outsideWindow && !superseded) {
+                break;
+            }
+            emotionSamples.pollFirst();
+        }
+
+        EmotionSample nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+        for (EmotionSample sample : emotionSamples) {
+            long distance = Math.abs(sample.timestamp() - gazeTimestamp);
+            if (distance > nearestDistance) {
+                break; // samples are in arrival order, so the distance only grows from here
+            }
+            nearestDistance = distance;
+            nearest = sample;
+        }
+        return nearestDistance <= windowNanos ? nearest : null;
+    }
+
+    private EmotionSample nextAfterFirst() {
+        var iterator = emotionSamples.iterator();
+        iterator.next();
+        return iterator.next();
+    }
+
+    public void clear() {
+        emotionSamples.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package Model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code EventDispatcher} class notifies listeners that new data is available, delivering each
+ * notification on the listener's own {@link Executor} instead of on the thread that fired it.
+ * <p>
+ * Notifications carry no data; they only tell a listener to drain what is waiting for it. A listener
+ * therefore has at most one notification pending at a time: firing again before it has been delivered
+ * is coalesced into the pending one. A listener can also be given a minimum interval between deliveries,
+ * which caps its rate however fast events are fired.
+ * <p>
+ * The number of delivered and coalesced notifications is kept for every listener.
+ */
+public class EventDispatcher {
+
+    private final Object source;
+    private final Map<String, List<Registration>> registrations = new ConcurrentHashMap<>();
+    // shared by every dispatcher, so each session's Blackboard does not add a thread of its own
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EventDispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param source the object reported as the source of every event
+     */
+    public EventDispatcher(Object source) {
+        this.source = source;
+    }
+
+    /**
+     * Registers a listener for a property.
+     *
+     * @param propertyName the property to listen to
+     * @param listener the listener to notify
+     * @param executor runs each delivery, for example a worker thread or the Swing event dispatch thread
+     * @param minIntervalInMs the shortest time between two deliveries, or 0 for no limit
+     */
+    public void addListener(String propertyName, PropertyChangeListener listener,
+                            Executor executor, long minIntervalInMs) {
+        registrations.computeIfAbsent(propertyName, name -> new CopyOnWriteArrayList<>())
+                .add(new Registration(propertyName, listener, executor,
+                        TimeUnit.MILLISECONDS.toNanos(minIntervalInMs)));
+    }
+
+    public void removeListener(String propertyName, PropertyChangeListener listener) {
+        List<Registration> listeners = registrations.get(propertyName);
+        if (listeners != null) {
+            listeners.removeIf(registration -> registration.listener == listener);
+        }
+    }
+
+    /**
+     * Notifies every listener of the property that new data is available. Never blocks:
+     * deliveries are handed to the listeners' executors, or coalesced if one is already pending.
+     *
+     * @param propertyName the property that changed
+     */
+    public void fire(String propertyName) {
+        List<Registration> listeners = registrations.get(propertyName);
+        if (listeners != null) {
+            for (Registration registration : listeners) {
+                registration.signal();
+            }
+        }
+    }
+
+    /**
+     * @return the delivered and coalesced counts of every registered listener
+     */
+    public List<DispatchStats> getStats() {
+        List<DispatchStats> stats = new ArrayList<>();
+        for (List<Registration> listeners : registrations.values()) {
+            for (Registration registration : listeners) {
+                stats.add(new DispatchStats(registration.propertyName,
+                        registration.listener.getClass().getSimpleName(),
+                        registration.delivered.sum(), registration.coalesced.sum()));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Delivery counts for one listener.
+     *
+     * @param propertyName the property the listener is registered for
+     * @param listenerName the simple class name of the listener
+     * @param delivered the number of notifications delivered
+     * @param coalesced the number of notifications merged into one that was already pending
+     */
+    public record DispatchStats(String propertyName, String listenerName, long delivered, long coalesced) {
+
+    }
+
+    /**
+     * One listener registered for one property, and its pending delivery.
+     */
+    private class Registration implements Runnable {
+        private final String propertyName;
+        private final PropertyChangeListener listener;
+        private final Executor executor;
+        private final long minIntervalNanos;
+        private final PropertyChangeEvent event;
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private volatile long lastDelivery;
+
+        private Registration(String propertyName, PropertyChangeListener listener,
+                             Executor executor, long minIntervalNanos) {
+            this.propertyName = propertyName;
+            this.listener = listener;
+            this.executor = executor;
+            this.minIntervalNanos = minIntervalNanos;
+            this.event = new PropertyChangeEvent(source, propertyName, null, null);
+            this.lastDelivery = System.nanoTime() - minIntervalNanos;
+        }
+
+        private void signal() {
+            if (!pending.compareAndSet(false, true)) {
+                coalesced.increment();
+                return;
+            }
+            long delay = lastDelivery + minIntervalNanos - System.nanoTime();
+            if (minIntervalNanos > 0 && delay > 0) {
+                scheduler.schedule(() -> executor.execute(this), delay, TimeUnit.NANOSECONDS);
+            } else {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers the notification. The pending flag is cleared first, so anything fired
+         * while the listener is running schedules another delivery rather than being lost.
+         */
+        @Override
+        public void run() {
+            pending.set(false);
+            lastDelivery = System.nanoTime();
+            delivered.increment();
+            listener.propertyChange(event);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Model;
+
+/**
+ * The algorithms the {@link RawDataProcessor} can use to turn gaze samples into fixations.
+ */
+public enum FixationAlgorithm {
+    NONE,       // pass every gaze sample on as a point
+    VELOCITY,   // I-VT, see VelocityFixationDetector
+    DISPERSION; // I-DT, see DispersionFixationDetector
+
+    /**
+     * @return a new detector with the default thresholds, or null for {@link #NONE}
+     */
+    public FixationDetector createDetector() {
+        return switch (this) {
+            case NONE -> null;
+            case VELOCITY -> new VelocityFixationDetector(VelocityFixationDetector.DEFAULT_VELOCITY_THRESHOLD);
+            case DISPERSION -> new DispersionFixationDetector(DispersionFixationDetector.DEFAULT_DISPERSION_THRESHOLD);
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package Model;
+
+import Data.GazeEventType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code FixationDetector} class is the base of the streaming fixation detectors, which turn a stream of
+ * noisy gaze samples into a few fixation events. Samples are first smoothed by a {@link GazeSmoother},
+ * so tracker jitter is not mistaken for eye movement.
+ * Subclasses decide which smoothed samples belong to a fixation; this class decides when to report it:
+ * <ul>
+ *     <li>{@link GazeEventType#FIXATION_START} once a group of samples has lasted the minimum duration,</li>
+ *     <li>{@link GazeEventType#FIXATION_UPDATE} every update interval while the fixation goes on,</li>
+ *     <li>{@link GazeEventType#FIXATION_END} when a sample breaks the fixation, when no sample arrives within
+ *     the maximum gap, or when the stream {@link #finish(FixationListener) finishes}.</li>
+ * </ul>
+ * Samples that never reach the minimum duration, such as saccades and noise, produce no events at all.
+ * Each sample is handled in constant amortized time, and no sample is kept once it can no longer matter.
+ * <p>
+ * This class is not thread safe and is meant to be owned by the {@link RawDataProcessor}.
+ */
+public abstract class FixationDetector {
+
+    public static final long DEFAULT_MIN_DURATION_IN_MS = 100;
+    public static final long DEFAULT_UPDATE_INTERVAL_IN_MS = 250;
+    public static final long DEFAULT_MAX_GAP_IN_MS = 150;
+
+    private final long minDurationNanos;
+    private final long updateIntervalNanos;
+    private final long maxGapNanos;
+    private final GazeSmoother smoother;
+
+    private boolean hasPreviousSample;
+    private long previousTimestamp;
+
+    // the fixation in progress, once started
+    private boolean fixating;
+    private long nextUpdateTime;
+    private int centerX;
+    private int centerY;
+    private long durationNanos;
+
+    protected FixationDetector() {
+        this(DEFAULT_MIN_DURATION_IN_MS, DEFAULT_UPDATE_INTERVAL_IN_MS, DEFAULT_MAX_GAP_IN_MS,
+                new GazeSmoother(GazeSmoother.DEFAULT_TIME_CONSTANT_IN_MS));
+    }
+
+    /**
+     * @param minDurationInMs how long a group of samples must last to count as a fixation
+     * @param updateIntervalInMs how often a fixation in progress is reported
+     * @param maxGapInMs the longest time without samples before a fixation is ended
+     * @param smoother the filter the samples go through before detection
+     */
+    protected FixationDetector(long minDurationInMs, long updateIntervalInMs, long maxGapInMs, GazeSmoother smoother) {
+        this.minDurationNanos = TimeUnit.MILLISECONDS.toNanos(minDurationInMs);
+        this.updateIntervalNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(updateIntervalInMs));
+        this.maxGapNanos = TimeUnit.MILLISECONDS.toNanos(maxGapInMs);
+        this.smoother = smoother;
+    }
+
+    /**
+     * Adds a gaze sample, reporting any fixation event it causes. Samples are expected in arrival order.
+     *
+     * @param xCoord the x-coordinate of the sample
+     * @param yCoord the y-coordinate of the sample
+     * @param timestamp the arrival time of the sample in nanoseconds
+     * @param listener where to report fixation events
+     * @throws InterruptedException if the listener is interrupted
+     */
+    public final void accept(int xCoord, int yCoord, long timestamp, FixationListener listener)
+            throws InterruptedException {
+        if (hasPreviousSample && timestamp - previousTimestamp > maxGapNanos) {
+            endFixation(listener);
+            reset(); // the samples before the gap say nothing about the ones after it
+            hasPreviousSample = false;
+            smoother.reset();
+        }
+        smoother.add(xCoord, yCoord, hasPreviousSample ? timestamp - previousTimestamp : 0);
+        hasPreviousSample = true;
+        previousTimestamp = timestamp;
+        detect(smoother.getX(), smoother.getY(), timestamp, listener);
+    }
+
+    /**
+     * Ends any fixation in progress and forgets every sample, for example when the gaze stream times out.
+     *
+     * @param listener where to report the end of the fixation
+     * @throws InterruptedException if the listener is interrupted
+     */
+    public final void finish(FixationListener listener) throws InterruptedException {
+        endFixation(listener);
+        reset();
+        hasPreviousSample = false;
+        smoother.reset();
+    }
+
+    /**
+     * Adds a smoothed sample to the subclass's grouping, calling {@link #candidate} for the group the sample ends up in,
+     * and {@link #endFixation} first if the sample breaks the fixation in progress.
+     */
+    protected abstract void detect(double xCoord, double yCoord, long timestamp, FixationListener listener)
+            throws InterruptedException;
+
+    /**
+     * Forgets every sample in the subclass's grouping.
+     */
+    protected abstract void reset();
+
+    /**
+     * @return true if the current group of samples has been reported as a fixation
+     */
+    protected final boolean isFixating() {
+        return fixating;
+    }
+
+    /**
+     * Reports the current group of samples: starts a fixation once it has lasted the minimum duration,
+     * and updates it every update interval after that.
+     *
+     * @param centerX the x-coordinate of the center of the group
+     * @param centerY the y-coordinate of the center of the group
+     * @param startTime the arrival time of the first sample in the group
+     * @param timestamp the arrival time of the latest sample in the group
+     */
+    protected final void candidate(FixationListener listener, double centerX, double centerY, long startTime,
+                                   long timestamp) throws InterruptedException {
+        this.centerX = (int) Math.round(centerX);
+        this.centerY = (int) Math.round(centerY);
+        this.durationNanos = timestamp - startTime;
+        if (!fixating) {
+            if (durationNanos >= minDurationNanos) {
+                fixating = true;
+                nextUpdateTime = timestamp + updateIntervalNanos;
+                listener.onFixation(GazeEventType.FIXATION_START, this.centerX, this.centerY, durationNanos);
+            }
+        } else if (timestamp - nextUpdateTime >= 0) {
+            nextUpdateTime = timestamp + updateIntervalNanos;
+            listener.onFixation(GazeEventType.FIXATION_UPDATE, this.centerX, this.centerY, durationNanos);
+        }
+    }
+
+    /**
+     * Ends the fixation in progress, if there is one, reporting where it was and how long it lasted.
+     */
+    protected final void endFixation(FixationListener listener) throws InterruptedException {
+        if (fixating) {
+            fixating = false;
+            listener.onFixation(GazeEventType.FIXATION_END, centerX, centerY, durationNanos);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package Model;
+
+import Data.GazeEventType;
+
+/**
+ * Receives the fixation events found by a {@link FixationDetector}.
+ */
+@FunctionalInterface
+public interface FixationListener {
+
+    /**
+     * @param type whether the fixation started, progressed or ended
+     * @param xCoord the x-coordinate of the center of the fixation so far
+     * @param yCoord the y-coordinate of the center of the fixation so far
+     * @param durationNanos how long the fixation has lasted
+     * @throws InterruptedException if the listener is interrupted while passing the event on
+     */
+    void onFixation(GazeEventType type, int xCoord, int yCoord, long durationNanos) throws InterruptedException;
+}
@@ -0,0 +1,63 @@
+package Model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code GazeSmoother} class removes tracker jitter from gaze samples with an exponential moving average.
+ * The weight of each sample depends on the time since the previous one, so the smoothing is the same
+ * whatever the tracker's sample rate.
+ * <p>
+ * This class is not thread safe and is meant to be owned by a {@link FixationDetector}.
+ */
+public class GazeSmoother {
+
+    public static final long DEFAULT_TIME_CONSTANT_IN_MS = 20;
+
+    private final double timeConstantNanos;
+
+    private boolean initialized;
+    private double smoothedX;
+    private double smoothedY;
+
+    /**
+     * @param timeConstantInMs how long the smoothed point takes to move most of the way to a new position,
+     *                         or 0 to use the samples as they are
+     */
+    public GazeSmoother(long timeConstantInMs) {
+        this.timeConstantNanos = TimeUnit.MILLISECONDS.toNanos(timeConstantInMs);
+    }
+
+    /**
+     * Adds a sample to the average.
+     *
+     * @param xCoord the x-coordinate of the sample
+     * @param yCoord the y-coordinate of the sample
+     * @param elapsedNanos the time since the previous sample
+     */
+    public void add(double xCoord, double yCoord, long elapsedNanos) {
+        if (!initialized || timeConstantNanos == 0) {
+            smoothedX = xCoord;
+            smoothedY = yCoord;
+            initialized = true;
+            return;
+        }
+        double alpha = 1 - Math.exp(-elapsedNanos / timeConstantNanos);
+        smoothedX += alpha * (xCoord - smoothedX);
+        smoothedY += alpha * (yCoord - smoothedY);
+    }
+
+    public double getX() {
+        return smoothedX;
+    }
+
+    public double getY() {
+        return smoothedY;
+    }
+
+    /**
+     * Forgets every sample, so the next one is taken as it is.
+     */
+    public void reset() {
+        initialized = false;
+    }
+}
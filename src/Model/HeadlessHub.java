@@ -0,0 +1,255 @@
+package Model;
+
+import Model.DataClients.SelectorClientEngine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The {@code HeadlessHub} class runs the hub without a display, for ingestion machines and performance jobs.
+ * It has no dependency on AWT or Swing: each participant is a {@link Session} of a {@link SessionManager},
+ * whose clients, {@link RawDataProcessor} and {@link ViewDataProcessor} run as they do under the window,
+ * and their results go to the session recordings, the metrics and, if a port is given, a {@link SnapshotSink}.
+ * <p>
+ * The template Blackboard's metrics, which count the sink and any {@link ShardedProcessingEngine}, are logged
+ * by a {@link MetricsReporter} and registered with JMX as {@value SessionManager#METRICS_OBJECT_NAME}, and
+ * every session's are registered as the {@link SessionManager} does. When the hub stops, the metrics of every
+ * session are logged with their rates since it started, so a run of fixed length can be compared with another.
+ * <p>
+ * A hub is started and stopped once. Run with {@code java Model.HeadlessHub [options]}, see {@link #main(String[])}.
+ */
+public class HeadlessHub {
+
+    private static final Logger log = Logger.getLogger(HeadlessHub.class.getName());
+    private static final long SINK_INTERVAL_IN_MS = 100;
+
+    private final Blackboard template;
+    private final ShardedProcessingEngine processingEngine; // null when each session processes on its own thread
+    private final SessionManager sessionManager;
+    private final SnapshotSink sink; // null without a network sink
+    private final MetricsReporter reporter;
+    private final Map<String, MetricsReporter> sessionReporters = new ConcurrentHashMap<>(); // never started
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private boolean started;
+
+    /**
+     * @param template where the sessions take their settings from
+     * @param sharded whether every session's raw data is processed on one {@link ShardedProcessingEngine}
+     * @param sinkPort the port of the {@link SnapshotSink}, 0 for any free port, or -1 for no sink
+     */
+    public HeadlessHub(Blackboard template, boolean sharded, int sinkPort) {
+        this.template = template;
+        this.processingEngine = sharded ? new ShardedProcessingEngine(Runtime.getRuntime().availableProcessors(),
+                ShardedProcessingEngine.DEFAULT_BATCH_SIZE, template.getMetricsRegistry()) : null;
+        this.sessionManager = new SessionManager(template, new ByteBufferPool(SelectorClientEngine.BUFFER_SIZE),
+                processingEngine);
+        this.sink = sinkPort >= 0 ? new SnapshotSink(sinkPort, SINK_INTERVAL_IN_MS, template.getMetricsRegistry()) : null;
+        this.reporter = new MetricsReporter(template);
+    }
+
+    /**
+     * Starts reporting the metrics and, with a sink, opens its port.
+     *
+     * @throws IOException if the sink's port cannot be opened
+     * @throws IllegalStateException if the hub was already started
+     */
+    public synchronized void start() throws IOException {
+        if (started) {
+            throw new IllegalStateException("The hub was already started");
+        }
+        started = true;
+        if (sink != null) {
+            sink.open();
+            sink.start();
+        }
+        template.getMetricsRegistry().registerMBean(SessionManager.METRICS_OBJECT_NAME);
+        reporter.start();
+        log.info("Headless hub started" + (processingEngine != null
+                ? " with " + processingEngine.getParallelism() + " processing workers" : ""));
+    }
+
+    /**
+     * Creates a session reading the given servers, starts it and sends its circles to the sink.
+     *
+     * @return the started session
+     * @throws IllegalArgumentException if a session with the id is already running
+     * @throws IOException if the session cannot start
+     * @throws InterruptedException if interrupted while starting the session
+     * @see SessionManager#createSession(String, String, int, String, int)
+     */
+    public synchronized Session addSession(String id, String eyeTrackingHost, int eyeTrackingPort,
+                                           String emotionHost, int emotionPort)
+            throws IOException, InterruptedException {
+        if (!started || stopped.getCount() == 0) {
+            throw new IllegalStateException("The hub is not running");
+        }
+        Session session = sessionManager.createSession(id, eyeTrackingHost, eyeTrackingPort, emotionHost, emotionPort);
+        sessionReporters.put(id, new MetricsReporter(session.getBlackboard()));
+        if (sink != null) {
+            sink.addSession(session.getBlackboard());
+        }
+        return session;
+    }
+
+    /**
+     * Stops a session and waits for its workers to finish.
+     *
+     * @return whether there was such a session
+     */
+    public synchronized boolean removeSession(String id) throws InterruptedException {
+        Session session = sessionManager.getSession(id);
+        if (session == null) {
+            return false;
+        }
+        if (sink != null) {
+            sink.removeSession(session.getBlackboard());
+        }
+        sessionReporters.remove(id);
+        return sessionManager.removeSession(id);
+    }
+
+    /**
+     * Logs the metrics of every session, stops them and waits for their workers, then stops the sink, the
+     * processing engine and the metrics reporter. Does nothing if the hub is not running.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!started || stopped.getCount() == 0) {
+            return;
+        }
+        for (MetricsReporter sessionReporter : sessionReporters.values()) {
+            log.info(sessionReporter.formatSnapshot());
+        }
+        sessionReporters.clear();
+        log.info(reporter.formatSnapshot());
+        if (sink != null) {
+            sink.stopThread();
+        }
+        sessionManager.removeAllSessions();
+        if (processingEngine != null) {
+            processingEngine.shutdown();
+        }
+        reporter.stopThread();
+        template.getMetricsRegistry().unregisterMBean(SessionManager.METRICS_OBJECT_NAME);
+        log.info("Headless hub stopped");
+        stopped.countDown();
+    }
+
+    /**
+     * Waits until the hub is stopped.
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    /**
+     * Starts the hub with a number of sessions reading the same servers, named {@code session-1} and on.
+     * Servers that serve one connection at a time, such as the test servers, serve one session; the
+     * {@code TestServers.LoadGenerator} serves as many as its {@code --connections}.
+     * <p>
+     * Options, each followed by its value:
+     * <ul>
+     *     <li>{@code --sessions n}: the number of sessions, 1 by default</li>
+     *     <li>{@code --eye host:port} and {@code --emotion host:port}: the servers, the Blackboard's by default</li>
+     *     <li>{@code --workers platform_thread|shared_pool|virtual_thread}: how the workers run</li>
+     *     <li>{@code --processing threads|sharded}: a processor thread per session, or one engine for all</li>
+     *     <li>{@code --record directory}: record every session under the directory</li>
+     *     <li>{@code --sink port}: stream the circles to clients of the port</li>
+     *     <li>{@code --metrics-interval seconds}: how often the metrics are logged, 0 for never</li>
+     *     <li>{@code --duration seconds}: stop after this long, or 0, the default, to run until the process ends</li>
+     * </ul>
+     *
+     * @param args the options
+     */
+    public static void main(String[] args) throws InterruptedException {
+        AsyncLogHandler.install();
+        Blackboard template = Blackboard.getInstance();
+        int sessions = 1;
+        boolean sharded = false;
+        int sinkPort = -1;
+        long duration = 0;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--sessions" -> sessions = Integer.parseInt(value);
+                    case "--eye" -> {
+                        template.setEyeTrackingSocket_Host(host(value));
+                        template.setEyeTrackingSocket_Port(port(value));
+                    }
+                    case "--emotion" -> {
+                        template.setEmotionSocket_Host(host(value));
+                        template.setEmotionSocket_Port(port(value));
+                    }
+                    case "--workers" -> template.setWorkerExecution(WorkerExecution.valueOf(value.toUpperCase()));
+                    case "--processing" -> sharded = switch (value) {
+                        case "threads" -> false;
+                        case "sharded" -> true;
+                        default -> throw new IllegalArgumentException("Unknown processing " + value);
+                    };
+                    case "--record" -> {
+                        template.setRecordingEnabled(true);
+                        template.setRecordingDirectory(Path.of(value));
+                    }
+                    case "--sink" -> sinkPort = Integer.parseInt(value);
+                    case "--metrics-interval" -> template.setMetricsLogIntervalInSeconds(Long.parseLong(value));
+                    case "--duration" -> duration = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (!template.getWorkerExecution().isAvailable()) {
+                throw new IllegalArgumentException(template.getWorkerExecution() + " is not available");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Headless Hub: " + e.getMessage());
+            System.out.println("Usage: HeadlessHub [--sessions n] [--eye host:port] [--emotion host:port]"
+                    + " [--workers platform_thread|shared_pool|virtual_thread] [--processing threads|sharded]"
+                    + " [--record directory] [--sink port] [--metrics-interval seconds] [--duration seconds]");
+            return;
+        }
+
+        HeadlessHub hub = new HeadlessHub(template, sharded, sinkPort);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                hub.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "HeadlessHubShutdown"));
+        try {
+            hub.start();
+            for (int i = 1; i <= sessions; i++) {
+                hub.addSession("session-" + i, template.getEyeTrackingSocket_Host(),
+                        template.getEyeTrackingSocket_Port(), template.getEmotionSocket_Host(),
+                        template.getEmotionSocket_Port());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.severe("Headless hub could not start: " + e);
+            hub.stop();
+            return;
+        }
+        if (duration > 0) {
+            if (!hub.stopped.await(duration, TimeUnit.SECONDS)) {
+                hub.stop();
+            }
+        } else {
+            hub.awaitStop();
+        }
+    }
+
+    private static String host(String address) {
+        return address.substring(0, address.lastIndexOf(':'));
+    }
+
+    private static int port(String address) {
+        return Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+    }
+}
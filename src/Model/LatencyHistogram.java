@@ -0,0 +1,99 @@
+package Model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * The {@code LatencyHistogram} class counts latencies in nanoseconds into logarithmic buckets, in the manner of
+ * HdrHistogram, so percentiles can be read at any time with a fixed amount of memory however many are recorded.
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKET_HALF} linear buckets, so a percentile is reported to
+ * within about 6% of the true value, and values below {@value #SUB_BUCKET_COUNT} ns exactly. Recording is
+ * lock-free and does not allocate, so any number of threads can record while another reads the percentiles.
+ * A reading taken while values are being recorded may not include the newest of them.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Counts one latency. Negative latencies, from clocks that are not quite in step, count as 0.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        max.accumulate(value);
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return the largest latency recorded, exactly
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile the percentile wanted, from 0 to 100
+     * @return the highest latency in the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Forgets every latency recorded. Latencies recorded at the same time may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        max.reset();
+    }
+
+    private static int bucketOf(long value) {
+        int magnitude = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+        return (magnitude << (SUB_BUCKET_BITS - 1)) + (int) (value >>> magnitude);
+    }
+
+    private static long highestValueIn(int bucket) {
+        int magnitude = Math.max(0, (bucket >> (SUB_BUCKET_BITS - 1)) - 1);
+        long lowest = (long) (bucket - (magnitude << (SUB_BUCKET_BITS - 1))) << magnitude;
+        return lowest + (1L << magnitude) - 1;
+    }
+}
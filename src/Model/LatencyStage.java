@@ -0,0 +1,26 @@
+package Model;
+
+/**
+ * The stages of the pipeline whose latency is traced, in the order a gaze sample passes through them.
+ * Each stage is timed from the end of the stage before it, except {@link #END_TO_END}, which covers them all
+ * from the socket read to the screen.
+ */
+public enum LatencyStage {
+    WIRE("Wire"),               // sent by the server to read from the socket, in whole milliseconds
+    ENQUEUE("Enqueue"),         // read from the socket to added to the eye-tracking queue
+    QUEUE("Queue"),             // added to the eye-tracking queue to taken by the data processor
+    FUSION("Fusion"),           // taken by the data processor to passed on as processed data
+    VIEW_UPDATE("View update"), // passed on as processed data to published in the circles
+    PAINT("Paint"),             // published in the circles to painted on the screen
+    END_TO_END("End to end");   // read from the socket to painted on the screen
+
+    private final String label;
+
+    LatencyStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
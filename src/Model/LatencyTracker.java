@@ -0,0 +1,65 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code LatencyTracker} class keeps a {@link LatencyHistogram} for each {@link LatencyStage}, so the time
+ * a gaze sample spends in each part of the pipeline can be seen while the system runs.
+ * <p>
+ * The stages are timed from nanosecond timestamps carried with each sample: its arrival time from the socket read,
+ * the time it was queued, the time the processed data was made, and the publish time of the circles that show it.
+ * Recording is lock-free, so every stage records from its own thread.
+ */
+public class LatencyTracker {
+
+    private final Map<LatencyStage, LatencyHistogram> histograms = new EnumMap<>(LatencyStage.class);
+
+    public LatencyTracker() {
+        for (LatencyStage stage : LatencyStage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @param stage the stage the latency was measured over
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(LatencyStage stage, long nanos) {
+        histograms.get(stage).record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(LatencyStage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Forgets every latency recorded, for example before starting a load test.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * @return a heading line and one line per stage with its count and percentiles in milliseconds
+     */
+    public List<String> formatStats() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-12s %9s %8s %8s %8s %8s", "Stage (ms)", "count", "p50", "p99", "p99.9", "max"));
+        for (LatencyStage stage : LatencyStage.values()) {
+            LatencyHistogram histogram = histograms.get(stage);
+            lines.add(String.format("%-12s %9d %8.3f %8.3f %8.3f %8.3f", stage.getLabel(), histogram.getCount(),
+                    toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(99)),
+                    toMillis(histogram.getValueAtPercentile(99.9)), toMillis(histogram.getMax())));
+        }
+        return lines;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
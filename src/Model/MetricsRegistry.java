@@ -0,0 +1,131 @@
+package Model;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * The {@code MetricsRegistry} class holds the named counters and gauges the pipeline reports into.
+ * <p>
+ * Counters are {@link LongAdder}s, which are striped so threads counting at the same time do not contend.
+ * A component looks its counters up once, when it is created, and only increments them afterwards, so counting
+ * a sample costs a few nanoseconds and never allocates. Asking for a counter that already exists returns the same
+ * one, so counts carry on when threads are restarted. Gauges are read only when the metrics are, so values that
+ * the pipeline already keeps, such as queue depths, cost nothing to report.
+ * <p>
+ * The metrics can be read through JMX once {@link #registerMBean(String)} is called, and are logged periodically
+ * by a {@link MetricsReporter}. Names are dot-separated, starting with the part of the pipeline they come from.
+ */
+public class MetricsRegistry {
+
+    private static final Logger log = Logger.getLogger(MetricsRegistry.class.getName());
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param name the name of the counter
+     * @return the counter with the name, created at 0 if there was none
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Adds a gauge, replacing any gauge with the same name. The supplier is called from whichever thread reads
+     * the metrics, so it must be safe to call from any thread and must not hold on to objects that should be freed.
+     *
+     * @param name the name of the gauge
+     * @param supplier reads the current value
+     */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * @return the names of the counters, sorted
+     */
+    public Set<String> getCounterNames() {
+        return Collections.unmodifiableSet(counters.keySet());
+    }
+
+    /**
+     * @return the names of the gauges, sorted
+     */
+    public Set<String> getGaugeNames() {
+        return Collections.unmodifiableSet(gauges.keySet());
+    }
+
+    /**
+     * @return the current value of every counter, sorted by name
+     */
+    public SortedMap<String, Long> getCounterValues() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /**
+     * @return the current value of every gauge, sorted by name
+     */
+    public SortedMap<String, Long> getGaugeValues() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * @param name the name of a counter or gauge
+     * @return its current value, or null if there is no metric with the name
+     */
+    public Long getValue(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter != null) {
+            return counter.sum();
+        }
+        LongSupplier gauge = gauges.get(name);
+        return gauge != null ? gauge.getAsLong() : null;
+    }
+
+    /**
+     * Makes the metrics readable through JMX, for example from JConsole, under the given object name.
+     * Failures are logged rather than thrown, since the hub works the same without them.
+     *
+     * @param objectName the JMX object name, such as {@code "EyeTrackingHub:type=Metrics"}
+     */
+    public void registerMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), new ObjectName(objectName));
+        } catch (InstanceAlreadyExistsException e) {
+            log.fine("Metrics are already registered as " + objectName);
+        } catch (JMException e) {
+            log.warning("Unable to register the metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the metrics registered under the name from JMX, if they are there.
+     *
+     * @param objectName the JMX object name given to {@link #registerMBean(String)}
+     */
+    public void unregisterMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(objectName));
+        } catch (InstanceNotFoundException e) {
+            log.fine("No metrics are registered as " + objectName);
+        } catch (JMException e) {
+            log.warning("Unable to unregister the metrics from JMX: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package Model;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The {@code MetricsReporter} logs a snapshot of a {@link Blackboard}'s {@link MetricsRegistry} on one line,
+ * every {@link Blackboard#getMetricsLogIntervalInSeconds()} seconds, with each counter's rate per second since
+ * the last snapshot. An interval of 0 turns the log line off.
+ * <p>
+ * It runs for the lifetime of the application as a daemon thread, independent of the threads started and
+ * stopped with the connections.
+ */
+public class MetricsReporter extends CustomThread {
+
+    public static final String THREAD_NAME = "MetricsReporter";
+    private static final long DISABLED_POLL_IN_MS = 1000;
+
+    private SortedMap<String, Long> previousCounters = new TreeMap<>();
+    private long previousTime = System.nanoTime();
+
+    public MetricsReporter() {
+        this(Blackboard.getInstance());
+    }
+
+    /**
+     * @param blackboard whose metrics and interval are used
+     */
+    public MetricsReporter(Blackboard blackboard) {
+        super(blackboard);
+        super.setLog(Logger.getLogger(MetricsReporter.class.getName()));
+        super.setName(THREAD_NAME);
+        super.setThreadName(THREAD_NAME);
+        setDaemon(true);
+    }
+
+    /**
+     * Waits for the interval, then logs the snapshot.
+     */
+    @Override
+    public void doYourWork() throws InterruptedException, IOException {
+        long interval = getBlackboard().getMetricsLogIntervalInSeconds();
+        if (interval <= 0) {
+            Thread.sleep(DISABLED_POLL_IN_MS);
+            return;
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(interval));
+        super.getLog().info(formatSnapshot());
+    }
+
+    /**
+     * @return every counter with its rate per second since the last snapshot, then every gauge
+     */
+    public String formatSnapshot() {
+        MetricsRegistry metrics = getBlackboard().getMetricsRegistry();
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - previousTime) / 1e9);
+        SortedMap<String, Long> counters = metrics.getCounterValues();
+        StringBuilder line = new StringBuilder("Metrics");
+        if (getBlackboard() != Blackboard.getInstance()) {
+            line.append(" of session ").append(getBlackboard().getSessionId());
+        }
+        line.append(':');
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            long previous = previousCounters.getOrDefault(counter.getKey(), 0L);
+            line.append(' ').append(counter.getKey()).append('=').append(counter.getValue())
+                    .append(String.format(" (%.1f/s)", (counter.getValue() - previous) / seconds));
+        }
+        for (Map.Entry<String, Long> gauge : metrics.getGaugeValues().entrySet()) {
+            line.append(' ').append(gauge.getKey()).append('=').append(gauge.getValue());
+        }
+        previousCounters = counters;
+        previousTime = now;
+        return line.toString();
+    }
+
+    @Override
+    public void cleanUpThread() {
+        previousCounters.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package Model;
+
+/**
+ * Enum representing what a bounded queue does when a sample arrives while it is full.
+ */
+public enum OverflowPolicy {
+    /** The producer waits until the consumer makes room. */
+    BLOCK,
+    /** The oldest queued sample is dropped to make room for the new one. */
+    DROP_OLDEST,
+    /** The new sample is dropped and the queue is left as it is. */
+    DROP_NEWEST,
+    /** Every queued sample is dropped whenever a new one arrives, so only the latest sample is kept. */
+    LATEST_ONLY
+}
@@ -0,0 +1,58 @@
+package Model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The {@code PaddedSequence} class is a volatile {@code long} counter surrounded by unused fields,
+ * so that two sequences written by different threads never share a cache line.
+ * <p>
+ * The padding is split across a class hierarchy because the JVM may reorder fields within one class,
+ * but always lays out superclass fields before subclass fields.
+ */
+public class PaddedSequence extends SequenceValue {
+
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public PaddedSequence(long initialValue) {
+        this.value = initialValue;
+    }
+
+    public long get() {
+        return value;
+    }
+
+    /**
+     * Publishes a new value with release semantics: every write made before this call is visible
+     * to a thread that reads the new value with {@link #get()}.
+     *
+     * @param newValue the value to publish
+     */
+    public void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    public boolean compareAndSet(long expectedValue, long newValue) {
+        return VALUE.compareAndSet(this, expectedValue, newValue);
+    }
+}
+
+abstract class SequenceLeftPadding {
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
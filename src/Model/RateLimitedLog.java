@@ -0,0 +1,85 @@
+package Model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code RateLimitedLog} class logs a message that would otherwise be logged for every sample at most once
+ * per interval, {@value #DEFAULT_INTERVAL_IN_MS} ms by default.
+ * <p>
+ * The message is given as a {@link Supplier} and only built when it is actually logged, so a suppressed message
+ * costs a clock read and a counter increment. Suppressed messages are counted under {@code log.suppressed.<name>}
+ * in the {@link MetricsRegistry}, and the next message that gets through says how many were suppressed before it.
+ * Each call site that logs per sample has its own {@code RateLimitedLog}, so a busy one cannot hide another.
+ */
+public class RateLimitedLog {
+
+    public static final long DEFAULT_INTERVAL_IN_MS = 1000;
+
+    private final Logger log;
+    private final long intervalNanos;
+    private final AtomicLong nextLogTime;
+    private final LongAdder suppressed;
+    private final LongAdder suppressedSinceLast = new LongAdder();
+
+    /**
+     * @param log where the messages are logged
+     * @param metrics where suppressed messages are counted
+     * @param name what the messages are counted under when suppressed
+     */
+    public RateLimitedLog(Logger log, MetricsRegistry metrics, String name) {
+        this(log, metrics, name, DEFAULT_INTERVAL_IN_MS);
+    }
+
+    /**
+     * @param log where the messages are logged
+     * @param metrics where suppressed messages are counted
+     * @param name what the messages are counted under when suppressed
+     * @param intervalInMs the shortest time between two messages
+     */
+    public RateLimitedLog(Logger log, MetricsRegistry metrics, String name, long intervalInMs) {
+        this.log = log;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalInMs);
+        this.nextLogTime = new AtomicLong(System.nanoTime());
+        this.suppressed = metrics.counter("log.suppressed." + name);
+    }
+
+    public void info(Supplier<String> message) {
+        log(Level.INFO, message);
+    }
+
+    public void warning(Supplier<String> message) {
+        log(Level.WARNING, message);
+    }
+
+    /**
+     * Logs the message if the interval has passed since the last one, otherwise counts it as suppressed.
+     * Messages below the logger's level are ignored without being counted.
+     *
+     * @param level the level of the message
+     * @param message builds the message, only called if it is logged
+     */
+    public void log(Level level, Supplier<String> message) {
+        if (!log.isLoggable(level)) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = nextLogTime.get();
+        if (now - next < 0 || !nextLogTime.compareAndSet(next, now + intervalNanos)) {
+            suppressed.increment();
+            suppressedSinceLast.increment();
+            return;
+        }
+        long skipped = suppressedSinceLast.sumThenReset();
+        String text = skipped > 0 ? message.get() + " (" + skipped + " similar messages suppressed)" : message.get();
+        log.logp(level, log.getName(), null, text); // the loggers are named after the class that logs
+    }
+
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+}
@@ -1,16 +1,21 @@
 package Model;
 
 import Data.Emotion;
+import Data.EmotionReading;
+import Data.EmotionSample;
+import Data.GazeEventType;
+import Data.GazeSample;
 import Data.ProcessedDataObject;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * The {@code RawDataProcessor} class processes both eye-tracking and emotion data from queues.
+ * Each gaze sample is joined with the emotion sample that arrived nearest to it in time.
  * It validates, processes, and then converts this data into {@code ProcessedDataObject} instances
  * that can be used for further operations. The data includes integer coordinates for eye-tracking
  * and float-based emotion scores, with an emphasis on identifying the prominent emotion.
@@ -19,159 +24,332 @@ import java.util.stream.Collectors;
  *  <p>
  * The class relies on a {@link Blackboard} to retrieve data from the input queues and add
  * processed data objects to the output queue.
+ *  <p>
+ * Samples arrive already decoded by the clients, so this class only validates and joins them.
+ *  <p>
+ * If a {@link FixationAlgorithm} is chosen, valid gaze samples go through a {@link FixationDetector} and only
+ * the start, updates and end of each fixation are passed on, instead of every raw gaze point.
+ *  <p>
+ * The emotion passed on is either that of the single emotion sample nearest in time, or, with an
+ * {@link EmotionAggregation} other than {@code NEAREST}, a summary of the recent samples kept by an
+ * {@link EmotionAggregator}, so one noisy reading does not change the emotion on its own.
  */
-public class RawDataProcessor extends CustomThread {
+public class RawDataProcessor extends CustomThread implements FixationListener {
 
     public static final String THREAD_NAME = "DataProcessor";
+    private static final int EMOTION_COUNT = WireProtocol.EMOTION_COUNT;
+
+    private final EmotionFusion emotionFusion;
+    private FixationAlgorithm fixationAlgorithm = FixationAlgorithm.NONE;
+    private FixationDetector fixationDetector; // null when passing on raw gaze points
+    private EmotionAggregator emotionAggregator; // null when matching the nearest emotion sample
+    private EmotionSample matchedEmotion; // the emotion joined with the gaze sample being processed
+    private long dequeuedTime; // when the gaze sample being processed was taken from the queue, 0 if none
+    private final LongAdder invalidEyeTrackingSamples;
+    private final LongAdder invalidEmotionSamples;
+    private final LongAdder timeouts;
+    private final RateLimitedLog processingLog;
+    private final RateLimitedLog timeoutLog;
+    private final RateLimitedLog invalidEyeTrackingLog;
+    private final RateLimitedLog invalidEmotionLog;
+
+    // reused for every sample, the queues copy into these
+    private final GazeSample eyeTrackingSample = new GazeSample();
+    private final EmotionReading emotionReading = new EmotionReading();
 
     public RawDataProcessor(){
-        super();
+        this(Blackboard.getInstance());
+    }
+
+    /**
+     * @param blackboard the Blackboard whose queues are processed
+     */
+    public RawDataProcessor(Blackboard blackboard){
+        super(blackboard);
         super.setLog(Logger.getLogger(RawDataProcessor.class.getName()));
         super.setName(THREAD_NAME);
+        emotionFusion = new EmotionFusion(getBlackboard().getFusionWindowInMs());
+        MetricsRegistry metrics = getBlackboard().getMetricsRegistry();
+        invalidEyeTrackingSamples = metrics.counter("processor.eyeTracking.invalid");
+        invalidEmotionSamples = metrics.counter("processor.emotion.invalid");
+        timeouts = metrics.counter("processor.timeouts");
+        processingLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".processing");
+        timeoutLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".timeout");
+        invalidEyeTrackingLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".invalidEyeTracking");
+        invalidEmotionLog = new RateLimitedLog(super.getLog(), getBlackboard().getMetricsRegistry(), THREAD_NAME + ".invalidEmotion");
     }
 
     /**
-     * Retrieves eye-tracking and emotion data from the {@link Blackboard} in pairs using {@link java.util.concurrent.BlockingQueue}.
+     * Retrieves decoded eye-tracking data from the {@link Blackboard} using {@link java.util.concurrent.BlockingQueue}
+     * and joins it with the emotion sample nearest in time through {@link EmotionFusion},
+     * or with the summary of recent emotion samples kept by the {@link EmotionAggregator}.
      * Validates the data, determines the prominent emotion, and adds the processed data
      * to the processed data queue in the Blackboard.
      * <p>
-     * If the data is invalid or missing, the method logs appropriate warnings and,
+     * Only the eye-tracking queue is waited on. Emotion data is drained without blocking,
+     * so a slow emotion stream never delays gaze samples.
+     * <p>
+     * If the data is invalid or missing, the method logs appropriate warnings, at most once a second each, and,
      * when necessary defaults to neutral emotion.
      */
     @Override
     public void doYourWork() throws InterruptedException, IOException {
         // Poll with a timeout to prevent blocking indefinitely
-        String eyeTrackingData = Blackboard.getInstance().pollEyeTrackingQueue();
-        String emotionData = Blackboard.getInstance().pollEmotionQueue();
-
-        if (eyeTrackingData != null) {
-            super.getLog().info("ProcessingThread: Processing data pair: " + eyeTrackingData + ", " + emotionData);
-            // Process the pair of data
-            List<Integer> coordinates = convertToIntegerList(eyeTrackingData);
-            List<Float> emotionScores = null;
-            Emotion prominentEmotion;
-            if (emotionData != null){
-                emotionScores = convertToFloatList(emotionData);
-                //if the emotion data is invalid, use neutral
-                if (!isValidEmotionData(emotionScores)) {
-                    logInvalidEmotionData(emotionData);
-                    prominentEmotion = Emotion.NONE;
-                } else {
-                    prominentEmotion = getProminentEmotion(emotionScores);
-                }
+        boolean hasEyeTrackingData = getBlackboard().pollEyeTrackingQueue(eyeTrackingSample);
+
+        drainEmotionQueue();
+        if (hasEyeTrackingData) {
+            processEyeTrackingSample();
+        } else {
+            handleTimeout();
+        }
+    }
+
+    /**
+     * Processes the eye-tracking samples already queued, up to the given number, without waiting for more.
+     * This is how a {@link ShardedProcessingEngine} runs the processor in place of its own thread; calls must
+     * not overlap, but may come from any thread.
+     *
+     * @param maxSamples the most gaze samples to process
+     * @return the number of gaze samples processed
+     * @throws InterruptedException if interrupted while waiting for space in the processed data queue
+     */
+    public int processAvailable(int maxSamples) throws InterruptedException {
+        drainEmotionQueue();
+        int processed = 0;
+        while (processed < maxSamples && getBlackboard().tryPollEyeTrackingQueue(eyeTrackingSample)) {
+            processEyeTrackingSample();
+            processed++;
+        }
+        return processed;
+    }
+
+    /**
+     * Does what {@link #doYourWork()} does when no gaze sample arrives in time: logs it, and ends any fixation
+     * in progress. For a {@link ShardedProcessingEngine}, which calls it when the session has been quiet.
+     *
+     * @throws InterruptedException if interrupted while waiting for space in the processed data queue
+     */
+    public void processIdle() throws InterruptedException {
+        drainEmotionQueue();
+        handleTimeout();
+    }
+
+    private void drainEmotionQueue() {
+        updateEmotionAggregator();
+        while (getBlackboard().pollEmotionQueue(emotionReading)) {
+            if (emotionAggregator == null) {
+                emotionFusion.addEmotionSample(processEmotionData(emotionReading));
             } else {
-                prominentEmotion = Emotion.NONE;
+                aggregateEmotionData(emotionReading);
             }
+        }
+    }
 
-            if (!isValidEyeTrackingData(coordinates)) {
-                logInvalidEyeTrackingData(eyeTrackingData);
-                return; //we can't do anything without eye tracking
-            }
-            ProcessedDataObject processedData = new ProcessedDataObject(
-                    coordinates.get(0),
-                    coordinates.get(1),
-                    prominentEmotion,
-                    emotionScores
-            );
-
-            Blackboard.getInstance().addToProcessedDataQueue(processedData);
-        }
-        // debugging client/server communication
-        else if (emotionData != null) {
-            super.getLog().warning(THREAD_NAME + ": Eye-tracking data is missing, but emotion data is present.");
+    private void processEyeTrackingSample() throws InterruptedException {
+        dequeuedTime = System.nanoTime();
+        getBlackboard().getLatencyTracker().record(LatencyStage.QUEUE,
+                dequeuedTime - eyeTrackingSample.getQueuedTime());
+        Emotion emotion;
+        if (emotionAggregator == null) {
+            emotionFusion.setWindow(getBlackboard().getFusionWindowInMs());
+            matchedEmotion = emotionFusion.match(eyeTrackingSample.getTimestamp());
+            emotion = matchedEmotion != null ? matchedEmotion.prominentEmotion() : null;
         } else {
-            // Handle timeout case or missing data
-            super.getLog().warning(THREAD_NAME + ": Timed out waiting for data, or one client is slow.");
+            emotion = emotionAggregator.getProminentEmotion(eyeTrackingSample.getTimestamp());
+        }
+
+        processingLog.info(() -> "ProcessingThread: Processing data pair: " + eyeTrackingSample.getXCoord() + ", "
+                + eyeTrackingSample.getYCoord() + ", " + emotion);
+        if (!isValidEyeTrackingData(eyeTrackingSample)) {
+            logInvalidEyeTrackingData(eyeTrackingSample);
+            return; //we can't do anything without eye tracking
+        }
+
+        updateFixationDetector();
+        if (fixationDetector == null) {
+            addProcessedData(GazeEventType.POINT, eyeTrackingSample.getXCoord(), eyeTrackingSample.getYCoord(), 0);
+        } else {
+            fixationDetector.accept(eyeTrackingSample.getXCoord(), eyeTrackingSample.getYCoord(),
+                    eyeTrackingSample.getTimestamp(), this);
+        }
+    }
+
+    private void handleTimeout() throws InterruptedException {
+        // Handle timeout case or missing data
+        timeoutLog.warning(() -> THREAD_NAME + ": Timed out waiting for eye-tracking data.");
+        timeouts.increment();
+        dequeuedTime = 0; // a fixation ended by the timeout was not caused by a sample
+        if (fixationDetector != null) {
+            fixationDetector.finish(this);
         }
     }
 
+    /**
+     * Passes a fixation event on as processed data, joined with the emotion at the gaze sample that caused it.
+     */
     @Override
-    public void cleanUpThread() {
-        //noting needed
+    public void onFixation(GazeEventType type, int xCoord, int yCoord, long durationNanos) throws InterruptedException {
+        addProcessedData(type, xCoord, yCoord, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    private void addProcessedData(GazeEventType type, int xCoord, int yCoord, long durationInMs)
+            throws InterruptedException {
+        ProcessedDataObject processedData;
+        long timestamp = eyeTrackingSample.getTimestamp();
+        long processedTime = System.nanoTime();
+        if (emotionAggregator != null) {
+            processedData = new ProcessedDataObject(xCoord, yCoord, emotionAggregator.getProminentEmotion(timestamp),
+                    emotionAggregator.getScores(timestamp), type, durationInMs, timestamp, processedTime);
+        } else if (matchedEmotion != null) {
+            processedData = new ProcessedDataObject(xCoord, yCoord, matchedEmotion.prominentEmotion(),
+                    matchedEmotion.emotionScores(), type, durationInMs, timestamp, processedTime);
+        } else {
+            processedData = new ProcessedDataObject(xCoord, yCoord, Emotion.NONE, null, type, durationInMs,
+                    timestamp, processedTime);
+        }
+        if (dequeuedTime != 0) {
+            getBlackboard().getLatencyTracker().record(LatencyStage.FUSION, processedTime - dequeuedTime);
+        }
+
+        getBlackboard().addToProcessedDataQueue(processedData);
     }
 
     /**
-     * Validates that the eye-tracking data contains non-negative integers.
+     * Switches to the detector for the Blackboard's fixation algorithm if it changed, ending any fixation
+     * in progress with the old one.
+     */
+    private void updateFixationDetector() throws InterruptedException {
+        FixationAlgorithm latest = getBlackboard().getFixationAlgorithm();
+        if (latest != fixationAlgorithm) {
+            if (fixationDetector != null) {
+                fixationDetector.finish(this);
+            }
+            fixationAlgorithm = latest;
+            fixationDetector = latest.createDetector();
+        }
+    }
+
+    /**
+     * Replaces the aggregator if the Blackboard's emotion aggregation or window changed.
+     * Switching to nearest matching starts from an empty {@link EmotionFusion}.
+     */
+    private void updateEmotionAggregator() {
+        Blackboard blackboard = getBlackboard();
+        EmotionAggregation mode = blackboard.getEmotionAggregation();
+        if (mode == EmotionAggregation.NEAREST) {
+            if (emotionAggregator != null) {
+                emotionAggregator = null;
+                emotionFusion.clear();
+            }
+            return;
+        }
+        long windowInMs = blackboard.getEmotionWindowInMs();
+        int windowSamples = blackboard.getEmotionWindowSamples();
+        if (emotionAggregator == null || emotionAggregator.getMode() != mode
+                || emotionAggregator.getWindowInMs() != windowInMs || emotionAggregator.getMaxSamples() != windowSamples) {
+            emotionAggregator = new EmotionAggregator(mode, windowInMs, windowSamples);
+            matchedEmotion = null;
+        }
+    }
+
+    /**
+     * Validates an emotion reading and adds it to the aggregator, straight from the reading's scores.
+     * Invalid readings are logged and left out.
      *
-     * @param data the list of integers representing x-y coordinates for eye-tracking
-     * @return true if all integers in the list are non-negative, false otherwise
+     * @param emotionReading the decoded emotion data and its arrival time
      */
-    private boolean isValidEyeTrackingData(List<Integer> data){
-        return data != null && data.stream().allMatch(number -> number >= 0);
+    private void aggregateEmotionData(EmotionReading emotionReading) {
+        float[] scores = emotionReading.getEmotionScores();
+        int count = emotionReading.getScoreCount();
+        if (!isValidEmotionData(scores, count)) {
+            logInvalidEmotionData(Arrays.copyOf(scores, count));
+            return;
+        }
+        emotionAggregator.add(scores, count, emotionReading.getTimestamp());
     }
 
     /**
-     * Converts a comma-separated string of integers (x, y coordinates) into a list of {@code Integer} objects.
+     * Validates an emotion reading once, when it arrives, so it can be joined
+     * with many eye-tracking samples without being checked again.
+     * If the emotion data is invalid, the sample uses neutral emotion.
      *
-     * @param data the comma-separated string of integers
-     * @return a list of integers, or null if the parsing fails due to an invalid format
+     * @param emotionReading the decoded emotion data and its arrival time
+     * @return the validated emotion sample, which owns a copy of the scores
      */
-    private List<Integer> convertToIntegerList(String data) {
-        try {
-            return Arrays.stream(data.split(","))
-                    .map(String::trim)
-                    .map(Integer::parseInt)
-                    .collect(Collectors.toList());
-        } catch (NumberFormatException e) {
-            logInvalidEyeTrackingData(data);
-            return null;
+    private EmotionSample processEmotionData(EmotionReading emotionReading) {
+        float[] scores = Arrays.copyOf(emotionReading.getEmotionScores(), emotionReading.getScoreCount());
+        if (!isValidEmotionData(scores, scores.length)) {
+            logInvalidEmotionData(scores);
+            return new EmotionSample(null, Emotion.NONE, emotionReading.getTimestamp());
+        }
+        return new EmotionSample(scores, getProminentEmotion(scores), emotionReading.getTimestamp());
+    }
+
+    @Override
+    public void cleanUpThread() {
+        emotionFusion.clear();
+        if (emotionAggregator != null) {
+            emotionAggregator.clear();
         }
     }
 
     /**
-     * Logs an error message when invalid eye-tracking data is encountered.
+     * Validates that the eye-tracking data contains non-negative integers.
      *
-     * @param data the invalid eye-tracking data string
+     * @param data the eye-tracking sample
+     * @return true if both coordinates are non-negative, false otherwise
      */
-    private void logInvalidEyeTrackingData(String data){
-        super.getLog().warning("Eye-tracking data must be in the form \"int, int\"\n where both are >= 0." +
-                "Invalid eye-tracking data format: " + data);
+    private boolean isValidEyeTrackingData(GazeSample data){
+        return data.getXCoord() >= 0 && data.getYCoord() >= 0;
     }
 
     /**
-     * Validates that the emotion data contains floats between 0 and 1, inclusive.
+     * Logs an error message when invalid eye-tracking data is encountered, at most once a second, and counts it.
      *
-     * @param data the list of floats representing emotion scores
-     * @return true if all floats are within the range [0, 1], false otherwise
+     * @param data the invalid eye-tracking sample
      */
-    private boolean isValidEmotionData(List<Float> data){
-        return data != null && data.stream().allMatch(number -> number >= 0 && number <= 1);
+    private void logInvalidEyeTrackingData(GazeSample data){
+        invalidEyeTrackingSamples.increment();
+        invalidEyeTrackingLog.warning(() -> "Eye-tracking data must be in the form \"int, int\"\n where both are >= 0." +
+                "Invalid eye-tracking data: " + data.getXCoord() + ", " + data.getYCoord());
     }
 
     /**
-     * Converts a comma-separated string of floats (emotion scores) into a list of {@code Float} objects.
+     * Validates that the emotion data contains floats between 0 and 1, inclusive.
      *
-     * @param data the comma-separated string of floats
-     * @return a list of floats, or null if the parsing fails due to an invalid format
+     * @param data the emotion scores
+     * @param count how many of the scores were received
+     * @return true if all floats are within the range [0, 1], false otherwise
      */
-    private List<Float> convertToFloatList(String data) {
-        try {
-            return Arrays.stream(data.split(","))
-                    .map(String::trim)
-                    .map(Float::parseFloat)
-                    .collect(Collectors.toList());
-        } catch (NumberFormatException e) {
-            logInvalidEmotionData(data);
-            return null;  // Or return an empty list, or handle the error as needed
+    private boolean isValidEmotionData(float[] data, int count){
+        if (data == null || count < 1 || count > EMOTION_COUNT || count > data.length) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!(data[i] >= 0 && data[i] <= 1)) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
      * Determines the prominent emotion based on the highest value in the emotion scores.
      *
-     * @param emotionScores the list of emotion scores
+     * @param emotionScores the emotion scores
      * @return the most prominent emotion based on the highest score
-     * @throws IllegalArgumentException if the list of emotion scores is null or empty
+     * @throws IllegalArgumentException if the emotion scores are null or empty
      */
-    public Emotion getProminentEmotion(List<Float> emotionScores){
-        if (emotionScores == null || emotionScores.isEmpty()) {
-            throw new IllegalArgumentException("List must not be null or empty");
+    public Emotion getProminentEmotion(float[] emotionScores){
+        if (emotionScores == null || emotionScores.length == 0) {
+            throw new IllegalArgumentException("Scores must not be null or empty");
         }
 
         int maxIndex = 0;  // Assume the first element is the largest initially
-        for (int i = 1; i < emotionScores.size(); i++) {
+        for (int i = 1; i < emotionScores.length; i++) {
             // If current element is greater than the current max, update maxIndex
-            if (emotionScores.get(i) > emotionScores.get(maxIndex)) {
+            if (emotionScores[i] > emotionScores[maxIndex]) {
                 maxIndex = i;
             }
         }
@@ -180,13 +358,14 @@ public class RawDataProcessor extends CustomThread {
     }
 
     /**
-     * Logs an error message when invalid emotion data is encountered.
+     * Logs an error message when invalid emotion data is encountered, at most once a second, and counts it.
      *
-     * @param data the invalid emotion data string
+     * @param data the invalid emotion scores
      */
-    private void logInvalidEmotionData(String data){
-        super.getLog().warning("Emotion data is expected to be a comma seperated list of 5 floats between 0 and 1." +
-                "Invalid emotion data format: " + data);
+    private void logInvalidEmotionData(float[] data){
+        invalidEmotionSamples.increment();
+        invalidEmotionLog.warning(() -> "Emotion data is expected to be a comma seperated list of 5 floats between 0 and 1." +
+                "Invalid emotion data: " + Arrays.toString(data));
     }
 
 }
\ No newline at end of file
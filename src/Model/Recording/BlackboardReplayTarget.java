@@ -0,0 +1,35 @@
+package Model.Recording;
+
+import Model.Blackboard;
+
+/**
+ * Replays samples straight into a {@link Blackboard}'s queues, in place of the data clients,
+ * with the time each sample is replayed as its arrival time.
+ * <p>
+ * The replayer becomes the single producer of both queues, so no clients may run at the same time.
+ */
+public class BlackboardReplayTarget implements ReplayTarget {
+
+    private final Blackboard blackboard;
+
+    public BlackboardReplayTarget() {
+        this(Blackboard.getInstance());
+    }
+
+    /**
+     * @param blackboard whose queues the samples are added to
+     */
+    public BlackboardReplayTarget(Blackboard blackboard) {
+        this.blackboard = blackboard;
+    }
+
+    @Override
+    public void sendGaze(int xCoord, int yCoord, long sendTime) throws InterruptedException {
+        blackboard.addToEyeTrackingQueue(xCoord, yCoord, sendTime, System.nanoTime());
+    }
+
+    @Override
+    public void sendEmotion(float[] emotionScores, int scoreCount, long sendTime) throws InterruptedException {
+        blackboard.addToEmotionQueue(emotionScores, scoreCount, sendTime, System.nanoTime());
+    }
+}
@@ -0,0 +1,55 @@
+package Model.Recording;
+
+import java.util.Arrays;
+
+/**
+ * Collects latencies in nanoseconds so their percentiles can be reported once a replay is over.
+ * At most {@value #MAX_SAMPLES} are kept, after which further samples are only counted.
+ * Safe to add to from one thread while another reads.
+ */
+class LatencySamples {
+
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long count;
+    private long max;
+
+    synchronized void add(long latency) {
+        count++;
+        max = Math.max(max, latency);
+        if (size == samples.length) {
+            if (size == MAX_SAMPLES) {
+                return;
+            }
+            samples = Arrays.copyOf(samples, Math.min(size * 2, MAX_SAMPLES));
+        }
+        samples[size++] = latency;
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * @param fractions the percentiles wanted, each between 0 and 1
+     * @return the latency at each percentile of the kept samples, or 0s if there are none
+     */
+    synchronized long[] getPercentiles(double... fractions) {
+        long[] percentiles = new long[fractions.length];
+        if (size == 0) {
+            return percentiles;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        for (int i = 0; i < fractions.length; i++) {
+            percentiles[i] = sorted[Math.min((int) (size * fractions[i]), size - 1)];
+        }
+        return percentiles;
+    }
+}
@@ -0,0 +1,39 @@
+package Model.Recording;
+
+/**
+ * The kinds of record in a recorded session. The code is stored in each record, and 0 marks a slot
+ * that was never written.
+ */
+public enum RecordType {
+    GAZE(1),           // a decoded eye-tracking sample as it entered the Blackboard
+    EMOTION(2),        // a decoded emotion sample as it entered the Blackboard
+    PROCESSED(3),      // a processed data object passed to the view logic
+    CIRCLE_ADDED(4),   // a circle added to the display
+    CIRCLE_GROWN(5),   // a circle whose radius changed
+    CIRCLE_REMOVED(6); // a circle evicted from the display
+
+    private static final RecordType[] BY_CODE = new RecordType[values().length + 1];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    RecordType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return the type with the given code, or null for an empty slot or an unknown code
+     */
+    public static RecordType getByCode(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
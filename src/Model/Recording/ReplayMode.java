@@ -0,0 +1,21 @@
+package Model.Recording;
+
+/**
+ * How quickly a {@link SessionReplayer} replays a recorded session.
+ */
+public enum ReplayMode {
+    REAL_TIME,           // keep the recorded gaps between samples
+    SCALED,              // divide the recorded gaps by a speed factor
+    AS_FAST_AS_POSSIBLE; // send every sample as soon as the previous one is sent
+
+    /**
+     * @param speed 1 for real time, 0 for as fast as possible, or how many times faster than recorded
+     * @return the mode for the speed
+     */
+    public static ReplayMode forSpeed(double speed) {
+        if (speed == 0) {
+            return AS_FAST_AS_POSSIBLE;
+        }
+        return speed == 1 ? REAL_TIME : SCALED;
+    }
+}
@@ -0,0 +1,68 @@
+package Model.Recording;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of replaying a session with a {@link SessionReplayer}.
+ * <p>
+ * Lag is how far behind its schedule each sample was sent, which stays near zero unless the target or the
+ * machine cannot keep up with the replay speed. The samples processed and dropped, and the latency from a gaze
+ * sample arriving in the {@link Model.Blackboard} to the circles it changed being published, are only measured
+ * when the replayer observes the pipeline's Blackboard, which it cannot when the pipeline runs in another process.
+ * Throughput should be judged by the samples processed: samples sent as fast as possible may still be dropped.
+ *
+ * @param gazeSamples the eye-tracking samples sent
+ * @param emotionSamples the emotion samples sent
+ * @param pipelineObserved whether the processed and dropped samples and the latency were measured
+ * @param processedSamples the processed data objects handed to the view logic during the replay
+ * @param droppedSamples the samples the pipeline's queues dropped during the replay
+ * @param elapsedNanos the time from the first sample to the last being sent
+ * @param lagMedianNanos the median lag behind schedule
+ * @param lagP99Nanos the 99th percentile lag behind schedule
+ * @param lagMaxNanos the largest lag behind schedule
+ * @param latencyCount how many circle publishes the latency was measured over
+ * @param latencyMedianNanos the median end-to-end latency
+ * @param latencyP99Nanos the 99th percentile end-to-end latency
+ * @param latencyMaxNanos the largest end-to-end latency
+ */
+public record ReplayReport(long gazeSamples, long emotionSamples,
+                           boolean pipelineObserved, long processedSamples, long droppedSamples, long elapsedNanos,
+                           long lagMedianNanos, long lagP99Nanos, long lagMaxNanos,
+                           long latencyCount, long latencyMedianNanos, long latencyP99Nanos, long latencyMaxNanos) {
+
+    /**
+     * @return the samples of both kinds sent per second
+     */
+    public double getSamplesPerSecond() {
+        return elapsedNanos > 0 ? (gazeSamples + emotionSamples) * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * @return the processed data objects handed to the view logic per second, or 0 if the pipeline was not observed
+     */
+    public double getProcessedPerSecond() {
+        return elapsedNanos > 0 ? processedSamples * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        String summary = String.format("Replayed %d gaze and %d emotion samples in %.3f s (%.0f samples/s), "
+                        + "lag p50 %.3f ms p99 %.3f ms max %.3f ms",
+                gazeSamples, emotionSamples, elapsedNanos / 1e9, getSamplesPerSecond(),
+                toMillis(lagMedianNanos), toMillis(lagP99Nanos), toMillis(lagMaxNanos));
+        if (!pipelineObserved) {
+            return summary + ", pipeline not observed, so processed and dropped samples and latency are unavailable";
+        }
+        summary += String.format(", %d processed (%.0f/s), %d dropped",
+                processedSamples, getProcessedPerSecond(), droppedSamples);
+        if (latencyCount == 0) {
+            return summary + ", no end-to-end latency measured";
+        }
+        return summary + String.format(", end-to-end latency over %d publishes p50 %.3f ms p99 %.3f ms max %.3f ms",
+                latencyCount, toMillis(latencyMedianNanos), toMillis(latencyP99Nanos), toMillis(latencyMaxNanos));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,40 @@
+package Model.Recording;
+
+import java.io.IOException;
+
+/**
+ * Where a {@link SessionReplayer} sends the samples it reads from a session.
+ * The replayer calls a target from its own thread only.
+ */
+public interface ReplayTarget {
+
+    /**
+     * Sends one eye-tracking sample.
+     *
+     * @param xCoord the x-coordinate of the gaze point
+     * @param yCoord the y-coordinate of the gaze point
+     * @param sendTime the send time in epoch milliseconds
+     */
+    void sendGaze(int xCoord, int yCoord, long sendTime) throws IOException, InterruptedException;
+
+    /**
+     * Sends one emotion sample.
+     *
+     * @param emotionScores the emotion scores
+     * @param scoreCount the number of scores at the start of {@code emotionScores}
+     * @param sendTime the send time in epoch milliseconds
+     */
+    void sendEmotion(float[] emotionScores, int scoreCount, long sendTime) throws IOException, InterruptedException;
+
+    /**
+     * Pushes out anything buffered. Called whenever the replayer is about to wait for the next sample, and at the end.
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Releases the target once the replay is over.
+     */
+    default void close() throws IOException {
+    }
+}
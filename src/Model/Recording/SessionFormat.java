@@ -0,0 +1,89 @@
+package Model.Recording;
+
+/**
+ * The layout of a recorded session. A session is a directory of segment files, each holding a fixed number of
+ * fixed-size records after a header. Records are numbered by a sequence across the whole session, so the segment
+ * and offset of any record follow from its sequence number.
+ * <p>
+ * The header of each segment is laid out as follows (little endian):
+ * <pre>
+ *   0  int   magic
+ *   4  int   format version
+ *   8  int   record size
+ *  12  int   segment number
+ *  16  long  sequence number of the first record
+ *  24  int   capacity in records
+ *  28  int   index interval in records
+ *  32  long  wall clock time the segment was created, in epoch milliseconds
+ *  40  long  {@link System#nanoTime()} when the segment was created
+ *  48  long  number of records written, or -1 if the segment was not closed
+ *  64  long[] index: the timestamp of every index interval'th record
+ * </pre>
+ * Each record is laid out as follows:
+ * <pre>
+ *   0  long  timestamp when the record was written, as given by {@link System#nanoTime()}
+ *   8  int   {@link RecordType} code, written last so a slot that is not 0 is complete
+ *  12  int   x-coordinate
+ *  16  int   y-coordinate
+ *  20  int   radius
+ *  24  byte  Emotion ordinal
+ *  25  byte  GazeEventType ordinal
+ *  26  byte  number of emotion scores
+ *  28  float[5] emotion scores
+ *  48  long  send time in epoch milliseconds
+ *  56  long  circle id, fixation duration in milliseconds, or arrival time of a gaze or emotion sample
+ * </pre>
+ * Records are indexed by their timestamp, which is read when the record is written so it rises with the sequence.
+ * A sample's arrival time comes from before it was queued and is kept apart, as samples from different
+ * sources are not written in the order they arrived. Version 1 wrote the arrival time as the timestamp.
+ */
+public final class SessionFormat {
+
+    public static final int MAGIC = 0x45485331; // "EHS1"
+    public static final int VERSION = 2;
+    public static final String SEGMENT_PREFIX = "segment-";
+    public static final String SEGMENT_SUFFIX = ".ehrec";
+
+    public static final int HEADER_SIZE = 4096;
+    public static final int RECORD_SIZE = 64;
+    public static final int INDEX_INTERVAL = 1024;
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 18; // 16 MB of records
+    public static final int MAX_SEGMENT_CAPACITY = (HEADER_SIZE - 64) / Long.BYTES * INDEX_INTERVAL;
+    public static final long NOT_CLOSED = -1;
+
+    // header offsets
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 8;
+    static final int SEGMENT_NUMBER_OFFSET = 12;
+    static final int FIRST_SEQUENCE_OFFSET = 16;
+    static final int CAPACITY_OFFSET = 24;
+    static final int INDEX_INTERVAL_OFFSET = 28;
+    static final int CREATED_WALL_TIME_OFFSET = 32;
+    static final int CREATED_NANO_TIME_OFFSET = 40;
+    static final int RECORD_COUNT_OFFSET = 48;
+    static final int INDEX_OFFSET = 64;
+
+    // record offsets
+    static final int TIMESTAMP = 0;
+    static final int TYPE = 8;
+    static final int X_COORD = 12;
+    static final int Y_COORD = 16;
+    static final int RADIUS = 20;
+    static final int EMOTION = 24;
+    static final int EVENT_TYPE = 25;
+    static final int SCORE_COUNT = 26;
+    static final int SCORES = 28;
+    static final int SEND_TIME = 48;
+    static final int ID = 56;
+    static final int ARRIVAL_TIME = 56;
+
+    public static final int MAX_SCORES = 5;
+
+    private SessionFormat() {
+    }
+
+    public static String segmentFileName(int segmentNumber) {
+        return String.format("%s%05d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX);
+    }
+}
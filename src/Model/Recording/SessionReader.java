@@ -0,0 +1,242 @@
+package Model.Recording;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static Model.Recording.SessionFormat.*;
+
+/**
+ * The {@code SessionReader} class reads a session written by a {@link SessionRecorder}, record by record in
+ * sequence order. Each segment is mapped read-only, and records are copied into a reusable {@link SessionRecord}.
+ * <p>
+ * {@link #seek(long)} finds a point in time without reading the records before it: the segment is chosen by the
+ * first timestamp in each header's index, and the position within it by a binary search of the index, leaving
+ * at most one index interval of records to skip. A segment that was not closed, for example because the
+ * application stopped abruptly, is read up to its last written record, and slots that were never written are skipped.
+ */
+public class SessionReader implements AutoCloseable {
+
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private int segmentIndex;
+    private int slot;
+    private final SessionRecord scratch = new SessionRecord();
+
+    /**
+     * Opens every segment of a recorded session.
+     *
+     * @param directory the session directory
+     * @throws IOException if a segment cannot be read or is not a session segment
+     */
+    public SessionReader(Path directory) throws IOException {
+        this.directory = directory;
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No session segments in " + directory);
+        }
+        for (Path file : files) {
+            segments.add(new Segment(file));
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of records written in the session, counting any unwritten slots in segments
+     *         that were not closed
+     */
+    public long getRecordCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.recordCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return the wall clock time the session started, in epoch milliseconds
+     */
+    public long getStartWallTime() {
+        return segments.get(0).createdWallTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} of the recording process when the session started
+     */
+    public long getStartNanoTime() {
+        return segments.get(0).createdNanoTime;
+    }
+
+    /**
+     * Copies the next record into the target.
+     *
+     * @param target the record to copy into
+     * @return true if a record was copied, false at the end of the session
+     */
+    public boolean next(SessionRecord target) {
+        while (segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            while (slot < segment.recordCount) {
+                if (segment.read(slot++, target)) {
+                    return true;
+                }
+            }
+            segmentIndex++;
+            slot = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the first record at or after the given time, so it is the next one read.
+     *
+     * @param timestamp the time to find, in the recording process's {@link System#nanoTime()}
+     */
+    public void seek(long timestamp) {
+        segmentIndex = 0;
+        for (int i = segments.size() - 1; i > 0; i--) {
+            Segment segment = segments.get(i);
+            if (segment.indexEntries > 0 && segment.index[0] <= timestamp) {
+                segmentIndex = i;
+                break;
+            }
+        }
+        slot = segments.get(segmentIndex).indexedSlotBefore(timestamp);
+        // skip the records before the time, stopping on the first one at or after it
+        while (segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            while (slot < segment.recordCount) {
+                if (segment.read(slot, scratch) && scratch.timestamp >= timestamp) {
+                    return;
+                }
+                slot++;
+            }
+            segmentIndex++;
+            slot = 0;
+        }
+    }
+
+    /**
+     * Moves back to the first record of the session.
+     */
+    public void rewind() {
+        segmentIndex = 0;
+        slot = 0;
+    }
+
+    @Override
+    public void close() {
+        segments.clear(); // the mappings are released when they are collected
+    }
+
+    /**
+     * One mapped segment file and its header.
+     */
+    private static class Segment {
+        private final MappedByteBuffer buffer;
+        private final int version;
+        private final long firstSequence;
+        private final int recordCount;
+        private final long createdWallTime;
+        private final long createdNanoTime;
+        private final long[] index;
+        private final int indexEntries;
+
+        Segment(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException(file + " is not a session segment");
+            }
+            version = buffer.getInt(VERSION_OFFSET);
+            if (version < 1 || version > VERSION || buffer.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+                throw new IOException(file + " was recorded in an unsupported format");
+            }
+            firstSequence = buffer.getLong(FIRST_SEQUENCE_OFFSET);
+            int capacity = Math.min(buffer.getInt(CAPACITY_OFFSET), (buffer.limit() - HEADER_SIZE) / RECORD_SIZE);
+            createdWallTime = buffer.getLong(CREATED_WALL_TIME_OFFSET);
+            createdNanoTime = buffer.getLong(CREATED_NANO_TIME_OFFSET);
+            long closedCount = buffer.getLong(RECORD_COUNT_OFFSET);
+            recordCount = closedCount == NOT_CLOSED ? lastWrittenSlot(capacity) + 1 : (int) Math.min(closedCount, capacity);
+            indexEntries = (recordCount + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            index = new long[indexEntries];
+            for (int i = 0; i < indexEntries; i++) {
+                index[i] = buffer.getLong(INDEX_OFFSET + i * Long.BYTES);
+            }
+        }
+
+        private int lastWrittenSlot(int capacity) {
+            for (int slot = capacity - 1; slot >= 0; slot--) {
+                if (buffer.getInt(HEADER_SIZE + slot * RECORD_SIZE + TYPE) != 0) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return the slot of the last index entry at or before the time, or 0 if there is none
+         */
+        int indexedSlotBefore(long timestamp) {
+            int low = 0;
+            int high = indexEntries - 1;
+            int found = 0;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (index[middle] <= timestamp) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found * INDEX_INTERVAL;
+        }
+
+        /**
+         * @return true if the slot held a record, which was copied into the target
+         */
+        boolean read(int slot, SessionRecord target) {
+            int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            RecordType type = RecordType.getByCode(buffer.getInt(offset + TYPE));
+            if (type == null) {
+                return false;
+            }
+            target.sequence = firstSequence + slot;
+            target.type = type;
+            target.timestamp = buffer.getLong(offset + TIMESTAMP);
+            target.xCoord = buffer.getInt(offset + X_COORD);
+            target.yCoord = buffer.getInt(offset + Y_COORD);
+            target.radius = buffer.getInt(offset + RADIUS);
+            target.emotion = buffer.get(offset + EMOTION);
+            target.eventType = buffer.get(offset + EVENT_TYPE);
+            target.scoreCount = Math.min(buffer.get(offset + SCORE_COUNT), MAX_SCORES);
+            for (int i = 0; i < target.scoreCount; i++) {
+                target.scores[i] = buffer.getFloat(offset + SCORES + i * Float.BYTES);
+            }
+            target.sendTime = buffer.getLong(offset + SEND_TIME);
+            target.id = buffer.getLong(offset + ID);
+            boolean sample = type == RecordType.GAZE || type == RecordType.EMOTION;
+            target.arrivalTime = sample && version > 1 ? buffer.getLong(offset + ARRIVAL_TIME) : target.timestamp;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package Model.Recording;
+
+import Data.Emotion;
+import Data.GazeEventType;
+
+/**
+ * The {@code SessionRecord} class is a reusable slot that a {@link SessionReader} copies each record into,
+ * so a session can be read without allocating per record. Which fields are meaningful depends on the
+ * {@link RecordType}, as described in {@link SessionFormat}.
+ */
+public class SessionRecord {
+
+    private static final Emotion[] EMOTIONS = Emotion.values();
+    private static final GazeEventType[] EVENT_TYPES = GazeEventType.values();
+
+    long sequence;
+    RecordType type;
+    long timestamp;
+    int xCoord;
+    int yCoord;
+    int radius;
+    int emotion;
+    int eventType;
+    int scoreCount;
+    final float[] scores = new float[SessionFormat.MAX_SCORES];
+    long sendTime;
+    long id;
+    long arrivalTime;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public RecordType getType() {
+        return type;
+    }
+
+    /**
+     * @return when the record was written, as given by {@link System#nanoTime()} in the recording process
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return when a gaze or emotion sample arrived, as given by {@link System#nanoTime()} in the recording process,
+     *         or the {@link #getTimestamp() timestamp} of any other record
+     */
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public int getXCoord() {
+        return xCoord;
+    }
+
+    public int getYCoord() {
+        return yCoord;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public Emotion getEmotion() {
+        return EMOTIONS[emotion];
+    }
+
+    public GazeEventType getEventType() {
+        return EVENT_TYPES[eventType];
+    }
+
+    public int getScoreCount() {
+        return scoreCount;
+    }
+
+    /**
+     * @return the emotion scores, of which the first {@link #getScoreCount()} are valid. The array is reused.
+     */
+    public float[] getScores() {
+        return scores;
+    }
+
+    public long getSendTime() {
+        return sendTime;
+    }
+
+    public long getCircleId() {
+        return id;
+    }
+
+    public long getDurationInMs() {
+        return id;
+    }
+}
@@ -0,0 +1,324 @@
+package Model.Recording;
+
+import Data.Emotion;
+import Data.ProcessedDataObject;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static Model.Recording.SessionFormat.*;
+
+/**
+ * The {@code SessionRecorder} class appends everything that flows through the {@link Model.Blackboard} to a
+ * session directory as fixed-size records in memory-mapped segment files, see {@link SessionFormat}.
+ * <p>
+ * Any number of threads can record at once. A record is written by claiming the next sequence number with one
+ * atomic increment and putting its fields straight into the mapping, so recording takes no lock and no
+ * system call. Only the thread whose record does not fit in the current segment takes a lock, to swap in the next
+ * one. Segment files are created and mapped one ahead, and finished ones written to disk, on a background thread,
+ * so no recording thread waits for the file system. If a segment cannot be created, recording stops and the records that follow are counted as dropped,
+ * so a full disk never disturbs the pipeline.
+ * <p>
+ * Records are numbered in the order they were claimed, which is their order in time
+ * up to the moment between reading the clock and claiming the number.
+ */
+public class SessionRecorder implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(SessionRecorder.class.getName());
+    private static final DateTimeFormatter DIRECTORY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final LongAdder droppedRecords = new LongAdder();
+    private final ExecutorService fileWork = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SessionRecorderFiles");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile SessionSegment current;
+    private volatile SessionSegment previous; // for records claimed just before the current segment was mapped
+    private volatile boolean failed;
+    private volatile boolean closed;
+    private Future<SessionSegment> nextSegment; // mapped ahead, guarded by this
+
+    /**
+     * Creates a new session directory with the current time in its name under the given directory.
+     *
+     * @param parentDirectory where to create the session directory
+     * @return a recorder writing to the new directory
+     * @throws IOException if the directory or its first segment cannot be created
+     */
+    public static SessionRecorder createSession(Path parentDirectory) throws IOException {
+        Path directory = parentDirectory.resolve("session-" + LocalDateTime.now().format(DIRECTORY_FORMAT));
+        for (int attempt = 1; Files.exists(directory); attempt++) {
+            directory = parentDirectory.resolve("session-" + LocalDateTime.now().format(DIRECTORY_FORMAT) + "-" + attempt);
+        }
+        return new SessionRecorder(directory, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * @param directory the session directory, created if it does not exist
+     * @param segmentCapacity the number of records in each segment
+     * @throws IOException if the directory or its first segment cannot be created
+     */
+    public SessionRecorder(Path directory, int segmentCapacity) throws IOException {
+        if (segmentCapacity < 1 || segmentCapacity > MAX_SEGMENT_CAPACITY) {
+            throw new IllegalArgumentException("Segment capacity must be between 1 and " + MAX_SEGMENT_CAPACITY);
+        }
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        Files.createDirectories(directory);
+        current = SessionSegment.create(directory, 0, 0, segmentCapacity);
+        prepareNext(current);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getRecordCount() {
+        return nextSequence.get();
+    }
+
+    /**
+     * @return the number of records that could not be written, because recording failed or was closed
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.sum();
+    }
+
+    /**
+     * Records a decoded eye-tracking sample.
+     *
+     * @param arrivalTime the arrival time in nanoseconds, as given by {@link System#nanoTime()}
+     */
+    public void recordGaze(int xCoord, int yCoord, long sendTime, long arrivalTime) {
+        long timestamp = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        SessionSegment segment = segmentFor(sequence);
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer buffer = segment.getBuffer();
+        int offset = segment.offsetOf(sequence);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        buffer.putInt(offset + X_COORD, xCoord);
+        buffer.putInt(offset + Y_COORD, yCoord);
+        buffer.putLong(offset + SEND_TIME, sendTime);
+        buffer.putLong(offset + ARRIVAL_TIME, arrivalTime);
+        complete(segment, sequence, offset, RecordType.GAZE, timestamp);
+    }
+
+    /**
+     * Records a decoded emotion sample.
+     *
+     * @param arrivalTime the arrival time in nanoseconds, as given by {@link System#nanoTime()}
+     */
+    public void recordEmotion(float[] emotionScores, int scoreCount, long sendTime, long arrivalTime) {
+        long timestamp = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        SessionSegment segment = segmentFor(sequence);
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer buffer = segment.getBuffer();
+        int offset = segment.offsetOf(sequence);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        putScores(buffer, offset, emotionScores, scoreCount);
+        buffer.putLong(offset + SEND_TIME, sendTime);
+        buffer.putLong(offset + ARRIVAL_TIME, arrivalTime);
+        complete(segment, sequence, offset, RecordType.EMOTION, timestamp);
+    }
+
+    /**
+     * Records a processed data object as it is passed to the view logic.
+     */
+    public void recordProcessed(ProcessedDataObject data) {
+        long timestamp = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        SessionSegment segment = segmentFor(sequence);
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer buffer = segment.getBuffer();
+        int offset = segment.offsetOf(sequence);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        buffer.putInt(offset + X_COORD, data.xCoord());
+        buffer.putInt(offset + Y_COORD, data.yCoord());
+        buffer.put(offset + EMOTION, (byte) data.prominentEmotion().ordinal());
+        buffer.put(offset + EVENT_TYPE, (byte) data.eventType().ordinal());
+        float[] scores = data.emotionScores();
+        putScores(buffer, offset, scores, scores != null ? scores.length : 0);
+        buffer.putLong(offset + ID, data.durationInMs());
+        complete(segment, sequence, offset, RecordType.PROCESSED, timestamp);
+    }
+
+    public void recordCircleAdded(long id, int xCoord, int yCoord, int radius, Emotion emotion) {
+        long timestamp = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        SessionSegment segment = segmentFor(sequence);
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer buffer = segment.getBuffer();
+        int offset = segment.offsetOf(sequence);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        buffer.putInt(offset + X_COORD, xCoord);
+        buffer.putInt(offset + Y_COORD, yCoord);
+        buffer.putInt(offset + RADIUS, radius);
+        buffer.put(offset + EMOTION, (byte) emotion.ordinal());
+        buffer.putLong(offset + ID, id);
+        complete(segment, sequence, offset, RecordType.CIRCLE_ADDED, timestamp);
+    }
+
+    public void recordCircleGrown(long id, int radius) {
+        long timestamp = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        SessionSegment segment = segmentFor(sequence);
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer buffer = segment.getBuffer();
+        int offset = segment.offsetOf(sequence);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        buffer.putInt(offset + RADIUS, radius);
+        buffer.putLong(offset + ID, id);
+        complete(segment, sequence, offset, RecordType.CIRCLE_GROWN, timestamp);
+    }
+
+    public void recordCircleRemoved(long id) {
+        long timestamp = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        SessionSegment segment = segmentFor(sequence);
+        if (segment == null) {
+            return;
+        }
+        MappedByteBuffer buffer = segment.getBuffer();
+        int offset = segment.offsetOf(sequence);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        buffer.putLong(offset + ID, id);
+        complete(segment, sequence, offset, RecordType.CIRCLE_REMOVED, timestamp);
+    }
+
+    /**
+     * Stops recording, writes the record count of the last segment and waits for every segment to be written to
+     * disk. The segment mapped ahead is deleted. Records claimed afterwards are dropped.
+     * Callers should stop the threads that record first, so no record is cut short.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        SessionSegment segment = current;
+        long claimed = nextSequence.get();
+        if (!failed) {
+            segment.finish(claimed - segment.getFirstSequence());
+        }
+        fileWork.shutdown();
+        try {
+            if (!fileWork.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warning("Segments of " + directory + " are still being written to disk");
+            }
+            SessionSegment unused = nextSegment.get();
+            Files.deleteIfExists(directory.resolve(segmentFileName(unused.getSegmentNumber())));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | IOException ex) {
+            // the segment mapped ahead was never created, or is left behind empty
+        }
+        log.info("Recorded " + claimed + " records to " + directory + ", dropped " + droppedRecords.sum());
+    }
+
+    private static void putScores(MappedByteBuffer buffer, int offset, float[] scores, int scoreCount) {
+        int count = Math.min(scoreCount, MAX_SCORES);
+        buffer.put(offset + SCORE_COUNT, (byte) count);
+        for (int i = 0; i < count; i++) {
+            buffer.putFloat(offset + SCORES + i * Float.BYTES, scores[i]);
+        }
+    }
+
+    /**
+     * Marks the record complete by writing its type, and indexes it.
+     */
+    private static void complete(SessionSegment segment, long sequence, int offset, RecordType type, long timestamp) {
+        segment.getBuffer().putInt(offset + TYPE, type.getCode());
+        segment.index(sequence, timestamp);
+    }
+
+    /**
+     * @return the segment the record with the given sequence number goes in, or null if it cannot be written
+     */
+    private SessionSegment segmentFor(long sequence) {
+        SessionSegment segment = current;
+        if (segment.contains(sequence) && !closed) {
+            return segment;
+        }
+        segment = previous;
+        if (segment != null && segment.contains(sequence) && !closed) {
+            return segment;
+        }
+        return roll(sequence);
+    }
+
+    /**
+     * Starts creating and mapping the segment after the given one on the background thread.
+     */
+    private void prepareNext(SessionSegment segment) {
+        int segmentNumber = segment.getSegmentNumber() + 1;
+        long firstSequence = segment.getFirstSequence() + segmentCapacity;
+        nextSegment = fileWork.submit(() ->
+                SessionSegment.create(directory, segmentNumber, firstSequence, segmentCapacity));
+    }
+
+    /**
+     * Swaps in segments until one holds the given sequence number. Only one thread swaps at a time,
+     * and threads whose record is in an already mapped segment never wait for it.
+     */
+    private synchronized SessionSegment roll(long sequence) {
+        while (!failed && !closed) {
+            SessionSegment segment = current;
+            if (segment.contains(sequence)) {
+                return segment;
+            }
+            if (previous != null && previous.contains(sequence)) {
+                return previous;
+            }
+            if (sequence < segment.getFirstSequence()) {
+                break; // claimed before the previous segment, by a thread that stalled for a whole segment
+            }
+            try {
+                // mapped long before the current segment fills, unless the disk is much slower than the pipeline
+                SessionSegment next = nextSegment.get();
+                previous = segment;
+                current = next;
+                fileWork.execute(() -> segment.finish(segmentCapacity));
+                prepareNext(next);
+            } catch (ExecutionException ex) {
+                failed = true;
+                log.warning("Session recording stopped, unable to create a segment in " + directory
+                        + ": " + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        droppedRecords.increment();
+        return null;
+    }
+}
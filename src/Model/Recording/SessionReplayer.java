@@ -0,0 +1,230 @@
+package Model.Recording;
+
+import Data.CircleSnapshot;
+import Model.Blackboard;
+import Model.CustomThread;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * The {@code SessionReplayer} class sends the eye-tracking and emotion samples of a recorded session to a
+ * {@link ReplayTarget}, in place of live hardware, so the same input can be run through the pipeline again
+ * for load tests, regression checks and benchmarks. The other records of the session are skipped, since the
+ * pipeline produces them again.
+ * <p>
+ * Samples are paced by the gaps between their recorded arrival times, as set by the {@link ReplayMode}.
+ * The replayer parks until shortly before each sample is due and spins for the rest, so pacing stays accurate
+ * at eye-tracker rates. Samples are stamped with the time they are replayed, as a live source would.
+ * <p>
+ * Given the {@link Blackboard} of the pipeline it feeds, the replayer listens for circles being published to it
+ * and measures the time from the newest gaze sample arriving to its circles being published, and counts the
+ * samples the pipeline processed and dropped during the replay. Once the session ends it waits briefly for the
+ * pipeline to catch up, logs a {@link ReplayReport} and stops. A pipeline in another process, fed through
+ * sockets, cannot be observed, and the report says so.
+ */
+public class SessionReplayer extends CustomThread implements PropertyChangeListener {
+
+    public static final String THREAD_NAME = "SessionReplayer";
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100); // how soon a stop is noticed
+    private static final long DRAIN_TIMEOUT_IN_MS = 1000;
+    private static final long DRAIN_POLL_IN_MS = 10;
+
+    private final SessionReader reader;
+    private final ReplayTarget target;
+    private final ReplayMode mode;
+    private final double speed;
+    private final Blackboard pipeline; // null when the pipeline runs elsewhere
+    private final SessionRecord record = new SessionRecord();
+    private final LatencySamples lags = new LatencySamples();
+    private final LatencySamples latencies = new LatencySamples();
+
+    private boolean started;
+    private long startTime; // when the first sample was sent
+    private long firstTimestamp; // the recorded time of the first sample
+    private long endTime;
+    private long gazeSamples;
+    private long emotionSamples;
+    private long processedBefore; // the pipeline's counts when the replay started
+    private long droppedBefore;
+    private volatile long lastGazeTime; // when the newest gaze sample was sent
+    private volatile long lastSourceTimestamp; // the newest sample arrival reflected in published circles
+    private volatile ReplayReport report;
+
+    /**
+     * @param reader the session to replay, which is closed when the replay ends
+     * @param target where to send the samples, which is closed when the replay ends
+     * @param mode how quickly to replay
+     * @param speed how many times faster than recorded to replay, only used by {@link ReplayMode#SCALED}
+     * @param pipeline the Blackboard of the pipeline the target feeds, or null if it runs in another process
+     * @throws IllegalArgumentException if the mode is {@link ReplayMode#SCALED} and the speed is not positive
+     */
+    public SessionReplayer(SessionReader reader, ReplayTarget target, ReplayMode mode, double speed,
+                           Blackboard pipeline) {
+        super();
+        if (mode == ReplayMode.SCALED && !(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive: " + speed);
+        }
+        super.setLog(Logger.getLogger(SessionReplayer.class.getName()));
+        super.setName(THREAD_NAME);
+        super.setThreadName(THREAD_NAME);
+        this.reader = reader;
+        this.target = target;
+        this.mode = mode;
+        this.speed = mode == ReplayMode.SCALED ? speed : 1;
+        this.pipeline = pipeline;
+        if (pipeline != null) {
+            pipeline.addDataListener(Blackboard.PROPERTY_NAME_VIEW_DATA, this, Runnable::run, 0);
+        }
+    }
+
+    /**
+     * Sends the next sample of the session once it is due, or finishes the replay at the end of the session.
+     */
+    @Override
+    public void doYourWork() throws InterruptedException, IOException {
+        if (!reader.next(record)) {
+            finish();
+            return;
+        }
+        RecordType type = record.getType();
+        if (type != RecordType.GAZE && type != RecordType.EMOTION) {
+            return;
+        }
+        if (!awaitRecord(record.getArrivalTime())) {
+            return;
+        }
+        long sendTime = System.currentTimeMillis();
+        if (type == RecordType.GAZE) {
+            lastGazeTime = System.nanoTime();
+            target.sendGaze(record.getXCoord(), record.getYCoord(), sendTime);
+            gazeSamples++;
+        } else {
+            target.sendEmotion(record.getScores(), record.getScoreCount(), sendTime);
+            emotionSamples++;
+        }
+    }
+
+    /**
+     * Waits until the sample recorded at the given time is due, flushing the target first if there is time to wait.
+     *
+     * @return false if the replayer was stopped while waiting, in which case the sample is not sent
+     */
+    private boolean awaitRecord(long timestamp) throws InterruptedException, IOException {
+        if (!started) {
+            if (pipeline != null) {
+                processedBefore = pipeline.getProcessedSampleCount();
+                droppedBefore = droppedCount();
+            }
+            started = true;
+            startTime = System.nanoTime();
+            firstTimestamp = timestamp;
+            return true;
+        }
+        if (mode == ReplayMode.AS_FAST_AS_POSSIBLE) {
+            return true;
+        }
+        long due = startTime + (long) ((timestamp - firstTimestamp) / speed);
+        long remaining = due - System.nanoTime();
+        if (remaining > 0) {
+            target.flush();
+        }
+        while ((remaining = due - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(Math.min(remaining - SPIN_THRESHOLD_NANOS, MAX_PARK_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!isRunning()) {
+                return false;
+            }
+        }
+        while (System.nanoTime() - due < 0) {
+            Thread.onSpinWait();
+        }
+        lags.add(System.nanoTime() - due);
+        return true;
+    }
+
+    /**
+     * Flushes the target, waits up to {@value #DRAIN_TIMEOUT_IN_MS} ms for circles reflecting the last gaze sample
+     * to be published, then logs the report and stops the thread.
+     */
+    private void finish() throws InterruptedException, IOException {
+        target.flush();
+        endTime = System.nanoTime();
+        long deadline = endTime + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_IN_MS);
+        while (pipeline != null && gazeSamples > 0 && lastSourceTimestamp - lastGazeTime < 0
+                && System.nanoTime() - deadline < 0) {
+            Thread.sleep(DRAIN_POLL_IN_MS);
+        }
+        stopThread();
+    }
+
+    /**
+     * Measures the latency of each newly published set of circles. Runs on the thread that published them.
+     *
+     * @param evt A PropertyChangeEvent object describing the event source
+     *          and the property that has changed.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        long now = System.nanoTime();
+        CircleSnapshot snapshot = pipeline.getCircleSnapshot();
+        long sourceTimestamp = snapshot.getSourceTimestamp();
+        // skip circles that reflect nothing new, or only data from before the replay
+        if (!started || sourceTimestamp - lastSourceTimestamp <= 0 || sourceTimestamp - startTime < 0) {
+            return;
+        }
+        lastSourceTimestamp = sourceTimestamp;
+        latencies.add(now - sourceTimestamp);
+    }
+
+    /**
+     * Stops listening, closes the session and target, and logs the report if one was not made yet.
+     */
+    @Override
+    public void cleanUpThread() {
+        if (pipeline != null) {
+            pipeline.removeDataListener(Blackboard.PROPERTY_NAME_VIEW_DATA, this);
+        }
+        try {
+            target.close();
+        } catch (IOException e) {
+            super.getLog().warning(THREAD_NAME + ": Unable to close the replay target: " + e.getMessage());
+        }
+        reader.close();
+        if (endTime == 0) {
+            endTime = System.nanoTime();
+        }
+        long[] lag = lags.getPercentiles(0.5, 0.99);
+        long[] latency = latencies.getPercentiles(0.5, 0.99);
+        boolean observed = pipeline != null;
+        report = new ReplayReport(gazeSamples, emotionSamples, observed,
+                observed && started ? pipeline.getProcessedSampleCount() - processedBefore : 0,
+                observed && started ? droppedCount() - droppedBefore : 0,
+                started ? endTime - startTime : 0,
+                lag[0], lag[1], lags.getMax(),
+                latencies.getCount(), latency[0], latency[1], latencies.getMax());
+        super.getLog().info(THREAD_NAME + ": " + report);
+    }
+
+    /**
+     * @return the samples dropped by any of the pipeline's queues
+     */
+    private long droppedCount() {
+        return pipeline.getEyeTrackingDropCount() + pipeline.getEmotionDropCount()
+                + pipeline.getProcessedDataDropCount();
+    }
+
+    /**
+     * @return the report of the replay, or null until it has ended
+     */
+    public ReplayReport getReport() {
+        return report;
+    }
+}
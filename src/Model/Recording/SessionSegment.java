@@ -0,0 +1,97 @@
+package Model.Recording;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static Model.Recording.SessionFormat.*;
+
+/**
+ * One segment file of a session being recorded, mapped into memory whole when it is created.
+ * Records are written with absolute puts into the mapping, so many threads can write different
+ * records at once and no write needs a system call.
+ */
+class SessionSegment {
+
+    private final int segmentNumber;
+    private final long firstSequence;
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+
+    private SessionSegment(int segmentNumber, long firstSequence, int capacity, MappedByteBuffer buffer) {
+        this.segmentNumber = segmentNumber;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates and maps a new segment file and writes its header.
+     */
+    static SessionSegment create(Path directory, int segmentNumber, long firstSequence, int capacity)
+            throws IOException {
+        Path file = directory.resolve(segmentFileName(segmentNumber));
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+            buffer.putInt(SEGMENT_NUMBER_OFFSET, segmentNumber);
+            buffer.putLong(FIRST_SEQUENCE_OFFSET, firstSequence);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(INDEX_INTERVAL_OFFSET, INDEX_INTERVAL);
+            buffer.putLong(CREATED_WALL_TIME_OFFSET, System.currentTimeMillis());
+            buffer.putLong(CREATED_NANO_TIME_OFFSET, System.nanoTime());
+            buffer.putLong(RECORD_COUNT_OFFSET, NOT_CLOSED);
+            return new SessionSegment(segmentNumber, firstSequence, capacity, buffer);
+        }
+    }
+
+    int getSegmentNumber() {
+        return segmentNumber;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    boolean contains(long sequence) {
+        return sequence >= firstSequence && sequence - firstSequence < capacity;
+    }
+
+    MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the offset in the file of the record with the given sequence number, which must be in this segment
+     */
+    int offsetOf(long sequence) {
+        return HEADER_SIZE + (int) (sequence - firstSequence) * RECORD_SIZE;
+    }
+
+    /**
+     * Adds the record's timestamp to the index if the record starts an index interval.
+     */
+    void index(long sequence, long timestamp) {
+        int slot = (int) (sequence - firstSequence);
+        if (slot % INDEX_INTERVAL == 0) {
+            buffer.putLong(INDEX_OFFSET + slot / INDEX_INTERVAL * Long.BYTES, timestamp);
+        }
+    }
+
+    /**
+     * Records how many records the segment holds and asks for the mapping to be written to disk.
+     */
+    void finish(long recordCount) {
+        buffer.putLong(RECORD_COUNT_OFFSET, Math.min(recordCount, capacity));
+        buffer.force();
+    }
+}
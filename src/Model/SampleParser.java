@@ -0,0 +1,182 @@
+package Model;
+
+/**
+ * The {@code SampleParser} class reads comma-separated numbers straight from the character data
+ * of a sample into primitive arrays supplied by the caller.
+ * <p>
+ * Unlike {@link String#split(String)} followed by {@link Integer#parseInt(String)} or
+ * {@link Float#parseFloat(String)}, no intermediate strings, boxed numbers or lists are created,
+ * so parsing a sample does not allocate. Whitespace around each value is ignored, as with {@link String#trim()}.
+ */
+public final class SampleParser {
+
+    /** Returned when the data is not a comma separated list of numbers that fits the output array. */
+    public static final int INVALID_FORMAT = -1;
+
+    private static final int MAX_MANTISSA_DIGITS = 18; // digits that always fit in a long
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private SampleParser() {
+    }
+
+    /**
+     * Parses a comma-separated list of integers, such as {@code "120, 450"}.
+     *
+     * @param data the characters to parse
+     * @param out the array the values are written to
+     * @return the number of values parsed, or {@link #INVALID_FORMAT} if the data is malformed,
+     *         a value overflows an int, or there are more values than {@code out} can hold
+     */
+    public static int parseInts(CharSequence data, int[] out) {
+        int length = data.length();
+        int pos = 0;
+        int count = 0;
+        while (true) {
+            pos = skipWhitespace(data, pos, length);
+            boolean negative = false;
+            if (pos < length && (data.charAt(pos) == '-' || data.charAt(pos) == '+')) {
+                negative = data.charAt(pos) == '-';
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < length && isDigit(data.charAt(pos))) {
+                value = value * 10 + (data.charAt(pos) - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    return INVALID_FORMAT;
+                }
+                pos++;
+            }
+            if (pos == start || count == out.length) {
+                return INVALID_FORMAT;
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                return INVALID_FORMAT;
+            }
+            out[count++] = (int) value;
+
+            pos = skipWhitespace(data, pos, length);
+            if (pos == length) {
+                return count;
+            }
+            if (data.charAt(pos++) != ',') {
+                return INVALID_FORMAT;
+            }
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of decimal floats, such as {@code "0.25, 1.0, 3.5E-4"}.
+     * Plain and exponent notation are accepted, as printed by {@link Float#toString(float)}.
+     *
+     * @param data the characters to parse
+     * @param out the array the values are written to
+     * @return the number of values parsed, or {@link #INVALID_FORMAT} if the data is malformed
+     *         or there are more values than {@code out} can hold
+     */
+    public static int parseFloats(CharSequence data, float[] out) {
+        int length = data.length();
+        int pos = 0;
+        int count = 0;
+        while (true) {
+            pos = skipWhitespace(data, pos, length);
+            boolean negative = false;
+            if (pos < length && (data.charAt(pos) == '-' || data.charAt(pos) == '+')) {
+                negative = data.charAt(pos) == '-';
+                pos++;
+            }
+
+            long mantissa = 0;
+            int mantissaDigits = 0;
+            int exponent = 0;
+            boolean anyDigits = false;
+            while (pos < length && isDigit(data.charAt(pos))) {
+                if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (data.charAt(pos) - '0');
+                    if (mantissa != 0) mantissaDigits++;
+                } else {
+                    exponent++; // digits beyond long precision only scale the value
+                }
+                anyDigits = true;
+                pos++;
+            }
+            if (pos < length && data.charAt(pos) == '.') {
+                pos++;
+                while (pos < length && isDigit(data.charAt(pos))) {
+                    if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                        mantissa = mantissa * 10 + (data.charAt(pos) - '0');
+                        if (mantissa != 0) mantissaDigits++;
+                        exponent--;
+                    }
+                    anyDigits = true;
+                    pos++;
+                }
+            }
+            if (!anyDigits || count == out.length) {
+                return INVALID_FORMAT;
+            }
+            if (pos < length && (data.charAt(pos) == 'e' || data.charAt(pos) == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if (pos < length && (data.charAt(pos) == '-' || data.charAt(pos) == '+')) {
+                    negativeExponent = data.charAt(pos) == '-';
+                    pos++;
+                }
+                int start = pos;
+                int exponentValue = 0;
+                while (pos < length && isDigit(data.charAt(pos))) {
+                    exponentValue = Math.min(exponentValue * 10 + (data.charAt(pos) - '0'), 1000);
+                    pos++;
+                }
+                if (pos == start) {
+                    return INVALID_FORMAT;
+                }
+                exponent += negativeExponent ? -exponentValue : exponentValue;
+            }
+            // optional type suffix, as accepted by Float.parseFloat
+            if (pos < length && "fFdD".indexOf(data.charAt(pos)) >= 0) {
+                pos++;
+            }
+
+            float value = (float) scale(mantissa, exponent);
+            out[count++] = negative ? -value : value;
+
+            pos = skipWhitespace(data, pos, length);
+            if (pos == length) {
+                return count;
+            }
+            if (data.charAt(pos++) != ',') {
+                return INVALID_FORMAT;
+            }
+        }
+    }
+
+    private static double scale(long mantissa, int exponent) {
+        if (mantissa == 0 || exponent == 0) {
+            return mantissa;
+        }
+        if (exponent > 0) {
+            return exponent < POWERS_OF_TEN.length
+                    ? mantissa * POWERS_OF_TEN[exponent]
+                    : mantissa * Math.pow(10, exponent);
+        }
+        return -exponent < POWERS_OF_TEN.length
+                ? mantissa / POWERS_OF_TEN[-exponent]
+                : mantissa / Math.pow(10, -exponent);
+    }
+
+    private static int skipWhitespace(CharSequence data, int pos, int length) {
+        while (pos < length && data.charAt(pos) <= ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,135 @@
+package Model;
+
+import Model.DataClients.EmotionDataClient;
+import Model.DataClients.EyeTrackingClient;
+import Model.DataClients.SelectorClientEngine;
+import Model.Recording.SessionRecorder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The {@code Session} class runs the pipeline of one participant: the clients reading their eye tracker and
+ * emotion servers, the {@link RawDataProcessor} and the {@link ViewDataProcessor}, all working on the session's
+ * own {@link Blackboard}.
+ * <p>
+ * The servers, the wire format, the ingestion and every processing setting are read from the Blackboard
+ * when the session starts. Read buffers come from a {@link ByteBufferPool} that can be shared by many sessions,
+ * and the workers run as set by a {@link WorkerExecution}, so sessions can share a pool of threads.
+ * Given a {@link ShardedProcessingEngine}, the session's raw data is processed by the engine's shared workers
+ * instead of a {@link RawDataProcessor} thread of its own.
+ * A session can be started again after it is stopped.
+ */
+public class Session {
+
+    private static final Logger log = Logger.getLogger(Session.class.getName());
+
+    private final Blackboard blackboard;
+    private final ByteBufferPool bufferPool;
+    private final ShardedProcessingEngine processingEngine; // null to process on a thread of the session's own
+    private final List<CustomThread> workers = new ArrayList<>();
+
+    /**
+     * @param blackboard the Blackboard the session reads its settings from and works on
+     * @param bufferPool where the session's read buffers are borrowed from
+     */
+    public Session(Blackboard blackboard, ByteBufferPool bufferPool) {
+        this(blackboard, bufferPool, null);
+    }
+
+    /**
+     * @param blackboard the Blackboard the session reads its settings from and works on
+     * @param bufferPool where the session's read buffers are borrowed from
+     * @param processingEngine processes the session's raw data, or null to use a thread of the session's own
+     */
+    public Session(Blackboard blackboard, ByteBufferPool bufferPool, ShardedProcessingEngine processingEngine) {
+        this.blackboard = blackboard;
+        this.bufferPool = bufferPool;
+        this.processingEngine = processingEngine;
+    }
+
+    /**
+     * Starts recording everything that flows through the session's Blackboard into a new session directory.
+     *
+     * @throws IOException if the recording cannot be created
+     */
+    public void startRecording() throws IOException {
+        blackboard.setSessionRecorder(SessionRecorder.createSession(blackboard.getRecordingDirectory()));
+    }
+
+    /**
+     * Connects to the servers in the Blackboard and starts processing, stopping the session first if it is running.
+     * The previous workers are waited for, since the Blackboard's queues take a single producer and consumer each.
+     * By default both servers are read by a single {@link SelectorClientEngine}; otherwise each server gets its
+     * own client thread.
+     *
+     * @param execution how to run the workers
+     * @throws IOException if the connection selector cannot be opened, in which case nothing is started
+     * @throws InterruptedException if interrupted while waiting for the previous workers, in which case nothing is started
+     */
+    public synchronized void start(WorkerExecution execution) throws IOException, InterruptedException {
+        stopWorkersAndWait();
+        if (blackboard.isSelectorIngestion()) {
+            SelectorClientEngine engine = new SelectorClientEngine(bufferPool, blackboard);
+            engine.addChannel(blackboard.getEyeTrackingSocket_Host(), blackboard.getEyeTrackingSocket_Port(),
+                    SelectorClientEngine.Feed.EYE_TRACKING, blackboard.getRequestedWireFormat());
+            engine.addChannel(blackboard.getEmotionSocket_Host(), blackboard.getEmotionSocket_Port(),
+                    SelectorClientEngine.Feed.EMOTION, blackboard.getRequestedWireFormat());
+            workers.add(engine);
+        } else {
+            workers.add(new EyeTrackingClient(blackboard.getEyeTrackingSocket_Host(),
+                    blackboard.getEyeTrackingSocket_Port(), blackboard));
+            workers.add(new EmotionDataClient(blackboard.getEmotionSocket_Host(),
+                    blackboard.getEmotionSocket_Port(), blackboard));
+        }
+        if (processingEngine == null) {
+            workers.add(new RawDataProcessor(blackboard));
+        }
+        workers.add(new ViewDataProcessor(blackboard));
+        for (CustomThread worker : workers) {
+            worker.start(execution);
+        }
+        if (processingEngine != null) {
+            processingEngine.addSession(blackboard);
+        }
+        log.info("Session " + getId() + " started on " + execution);
+    }
+
+    /**
+     * Stops the session, waits for its workers, and any batch of the processing engine, to finish,
+     * and closes any recording.
+     */
+    public synchronized void stopAndWait() throws InterruptedException {
+        stopWorkersAndWait();
+        blackboard.setSessionRecorder(null);
+    }
+
+    private void stopWorkersAndWait() throws InterruptedException {
+        List<CustomThread> stopping = new ArrayList<>(workers);
+        workers.clear();
+        if (processingEngine != null && !stopping.isEmpty()) {
+            // while the view logic still runs, so a batch waiting for room in its queue can finish
+            processingEngine.removeSession(blackboard);
+        }
+        for (CustomThread worker : stopping) {
+            worker.stopThread();
+        }
+        for (CustomThread worker : stopping) {
+            worker.awaitStop();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return !workers.isEmpty();
+    }
+
+    public String getId() {
+        return blackboard.getSessionId();
+    }
+
+    public Blackboard getBlackboard() {
+        return blackboard;
+    }
+}
@@ -0,0 +1,158 @@
+package Model;
+
+import Model.DataClients.SelectorClientEngine;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code SessionManager} class creates and tears down {@link Session}s at run time, one per participant,
+ * so one hub can serve many eye tracker and emotion server pairs at once.
+ * <p>
+ * Every session has its own {@link Blackboard}, so their queues, processing, view state and events never
+ * contend. What the sessions share is what costs to duplicate: the read buffers, the worker threads when
+ * {@link WorkerExecution#SHARED_POOL} or {@link WorkerExecution#VIRTUAL_THREAD} is used, the scheduler
+ * of delayed notifications and, if one is given, a {@link ShardedProcessingEngine} processing every session's
+ * raw data on one worker per core. New sessions take their settings from a template Blackboard, usually the default
+ * one, and record, when recording is enabled, into a directory named after the session. Each session's metrics
+ * are registered with JMX under {@value #METRICS_OBJECT_NAME}{@code ,session=<id>}.
+ */
+public class SessionManager {
+
+    public static final String METRICS_OBJECT_NAME = "EyeTrackingHub:type=Metrics";
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ByteBufferPool bufferPool;
+    private final Blackboard template;
+    private final ShardedProcessingEngine processingEngine; // null when each session processes on its own thread
+
+    /**
+     * @param template where new sessions take their settings from
+     */
+    public SessionManager(Blackboard template) {
+        this(template, new ByteBufferPool(SelectorClientEngine.BUFFER_SIZE));
+    }
+
+    /**
+     * @param template where new sessions take their settings from
+     * @param bufferPool where every session borrows its read buffers
+     */
+    public SessionManager(Blackboard template, ByteBufferPool bufferPool) {
+        this(template, bufferPool, null);
+    }
+
+    /**
+     * @param template where new sessions take their settings from
+     * @param bufferPool where every session borrows its read buffers
+     * @param processingEngine processes the raw data of every session, or null for a processor thread per session
+     */
+    public SessionManager(Blackboard template, ByteBufferPool bufferPool, ShardedProcessingEngine processingEngine) {
+        this.template = template;
+        this.bufferPool = bufferPool;
+        this.processingEngine = processingEngine;
+    }
+
+    /**
+     * Creates a session reading the given servers and starts it, with the template's worker execution.
+     *
+     * @param id names the session, unique among the running sessions
+     * @param eyeTrackingHost the eye tracker's server
+     * @param eyeTrackingPort the eye tracker's port
+     * @param emotionHost the emotion server
+     * @param emotionPort the emotion server's port
+     * @return the started session
+     * @throws IllegalArgumentException if a session with the id is already running
+     * @throws IOException if the session cannot start, in which case it is not kept
+     * @throws InterruptedException if interrupted while starting, in which case the session is not kept
+     */
+    public Session createSession(String id, String eyeTrackingHost, int eyeTrackingPort,
+                                 String emotionHost, int emotionPort) throws IOException, InterruptedException {
+        Blackboard blackboard = new Blackboard(id, template.getQueueCapacity());
+        copySettings(blackboard);
+        blackboard.setEyeTrackingSocket_Host(eyeTrackingHost);
+        blackboard.setEyeTrackingSocket_Port(eyeTrackingPort);
+        blackboard.setEmotionSocket_Host(emotionHost);
+        blackboard.setEmotionSocket_Port(emotionPort);
+        Session session = new Session(blackboard, bufferPool, processingEngine);
+        if (sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Session " + id + " is already running");
+        }
+        try {
+            if (blackboard.isRecordingEnabled()) {
+                session.startRecording();
+            }
+            session.start(blackboard.getWorkerExecution());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            sessions.remove(id);
+            session.stopAndWait();
+            throw e;
+        }
+        blackboard.getMetricsRegistry().registerMBean(getMetricsObjectName(id));
+        return session;
+    }
+
+    private void copySettings(Blackboard blackboard) {
+        blackboard.setRequestedWireFormat(template.getRequestedWireFormat());
+        blackboard.setSelectorIngestion(template.isSelectorIngestion());
+        blackboard.setOverflowPolicy(template.getOverflowPolicy());
+        blackboard.setWaitStrategy(template.getWaitStrategy());
+        blackboard.setWorkerExecution(template.getWorkerExecution());
+        blackboard.setFusionWindowInMs(template.getFusionWindowInMs());
+        blackboard.setFixationAlgorithm(template.getFixationAlgorithm());
+        blackboard.setEmotionAggregation(template.getEmotionAggregation());
+        blackboard.setEmotionWindowInMs(template.getEmotionWindowInMs());
+        blackboard.setEmotionWindowSamples(template.getEmotionWindowSamples());
+        blackboard.setMaxCircles(template.getMaxCircles());
+        blackboard.setThresholdRadius(template.getThresholdRadius());
+        blackboard.setCircleRadius(template.getCircleRadius());
+        blackboard.setRadiusIncrement(template.getRadiusIncrement());
+        blackboard.setRecordingEnabled(template.isRecordingEnabled());
+        blackboard.setRecordingDirectory(template.getRecordingDirectory().resolve(blackboard.getSessionId()));
+    }
+
+    /**
+     * Stops the session, waits for its workers to finish and forgets it.
+     *
+     * @param id the session
+     * @return whether there was such a session
+     */
+    public boolean removeSession(String id) throws InterruptedException {
+        Session session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        session.stopAndWait();
+        session.getBlackboard().getMetricsRegistry().unregisterMBean(getMetricsObjectName(id));
+        return true;
+    }
+
+    /**
+     * Stops and removes every session.
+     */
+    public void removeAllSessions() throws InterruptedException {
+        for (String id : sessions.keySet()) {
+            removeSession(id);
+        }
+    }
+
+    /**
+     * @return the running session with the id, or null if there is none
+     */
+    public Session getSession(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * @return the running sessions, in no particular order
+     */
+    public Collection<Session> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    private static String getMetricsObjectName(String id) {
+        return METRICS_OBJECT_NAME + ",session=" + id;
+    }
+}
@@ -0,0 +1,209 @@
+package Model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code ShardedProcessingEngine} class runs the {@link RawDataProcessor} of many sessions on a
+ * work-stealing {@link ForkJoinPool} with one worker per core, instead of a thread per session.
+ * <p>
+ * Each session is a shard. When a gaze sample is queued on the session's {@link Blackboard}, the shard is
+ * scheduled on the pool, unless it already is, and processes up to {@value #DEFAULT_BATCH_SIZE} samples before
+ * handing the worker back, so a busy session cannot starve the others. A shard is never run by two workers at
+ * once, so the samples of each session are processed in the order they arrived, and its processed data goes to
+ * the session's own queue and view stage as before. A worker waiting for room in a full processed data queue
+ * is a {@link ForkJoinPool.ManagedBlocker managed blocker}, so the pool can run other shards meanwhile. Idle workers steal scheduled shards from busy ones, so the
+ * load spreads over the cores whatever the mix of sessions.
+ * <p>
+ * A session with no gaze sample for {@value #IDLE_TIMEOUT_IN_MS} ms is treated as the processor treats a timeout,
+ * ending any fixation in progress. Shards scheduled and steals are counted in the given {@link MetricsRegistry}.
+ */
+public class ShardedProcessingEngine {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long IDLE_TIMEOUT_IN_MS = 500;
+    private static final Logger log = Logger.getLogger(ShardedProcessingEngine.class.getName());
+
+    private final ForkJoinPool pool;
+    private final ScheduledExecutorService idleTimer;
+    private final Map<Blackboard, Shard> shards = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final LongAdder scheduledShards;
+
+    /**
+     * Creates an engine with a worker for each available core, counting into the default Blackboard's metrics.
+     */
+    public ShardedProcessingEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE,
+                Blackboard.getInstance().getMetricsRegistry());
+    }
+
+    /**
+     * @param parallelism the number of workers
+     * @param batchSize the most samples a shard processes before handing its worker back
+     * @param metrics where the engine is counted
+     */
+    public ShardedProcessingEngine(int parallelism, int batchSize, MetricsRegistry metrics) {
+        if (parallelism < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Parallelism and batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        AtomicInteger workerCount = new AtomicInteger();
+        // async mode takes scheduled shards first in, first out, as suits tasks that are never joined
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("ProcessingShard-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+        this.idleTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ProcessingShardTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idleTimer.scheduleWithFixedDelay(this::checkIdleShards,
+                IDLE_TIMEOUT_IN_MS, IDLE_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+        this.scheduledShards = metrics.counter("processing.shards.scheduled");
+        metrics.gauge("processing.shards", shards::size);
+        metrics.gauge("processing.steals", pool::getStealCount);
+        metrics.gauge("processing.parallelism", pool::getParallelism);
+    }
+
+    /**
+     * Starts processing the queues of a session's Blackboard. The session must not also run a
+     * {@link RawDataProcessor} of its own.
+     *
+     * @param blackboard the session's Blackboard
+     */
+    public void addSession(Blackboard blackboard) {
+        Shard shard = new Shard(new RawDataProcessor(blackboard));
+        if (shards.putIfAbsent(blackboard, shard) != null) {
+            throw new IllegalArgumentException("Session " + blackboard.getSessionId() + " is already processed");
+        }
+        blackboard.addDataListener(Blackboard.PROPERTY_NAME_EYE_TRACKING_DATA, shard, Runnable::run, 0);
+        shard.schedule(); // pick up anything queued before the listener was added
+    }
+
+    /**
+     * Stops processing a session's queues, waiting for a batch already running or scheduled to finish,
+     * so the session can be added again or given a {@link RawDataProcessor} of its own straight after.
+     *
+     * @param blackboard the session's Blackboard
+     * @throws InterruptedException if interrupted while waiting for the batch
+     */
+    public void removeSession(Blackboard blackboard) throws InterruptedException {
+        Shard shard = shards.remove(blackboard);
+        if (shard != null) {
+            blackboard.removeDataListener(Blackboard.PROPERTY_NAME_EYE_TRACKING_DATA, shard);
+            shard.closed = true;
+            if (shard.requests.getAndIncrement() == 0) {
+                shard.drained.countDown(); // not on the pool, and nothing can schedule it any more
+            }
+            shard.drained.await();
+        }
+    }
+
+    /**
+     * Stops every worker, waiting for batches already running to finish.
+     */
+    public void shutdown() throws InterruptedException {
+        for (Blackboard blackboard : shards.keySet()) {
+            removeSession(blackboard);
+        }
+        idleTimer.shutdownNow();
+        pool.shutdown();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    private void checkIdleShards() {
+        long now = System.nanoTime();
+        for (Shard shard : shards.values()) {
+            if (now - shard.lastActivity >= TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_IN_MS)) {
+                shard.idle = true;
+                shard.lastActivity = now;
+                shard.schedule();
+            }
+        }
+    }
+
+    /**
+     * The processing of one session, scheduled on the pool whenever it has work and run by one worker at a time.
+     */
+    private class Shard implements Runnable, PropertyChangeListener {
+        private final RawDataProcessor processor;
+        // the times the shard was asked to run since it last caught up; it is on the pool while this is not 0
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile boolean idle; // set by the timer, the processor should act as if it timed out
+        private volatile boolean closed;
+        private final CountDownLatch drained = new CountDownLatch(1); // counted down once closed and off the pool
+        private volatile long lastActivity = System.nanoTime();
+
+        private Shard(RawDataProcessor processor) {
+            this.processor = processor;
+        }
+
+        /**
+         * Called on the client thread for every gaze sample queued.
+         */
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            schedule();
+        }
+
+        private void schedule() {
+            if (requests.getAndIncrement() == 0) {
+                scheduledShards.increment();
+                pool.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int seen = requests.get();
+            try {
+                if (closed) {
+                    drained.countDown();
+                    return; // leave requests above 0, so the shard is never scheduled again
+                }
+                if (idle) {
+                    idle = false;
+                    processor.processIdle();
+                }
+                int processed = processor.processAvailable(batchSize);
+                if (processed > 0) {
+                    lastActivity = System.nanoTime();
+                }
+                if (processed == batchSize) {
+                    pool.execute(this); // more may be waiting, but let the other shards have a turn first
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Processing failed for session " + processor.getBlackboard().getSessionId(), e);
+            }
+            if (!requests.compareAndSet(seen, 0)) {
+                pool.execute(this); // asked again while running, so there may be new samples
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package Model;
+
+import Data.CircleSnapshot;
+
+import java.beans.PropertyChangeListener;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * The {@code SnapshotSink} streams the circles published by the view logic of any number of sessions to
+ * every client connected to its port, so a hub without a display can still be watched.
+ * <p>
+ * Each time a session publishes, at most once every given interval, a line {@code session <id> epoch <n>}
+ * is sent followed by the circles as written by {@link CircleSnapshot#writeCsv(Appendable)} and an empty line.
+ * Snapshots are written on a thread of the sink's own, so a slow client never holds up the pipeline; a client
+ * that cannot be written to is dropped. The snapshots sent and the clients connected are counted in the given
+ * {@link MetricsRegistry} as {@code sink.snapshots} and {@code sink.clients}.
+ */
+public class SnapshotSink extends CustomThread {
+
+    public static final String THREAD_NAME = "SnapshotSink";
+    private static final int ACCEPT_TIMEOUT_IN_MS = 500;
+
+    private final int port;
+    private final long minIntervalInMs;
+    private final List<Writer> clients = new CopyOnWriteArrayList<>();
+    private final Map<Blackboard, PropertyChangeListener> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SnapshotSinkWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder snapshotsSent;
+    private ServerSocket serverSocket;
+
+    /**
+     * @param port where clients connect, 0 for any free port
+     * @param minIntervalInMs the shortest time between two snapshots of a session
+     * @param metrics where the sink is counted
+     */
+    public SnapshotSink(int port, long minIntervalInMs, MetricsRegistry metrics) {
+        super.setLog(Logger.getLogger(SnapshotSink.class.getName()));
+        super.setName(THREAD_NAME);
+        super.setThreadName(THREAD_NAME);
+        setDaemon(true);
+        this.port = port;
+        this.minIntervalInMs = minIntervalInMs;
+        this.snapshotsSent = metrics.counter("sink.snapshots");
+        metrics.gauge("sink.clients", clients::size);
+    }
+
+    /**
+     * Opens the port, so clients can connect as soon as this returns.
+     *
+     * @return the port clients connect to
+     * @throws IOException if the port cannot be opened
+     */
+    public synchronized int open() throws IOException {
+        if (serverSocket == null) {
+            serverSocket = new ServerSocket(port);
+            serverSocket.setSoTimeout(ACCEPT_TIMEOUT_IN_MS);
+            getLog().info("Snapshot sink listening on port " + serverSocket.getLocalPort());
+        }
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts sending the circles published on a session's Blackboard.
+     *
+     * @param blackboard the session's Blackboard
+     */
+    public void addSession(Blackboard blackboard) {
+        PropertyChangeListener listener = evt -> send(blackboard);
+        if (listeners.putIfAbsent(blackboard, listener) == null) {
+            blackboard.addDataListener(Blackboard.PROPERTY_NAME_VIEW_DATA, listener, writer, minIntervalInMs);
+        }
+    }
+
+    /**
+     * Stops sending a session's circles.
+     *
+     * @param blackboard the session's Blackboard
+     */
+    public void removeSession(Blackboard blackboard) {
+        PropertyChangeListener listener = listeners.remove(blackboard);
+        if (listener != null) {
+            blackboard.removeDataListener(Blackboard.PROPERTY_NAME_VIEW_DATA, listener);
+        }
+    }
+
+    /**
+     * Accepts the next client.
+     */
+    @Override
+    public void doYourWork() throws IOException {
+        open();
+        Socket client;
+        try {
+            client = serverSocket.accept();
+        } catch (SocketTimeoutException e) {
+            return; // check whether the sink was stopped
+        }
+        clients.add(new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII)));
+        getLog().info("Snapshot sink client connected from " + client.getRemoteSocketAddress());
+    }
+
+    /**
+     * Runs on the writer thread only.
+     */
+    private void send(Blackboard blackboard) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        CircleSnapshot snapshot = blackboard.getCircleSnapshot();
+        for (Writer client : clients) {
+            try {
+                client.write("session " + blackboard.getSessionId() + " epoch " + snapshot.getEpoch() + "\n");
+                snapshot.writeCsv(client);
+                client.write('\n');
+                client.flush();
+            } catch (IOException e) {
+                getLog().info("Snapshot sink client dropped: " + e.getMessage());
+                clients.remove(client);
+                close(client);
+            }
+        }
+        snapshotsSent.increment();
+    }
+
+    /**
+     * Stops sending, disconnects every client and closes the port.
+     */
+    @Override
+    public void cleanUpThread() {
+        for (Blackboard blackboard : listeners.keySet()) {
+            removeSession(blackboard);
+        }
+        writer.shutdown();
+        for (Writer client : clients) {
+            close(client);
+        }
+        clients.clear();
+        synchronized (this) {
+            if (serverSocket != null) {
+                try {
+                    serverSocket.close();
+                } catch (IOException e) {
+                    getLog().warning(e.toString());
+                }
+                serverSocket = null;
+            }
+        }
+    }
+
+    private void close(Writer client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+}
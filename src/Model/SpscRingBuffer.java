@@ -0,0 +1,265 @@
+package Model;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * The {@code SpscRingBuffer} class hands samples from exactly one producer thread to exactly one consumer
+ * thread without locks and without allocating.
+ * <p>
+ * Every slot is created up front and reused: the producer {@link #claim()}s the next free slot, writes
+ * the sample into it and {@link #publish()}es it; the consumer {@link #peek(long, TimeUnit)}s the oldest
+ * slot, copies what it needs and {@link #release()}s it. The producer and consumer positions are kept in
+ * {@link PaddedSequence}s so the two threads do not contend on a cache line.
+ * <p>
+ * When the buffer is full the {@link OverflowPolicy} applies. Under {@link OverflowPolicy#DROP_OLDEST} and
+ * {@link OverflowPolicy#LATEST_ONLY} the producer takes the oldest slot away from the consumer, so
+ * {@link #release()} reports whether the slot was still owned by the consumer while it was being read.
+ * Waiting is done with the configured {@link WaitStrategy}. A thread that blocks under {@link WaitStrategy#PARK}
+ * records itself as waiting, and the other side unparks it after its next {@link #publish()} or {@link #release()}.
+ *
+ * @param <T> the type of the mutable slots
+ */
+public class SpscRingBuffer<T> {
+
+    private final Object[] slots;
+    private final int mask;
+
+    private final PaddedSequence head = new PaddedSequence(0); // next slot to read, advanced by the consumer
+    private final PaddedSequence tail = new PaddedSequence(0); // next slot to write, advanced by the producer
+    private long claimed = -1; // producer only: the sequence of the slot being written
+    private long peeked = -1;  // consumer only: the sequence of the slot being read
+    private volatile Thread waitingConsumer; // blocked until a slot is published, or null
+    private volatile Thread waitingProducer; // blocked until a slot is released, or null
+
+    private volatile OverflowPolicy overflowPolicy;
+    private volatile WaitStrategy waitStrategy;
+    private final AtomicLong dropCount = new AtomicLong();
+
+    /**
+     * @param capacity the number of slots, which must be a power of two
+     * @param slotFactory creates each slot once, up front
+     * @param overflowPolicy what to do when the producer finds the buffer full
+     * @param waitStrategy how to wait for space or data
+     */
+    public SpscRingBuffer(int capacity, Supplier<T> slotFactory,
+                          OverflowPolicy overflowPolicy, WaitStrategy waitStrategy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.slots = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = slotFactory.get();
+        }
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Producer side. Returns the next free slot for writing, applying the overflow policy if the buffer is full.
+     * Every slot returned must be followed by {@link #publish()}.
+     *
+     * @return the slot to write the sample into, or null if the sample should be dropped
+     * @throws InterruptedException if interrupted while waiting for space under {@link OverflowPolicy#BLOCK}
+     */
+    public T claim() throws InterruptedException {
+        return claim(true);
+    }
+
+    /**
+     * Producer side. Like {@link #claim()}, but never waits: under {@link OverflowPolicy#BLOCK} a full buffer
+     * returns null straight away, and the sample is not counted as dropped, so it can be offered again later.
+     *
+     * @return the slot to write the sample into, or null if the buffer is full or the sample should be dropped
+     */
+    public T tryClaim() {
+        try {
+            return claim(false);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e); // only thrown while waiting
+        }
+    }
+
+    private T claim(boolean wait) throws InterruptedException {
+        long sequence = tail.get();
+        int attempt = 0;
+        while (true) {
+            long oldest = head.get();
+            if (sequence - oldest < slots.length) {
+                break;
+            }
+            switch (overflowPolicy) {
+                case BLOCK -> {
+                    if (!wait) {
+                        return null;
+                    }
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    if (!waitStrategy.idle(attempt++)) {
+                        waitingProducer = Thread.currentThread();
+                        if (sequence - head.get() >= slots.length) {
+                            LockSupport.park(this);
+                        }
+                        waitingProducer = null;
+                    }
+                }
+                case DROP_NEWEST -> {
+                    dropCount.incrementAndGet();
+                    return null;
+                }
+                case DROP_OLDEST, LATEST_ONLY -> {
+                    if (head.compareAndSet(oldest, oldest + 1)) {
+                        dropCount.incrementAndGet();
+                    }
+                }
+            }
+        }
+        claimed = sequence;
+        return slotAt(sequence);
+    }
+
+    /**
+     * Producer side. Makes the slot returned by the last {@link #claim()} visible to the consumer.
+     */
+    public void publish() {
+        tail.setRelease(claimed + 1);
+        VarHandle.fullFence(); // the new tail must be visible before a waiting consumer is looked for
+        wake(waitingConsumer);
+    }
+
+    /**
+     * Consumer side. Returns the oldest published slot without removing it, waiting up to the given time.
+     * Under {@link OverflowPolicy#LATEST_ONLY} every older slot is skipped and counted as dropped.
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the oldest slot, or null if the timeout is reached
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T peek(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempt = 0;
+        while (true) {
+            T slot = peek();
+            if (slot != null) {
+                return slot;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (!waitStrategy.idle(attempt++)) {
+                waitingConsumer = Thread.currentThread();
+                if (size() == 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                waitingConsumer = null;
+            }
+        }
+    }
+
+    /**
+     * Consumer side. Returns the oldest published slot without removing it or waiting.
+     *
+     * @return the oldest slot, or null if the buffer is empty
+     */
+    public T peek() {
+        while (true) {
+            long oldest = head.get();
+            long newest = tail.get();
+            if (oldest == newest) {
+                return null;
+            }
+            if (overflowPolicy == OverflowPolicy.LATEST_ONLY && newest - oldest > 1) {
+                if (head.compareAndSet(oldest, newest - 1)) {
+                    dropCount.addAndGet(newest - 1 - oldest);
+                }
+                continue;
+            }
+            peeked = oldest;
+            return slotAt(oldest);
+        }
+    }
+
+    /**
+     * Consumer side. Frees the slot returned by the last peek.
+     *
+     * @return true if the slot was still owned by the consumer, false if the producer took it
+     *         under a dropping policy while it was being read, in which case what was read must be discarded
+     */
+    public boolean release() {
+        if (head.compareAndSet(peeked, peeked + 1)) {
+            wake(waitingProducer);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumer side. Discards every published slot. Discarded slots are not counted as drops.
+     */
+    public void clear() {
+        long oldest;
+        do {
+            oldest = head.get();
+        } while (!head.compareAndSet(oldest, Math.max(oldest, tail.get())));
+        wake(waitingProducer);
+    }
+
+    public int size() {
+        long newest = tail.get();
+        return (int) Math.max(0, newest - head.get());
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Changes the overflow policy, waking a producer blocked on a full buffer so it applies the new one.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        wake(waitingProducer);
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        wake(waitingProducer);
+        wake(waitingConsumer);
+    }
+
+    /**
+     * @return the number of samples dropped by the overflow policy since the buffer was created
+     */
+    public long getDropCount() {
+        return dropCount.get();
+    }
+
+    private static void wake(Thread waiting) {
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slotAt(long sequence) {
+        return (T) slots[(int) sequence & mask];
+    }
+}
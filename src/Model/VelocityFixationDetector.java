@@ -0,0 +1,73 @@
+package Model;
+
+/**
+ * The {@code VelocityFixationDetector} class finds fixations with the velocity-threshold algorithm (I-VT):
+ * a sample that moved from the previous one slower than the threshold continues the current group,
+ * and a faster one, part of a saccade, starts a new group. Only the running sums of the current group
+ * are kept, so each sample takes constant time.
+ */
+public class VelocityFixationDetector extends FixationDetector {
+
+    public static final double DEFAULT_VELOCITY_THRESHOLD = 1000; // pixels per second
+
+    private final double velocityThreshold;
+
+    private boolean hasPrevious;
+    private double previousX;
+    private double previousY;
+    private long previousTime;
+
+    // the current group
+    private double sumX;
+    private double sumY;
+    private int count;
+    private long startTime;
+
+    /**
+     * @param velocityThreshold the fastest movement, in pixels per second, that still counts as fixating
+     */
+    public VelocityFixationDetector(double velocityThreshold) {
+        this.velocityThreshold = velocityThreshold;
+    }
+
+    public VelocityFixationDetector(double velocityThreshold, long minDurationInMs, long updateIntervalInMs,
+                                    long maxGapInMs, GazeSmoother smoother) {
+        super(minDurationInMs, updateIntervalInMs, maxGapInMs, smoother);
+        this.velocityThreshold = velocityThreshold;
+    }
+
+    @Override
+    protected void detect(double xCoord, double yCoord, long timestamp, FixationListener listener)
+            throws InterruptedException {
+        if (hasPrevious && velocity(xCoord, yCoord, timestamp) <= velocityThreshold) {
+            sumX += xCoord;
+            sumY += yCoord;
+            count++;
+        } else {
+            endFixation(listener);
+            sumX = xCoord;
+            sumY = yCoord;
+            count = 1;
+            startTime = timestamp;
+        }
+        hasPrevious = true;
+        previousX = xCoord;
+        previousY = yCoord;
+        previousTime = timestamp;
+        candidate(listener, sumX / count, sumY / count, startTime, timestamp);
+    }
+
+    /**
+     * @return the speed from the previous sample in pixels per second
+     */
+    private double velocity(double xCoord, double yCoord, long timestamp) {
+        double distance = Math.hypot(xCoord - previousX, yCoord - previousY);
+        return distance * 1e9 / Math.max(1, timestamp - previousTime);
+    }
+
+    @Override
+    protected void reset() {
+        hasPrevious = false;
+        count = 0;
+    }
+}
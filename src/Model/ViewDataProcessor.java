@@ -1,51 +1,140 @@
 package Model;
 
-import Data.Circle;
+import Data.CircleStore;
+import Data.GazeEventType;
+import Model.Recording.SessionRecorder;
 import Data.ProcessedDataObject;
+import Data.ViewSettings;
 
-import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 /**
  * The {@code ViewDataProcessor} is alerted of new processed data available in the {@link Blackboard},
- * converts it into the appropriate {@link Circle} data for visualization.
+ * converts it into the appropriate circle data for visualization.
  * <p>
  * This class extends {@link CustomThread} and implements {@link PropertyChangeListener} and is intended to be run as a separate thread.
  * It handles the consolidation of circles based on proximity and dynamically updates the display.
+ * <p>
+ * The class is also the {@link Executor} its notifications are delivered on, so all view logic runs on
+ * its own thread and the data processor never waits for it. Each notification handles every
+ * processed sample waiting in the queue. The circles are published at most once a frame of the Blackboard's
+ * target frame rate, however fast samples arrive, and a change made since the last publish is published when
+ * the frame is due.
+ * <p>
+ * The maximum number of circles, consolidation threshold and circle sizes come from the {@link Blackboard}'s
+ * {@link ViewSettings}, read once per batch, so changes in the preference panel take effect while running.
+ * <p>
+ * The circles are kept in a {@link CircleStore} that belongs to this thread alone. Other threads only see
+ * the immutable {@link Data.CircleSnapshot} published to the {@link Blackboard} after each batch.
+ * <p>
+ * Circles added, consolidated and evicted, and each publish, are counted in the {@link MetricsRegistry}.
  */
-public class ViewDataProcessor extends CustomThread implements PropertyChangeListener {
+public class ViewDataProcessor extends CustomThread implements PropertyChangeListener, Executor {
 
-    private static final int MAX_CIRCLES = 5; // FIFO size limit
-    private static final int THRESHOLD_RADIUS = 50; // Radius threshold for consolidation
-    public static final int CIRCLE_RADIUS = 50;
     private static final String THREAD_NAME = "ViewLogic";
+    private static final int TIMEOUT_IN_MS = 500;
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final CircleStore circles;
+    private final CircleIndex circleIndex;
+    private ViewSettings settings; // the snapshot in use, replaced when the Blackboard's version changes
+    private long fixationCircle = CircleIndex.NONE; // the circle of the fixation in progress
+    private long sourceTimestamp; // arrival time of the newest gaze sample handled
+    private long[] batchProcessedTimes = new long[64]; // when each sample not yet published was processed
+    private int pendingSamples; // the samples handled since the last publish
+    private boolean publishPending; // the circles changed since the last publish
+    private long lastPublishTime = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+    private final LongAdder circlesAdded;
+    private final LongAdder consolidations;
+    private final LongAdder evictions;
+    private final LongAdder publishes;
+
     public ViewDataProcessor(){
-        super();
+        this(Blackboard.getInstance());
+    }
+
+    /**
+     * @param blackboard the Blackboard whose processed data is turned into circles, and where they are published
+     */
+    public ViewDataProcessor(Blackboard blackboard){
+        super(blackboard);
         super.setLog(Logger.getLogger(ViewDataProcessor.class.getName()));
         super.setName(THREAD_NAME);
-        Blackboard.getInstance().addChangeSupportListener(
-                Blackboard.PROPERTY_NAME_PROCESSED_DATA, this);
+        settings = getBlackboard().getViewSettings();
+        circles = new CircleStore(settings.maxCircles());
+        // pick up any circles left on the display by a previous run
+        circles.copyFrom(getBlackboard().getCircleSnapshot());
+        circleIndex = new CircleIndex(circles, settings.thresholdRadius());
+        MetricsRegistry metrics = getBlackboard().getMetricsRegistry();
+        circlesAdded = metrics.counter("view.circles.added");
+        consolidations = metrics.counter("view.circles.consolidated");
+        evictions = metrics.counter("view.circles.evicted");
+        publishes = metrics.counter("view.publishes");
+        LongAdder added = circlesAdded;
+        LongAdder consolidated = consolidations;
+        metrics.gauge("view.consolidationHitPercent", () -> {
+            long hits = consolidated.sum();
+            long total = hits + added.sum();
+            return total > 0 ? hits * 100 / total : 0;
+        });
+        getBlackboard().addDataListener(
+                Blackboard.PROPERTY_NAME_PROCESSED_DATA, this, this, 0);
+        getBlackboard().addDataListener(
+                Blackboard.PROPERTY_NAME_VIEW_SETTINGS, this, this, 0);
     }
 
+    /**
+     * Runs the notifications delivered to this thread, waiting with a timeout so the thread can be stopped,
+     * or only until the next frame when a change is waiting to be published.
+     */
     @Override
     public void doYourWork() throws InterruptedException, IOException {
-        //keep the thread alive and idle while waiting for new data
-        synchronized (this) {
-            wait();
+        long timeout = publishPending
+                ? Math.max(0, lastPublishTime + frameIntervalNanos() - System.nanoTime())
+                : TimeUnit.MILLISECONDS.toNanos(TIMEOUT_IN_MS);
+        Runnable task = tasks.poll(timeout, TimeUnit.NANOSECONDS);
+        if (task != null) {
+            task.run();
+        } else if (publishPending) {
+            publishIfDue();
         }
     }
 
     /**
-     * Remove the class as a Blackboard listener.
+     * Queues a notification to run on the view logic thread.
+     *
+     * @param task the notification to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+    }
+
+    /**
+     * Publish any change still waiting and remove the class as a Blackboard listener.
      */
     @Override
     public void cleanUpThread() {
-        Blackboard.getInstance().removePropertyChangeListener(
+        if (publishPending) {
+            getBlackboard().publishCircles(circles, sourceTimestamp);
+            publishPending = false;
+        }
+        getBlackboard().removeDataListener(
                 Blackboard.PROPERTY_NAME_PROCESSED_DATA, this);
+        getBlackboard().removeDataListener(
+                Blackboard.PROPERTY_NAME_VIEW_SETTINGS, this);
+        tasks.clear();
+        circleIndex.clear();
+        circles.clear();
     }
 
     /**
@@ -54,61 +143,153 @@ public class ViewDataProcessor extends CustomThread implements PropertyChangeLis
      * the existing circle is increased. Otherwise, the new circle is added to the list of circles.
      * <p>
      * If the maximum number of circles is exceeded, the oldest circle is removed.
+     * <p>
+     * Existing circles are looked up through the {@link CircleIndex}, so the cost does not grow with the number of circles.
+     * <p>
+     * A fixation start is placed like a raw gaze point, and each update of the fixation grows the same circle
+     * again, so a circle's size follows how long it was looked at. The end of a fixation changes nothing.
      *
      * @param data the processed data object containing the information for the new circle
+     * @return true if the circles changed
      */
-    private void handleProcessedData(ProcessedDataObject data) {
-        Deque<Circle> circleList = Blackboard.getInstance().getCircleList();
-        Color circleColor = data.prominentEmotion().getColor();
-        Circle newCircle = new Circle(data.xCoord(), data.yCoord(), circleColor, CIRCLE_RADIUS);
-
-        // Check if the new circle is within the threshold of any existing circle
-        boolean consolidated = false;
-        for (Circle circle : circleList) {
-            if (isWithinThreshold(circle, newCircle)) {
-                circle.increaseRadius(50); // Consolidate by increasing the radius
-                consolidated = true;
-                break;
+    private boolean handleProcessedData(ProcessedDataObject data) {
+        switch (data.eventType()) {
+            case FIXATION_END -> {
+                fixationCircle = CircleIndex.NONE;
+                return false;
             }
-        }
-
-        if (!consolidated) {
-            // If the list is full, remove the oldest entry
-            if (circleList.size() == MAX_CIRCLES) {
-                circleList.pollFirst();
+            case FIXATION_UPDATE -> {
+                if (circles.contains(fixationCircle)) {
+                    growCircle(fixationCircle);
+                    return true;
+                }
+            }
+            default -> {
             }
-            circleList.addLast(newCircle); // Add the new circle
         }
-
-        Blackboard.getInstance().setCircleList(circleList);
+        long circle = placeCircle(data);
+        if (data.eventType() != GazeEventType.POINT) {
+            fixationCircle = circle;
+        }
+        return true;
     }
 
     /**
-     * Collision checking
-     *
-     * @param existing circle already displayed
-     * @param newCircle new circle data
-     * @return true if there is a collision
+     * @return the id of the circle the point was consolidated into or added as
      */
-    private boolean isWithinThreshold(Circle existing, Circle newCircle) {
-        int dx = existing.getX() - newCircle.getX();
-        int dy = existing.getY() - newCircle.getY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        return distance <= THRESHOLD_RADIUS;
+    private long placeCircle(ProcessedDataObject data) {
+        // Check if the new circle is within the threshold of any existing circle
+        long existing = circleIndex.findWithinThreshold(data.xCoord(), data.yCoord());
+        if (existing != CircleIndex.NONE) {
+            growCircle(existing); // Consolidate by increasing the radius
+            consolidations.increment();
+            return existing;
+        }
+
+        // If the store is full, remove the oldest entry
+        if (circles.size() >= settings.maxCircles()) {
+            removeOldest();
+        }
+        long id = circles.add(data.xCoord(), data.yCoord(), settings.circleRadius(),
+                data.prominentEmotion()); // Add the new circle
+        circleIndex.add(id);
+        circlesAdded.increment();
+        SessionRecorder recorder = getBlackboard().getSessionRecorder();
+        if (recorder != null) {
+            recorder.recordCircleAdded(id, data.xCoord(), data.yCoord(), settings.circleRadius(), data.prominentEmotion());
+        }
+        return id;
+    }
+
+    private void growCircle(long id) {
+        circles.increaseRadius(id, settings.radiusIncrement());
+        SessionRecorder recorder = getBlackboard().getSessionRecorder();
+        if (recorder != null) {
+            recorder.recordCircleGrown(id, circles.getRadius(id));
+        }
     }
 
     /**
-     * Process the data when available.
+     * Applies any change to the view settings, then processes all the data available and
+     * publishes the circles if a frame is due.
      *
      * @param evt A PropertyChangeEvent object describing the event source
      *          and the property that has changed.
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        ProcessedDataObject data = Blackboard.getInstance().getFromProcessedDataObjectQueue();
-        System.out.println("retrieved processed data: " + data);
-        if (data != null) {
-            handleProcessedData(data);
+        publishPending |= applySettings();
+        ProcessedDataObject data;
+        while ((data = getBlackboard().getFromProcessedDataObjectQueue()) != null) {
+            publishPending |= handleProcessedData(data);
+            sourceTimestamp = Math.max(sourceTimestamp, data.timestamp());
+            if (pendingSamples == batchProcessedTimes.length) {
+                batchProcessedTimes = Arrays.copyOf(batchProcessedTimes, pendingSamples * 2);
+            }
+            batchProcessedTimes[pendingSamples++] = data.processedTime();
+        }
+        publishIfDue();
+    }
+
+    /**
+     * Publishes the circles if they changed and a frame has passed since the last publish, then records the
+     * latency of the view update for every sample handled since, up to the publish. Samples that changed
+     * nothing are recorded straight away.
+     */
+    private void publishIfDue() {
+        long updatedTime = System.nanoTime();
+        if (publishPending) {
+            if (updatedTime - lastPublishTime < frameIntervalNanos()) {
+                return;
+            }
+            updatedTime = getBlackboard().publishCircles(circles, sourceTimestamp).getPublishTime();
+            lastPublishTime = updatedTime;
+            publishPending = false;
+            publishes.increment();
+        }
+        LatencyTracker latencyTracker = getBlackboard().getLatencyTracker();
+        for (int i = 0; i < pendingSamples; i++) {
+            latencyTracker.record(LatencyStage.VIEW_UPDATE, updatedTime - batchProcessedTimes[i]);
+        }
+        pendingSamples = 0;
+    }
+
+    private long frameIntervalNanos() {
+        return TimeUnit.SECONDS.toNanos(1) / Math.max(1, getBlackboard().getTargetFramesPerSecond());
+    }
+
+    /**
+     * Picks up the latest view settings with a single read of the Blackboard's snapshot.
+     * If the version changed, the index is rebuilt for a new threshold and the oldest circles
+     * are removed if there are now more than {@code maxCircles}.
+     *
+     * @return true if the circles changed
+     */
+    private boolean applySettings() {
+        ViewSettings latest = getBlackboard().getViewSettings();
+        if (latest.version() == settings.version()) {
+            return false;
+        }
+        ViewSettings previous = settings;
+        settings = latest;
+        if (latest.thresholdRadius() != previous.thresholdRadius()) {
+            circleIndex.setThreshold(latest.thresholdRadius());
+        }
+        boolean trimmed = false;
+        while (circles.size() > latest.maxCircles()) {
+            removeOldest();
+            trimmed = true;
+        }
+        return trimmed;
+    }
+
+    private void removeOldest() {
+        circleIndex.remove(circles.getFirstId());
+        long id = circles.removeOldest();
+        evictions.increment();
+        SessionRecorder recorder = getBlackboard().getSessionRecorder();
+        if (recorder != null) {
+            recorder.recordCircleRemoved(id);
         }
     }
 }
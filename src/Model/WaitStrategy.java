@@ -0,0 +1,43 @@
+package Model;
+
+/**
+ * Enum representing how a thread waits for an {@link SpscRingBuffer} to become non-empty or non-full.
+ * Strategies trade CPU use for hand-off latency.
+ */
+public enum WaitStrategy {
+    /** Spin on the CPU. Lowest latency, but keeps a core busy while waiting. */
+    BUSY_SPIN,
+    /** Give up the CPU to other runnable threads between checks. */
+    YIELD,
+    /**
+     * Spin for {@value #SPIN_TRIES} checks, yield for {@value #YIELD_TRIES} more, then block until the other
+     * side wakes the thread. Uses no CPU while idle; a wake-up after blocking costs a few microseconds.
+     */
+    PARK;
+
+    public static final int SPIN_TRIES = 100;
+    public static final int YIELD_TRIES = 100;
+
+    /**
+     * Waits once before the caller checks its condition again.
+     *
+     * @param attempt how many times the caller has already waited for the same condition
+     * @return false if the caller should instead block until the other side wakes it
+     */
+    public boolean idle(int attempt) {
+        switch (this) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELD -> Thread.yield();
+            case PARK -> {
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
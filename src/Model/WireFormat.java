@@ -0,0 +1,40 @@
+package Model;
+
+/**
+ * Enum representing the formats a data server can use to send samples to the hub.
+ */
+public enum WireFormat {
+    /**
+     * Each sample is a comma separated string written with {@link java.io.DataOutputStream#writeUTF(String)}.
+     * This is the original format and the fallback when a server does not answer the handshake.
+     */
+    TEXT((byte) 0),
+    /**
+     * Each sample is a fixed-width frame: two int32 coordinates for eye tracking, or five float32 scores
+     * for emotion, followed by the int64 send time in epoch milliseconds.
+     */
+    BINARY((byte) 1);
+
+    private final byte code;
+
+    WireFormat(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * @param code the code sent during the handshake
+     * @return the matching format, or {@link #TEXT} if the code is unknown
+     */
+    public static WireFormat getByCode(byte code) {
+        for (WireFormat format : WireFormat.values()) {
+            if (format.getCode() == code) {
+                return format;
+            }
+        }
+        return TEXT;
+    }
+}
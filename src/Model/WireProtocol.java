@@ -0,0 +1,170 @@
+package Model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * The {@code WireProtocol} class negotiates the {@link WireFormat} of a connection and writes samples in it.
+ * <p>
+ * A client that wants binary frames sends a hello made of {@link #MAGIC} and the code of the requested format.
+ * A server that understands the handshake answers with {@link #MAGIC} and the code of the format it will use.
+ * A client that wants text sends nothing, and a server that receives no hello sends text, so either side
+ * can talk to an older peer that only knows {@link java.io.DataOutputStream#writeUTF(String)} records.
+ * <p>
+ * Binary frames are laid out as follows, all values big-endian:
+ * <ul>
+ *     <li>eye tracking: int32 x, int32 y, int64 send time ({@value #GAZE_FRAME_BYTES} bytes)</li>
+ *     <li>emotion: float32[{@value #EMOTION_COUNT}] scores, int64 send time ({@value #EMOTION_FRAME_BYTES} bytes)</li>
+ * </ul>
+ */
+public final class WireProtocol {
+
+    public static final int MAGIC = 0x45484231; // "EHB1"
+    public static final int HANDSHAKE_TIMEOUT_IN_MS = 1000;
+    public static final int EMOTION_COUNT = 5;
+    public static final int GAZE_FRAME_BYTES = 2 * Integer.BYTES + Long.BYTES;
+    public static final int EMOTION_FRAME_BYTES = EMOTION_COUNT * Float.BYTES + Long.BYTES;
+
+    private static final int HANDSHAKE_BYTES = Integer.BYTES + 1;
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Client side of the handshake. Requests a format from the server and waits briefly for the answer.
+     * If the server does not answer with the handshake, anything it already sent is left unread
+     * and the connection falls back to {@link WireFormat#TEXT}.
+     *
+     * @param connection the connected socket
+     * @param inputStream a buffered stream over the socket, which must support mark and reset
+     * @param requested the format the client would like to use
+     * @return the format the connection will use
+     * @throws IOException if the socket fails
+     */
+    public static WireFormat requestFormat(Socket connection, BufferedInputStream inputStream,
+                                           WireFormat requested) throws IOException {
+        if (requested == WireFormat.TEXT) {
+            return WireFormat.TEXT;
+        }
+        DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream());
+        outputStream.writeInt(MAGIC);
+        outputStream.writeByte(requested.getCode());
+        outputStream.flush();
+
+        int previousTimeout = connection.getSoTimeout();
+        connection.setSoTimeout(HANDSHAKE_TIMEOUT_IN_MS);
+        inputStream.mark(HANDSHAKE_BYTES);
+        try {
+            DataInputStream reply = new DataInputStream(inputStream);
+            if (reply.readInt() == MAGIC) {
+                return WireFormat.getByCode(reply.readByte());
+            }
+        } catch (SocketTimeoutException e) {
+            // an older server that sends nothing until it has data, treat it as text
+        } finally {
+            connection.setSoTimeout(previousTimeout);
+        }
+        inputStream.reset();
+        return WireFormat.TEXT;
+    }
+
+    /**
+     * Server side of the handshake. Waits briefly for a hello from the client and answers it.
+     * Clients that send no hello are given {@link WireFormat#TEXT}.
+     *
+     * @param connection the accepted socket
+     * @param inputStream a stream over the socket
+     * @param outputStream the stream the samples will be written to
+     * @return the format the connection will use
+     * @throws IOException if the socket fails
+     */
+    public static WireFormat acceptFormat(Socket connection, DataInputStream inputStream,
+                                          DataOutputStream outputStream) throws IOException {
+        return acceptFormat(connection, inputStream, outputStream, WireFormat.BINARY);
+    }
+
+    /**
+     * Server side of the handshake for a server that may not send every format.
+     * A client asking for binary frames from a server limited to text is answered with {@link WireFormat#TEXT}.
+     *
+     * @param connection the accepted socket
+     * @param inputStream a stream over the socket
+     * @param outputStream the stream the samples will be written to
+     * @param supported the richest format the server will send
+     * @return the format the connection will use
+     * @throws IOException if the socket fails
+     */
+    public static WireFormat acceptFormat(Socket connection, DataInputStream inputStream,
+                                          DataOutputStream outputStream, WireFormat supported) throws IOException {
+        int previousTimeout = connection.getSoTimeout();
+        connection.setSoTimeout(HANDSHAKE_TIMEOUT_IN_MS);
+        try {
+            if (inputStream.readInt() != MAGIC) {
+                return WireFormat.TEXT;
+            }
+            WireFormat format = WireFormat.getByCode(inputStream.readByte());
+            if (supported == WireFormat.TEXT) {
+                format = WireFormat.TEXT;
+            }
+            outputStream.writeInt(MAGIC);
+            outputStream.writeByte(format.getCode());
+            outputStream.flush();
+            return format;
+        } catch (SocketTimeoutException e) {
+            return WireFormat.TEXT;
+        } finally {
+            connection.setSoTimeout(previousTimeout);
+        }
+    }
+
+    /**
+     * Writes one eye-tracking sample in the given format.
+     *
+     * @param outputStream the stream to write to
+     * @param format the format negotiated for the connection
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param sendTime the send time in epoch milliseconds, only sent in binary frames
+     * @throws IOException if the stream fails
+     */
+    public static void writeGaze(DataOutputStream outputStream, WireFormat format,
+                                 int x, int y, long sendTime) throws IOException {
+        if (format == WireFormat.BINARY) {
+            outputStream.writeInt(x);
+            outputStream.writeInt(y);
+            outputStream.writeLong(sendTime);
+        } else {
+            outputStream.writeUTF(x + ", " + y);
+        }
+    }
+
+    /**
+     * Writes one emotion sample in the given format.
+     *
+     * @param outputStream the stream to write to
+     * @param format the format negotiated for the connection
+     * @param scores the {@value #EMOTION_COUNT} emotion scores
+     * @param sendTime the send time in epoch milliseconds, only sent in binary frames
+     * @throws IOException if the stream fails
+     */
+    public static void writeEmotion(DataOutputStream outputStream, WireFormat format,
+                                    float[] scores, long sendTime) throws IOException {
+        if (format == WireFormat.BINARY) {
+            for (int i = 0; i < EMOTION_COUNT; i++) {
+                outputStream.writeFloat(scores[i]);
+            }
+            outputStream.writeLong(sendTime);
+        } else {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < EMOTION_COUNT; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(scores[i]);
+            }
+            outputStream.writeUTF(builder.toString());
+        }
+    }
+}
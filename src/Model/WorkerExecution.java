@@ -0,0 +1,76 @@
+package Model;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * How {@link CustomThread} workers are run.
+ * <p>
+ * Every worker loops until it is stopped and spends most of its time blocked, on a socket read or a queue poll,
+ * so each one needs a thread of its own while it runs. With {@link #PLATFORM_THREAD} the worker is that thread,
+ * as it always was. With {@link #SHARED_POOL} workers run on a pool of daemon threads shared by every session,
+ * so connecting and disconnecting reuses threads instead of creating new ones. With {@link #VIRTUAL_THREAD} each
+ * worker runs on a virtual thread, so a blocked worker only parks and holds no operating system thread; this
+ * needs Java 21 or later, and falls back to the shared pool on older runtimes.
+ */
+public enum WorkerExecution {
+    PLATFORM_THREAD,
+    SHARED_POOL,
+    VIRTUAL_THREAD;
+
+    private static final Logger log = Logger.getLogger(WorkerExecution.class.getName());
+
+    /**
+     * @return whether workers really run this way on this runtime
+     */
+    public boolean isAvailable() {
+        return this != VIRTUAL_THREAD || VirtualThreads.EXECUTOR != null;
+    }
+
+    /**
+     * @return runs each worker given to it until the worker stops, or null for {@link #PLATFORM_THREAD},
+     * where workers run as their own thread
+     */
+    public Executor getExecutor() {
+        return switch (this) {
+            case PLATFORM_THREAD -> null;
+            case SHARED_POOL -> SharedPool.EXECUTOR;
+            case VIRTUAL_THREAD -> {
+                if (VirtualThreads.EXECUTOR != null) {
+                    yield VirtualThreads.EXECUTOR;
+                }
+                log.warning("Virtual threads need Java 21 or later, running workers on the shared pool.");
+                yield SharedPool.EXECUTOR;
+            }
+        };
+    }
+
+    // holders, so neither executor is created until it is first used
+
+    private static class SharedPool {
+        private static final AtomicInteger threadCount = new AtomicInteger();
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class VirtualThreads {
+        private static final ExecutorService EXECUTOR = create();
+
+        /**
+         * Looks the factory up at run time, so the application still builds and runs on Java 17.
+         */
+        private static ExecutorService create() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package TestServers;
 
+import Model.WireFormat;
+import Model.WireProtocol;
+
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -12,8 +16,12 @@ public class EmotionDataServer implements Runnable{
         Random random = new Random();
         try (ServerSocket ss = new ServerSocket(6000);
              Socket connection = ss.accept();
+             DataInputStream inputStream = new DataInputStream(connection.getInputStream());
              DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream());) {
             System.out.println("Emotion Connection Made");
+            WireFormat format = WireProtocol.acceptFormat(connection, inputStream, outputStream);
+            System.out.println("Emotion Server using " + format + " wire format");
+            float[] scores = new float[WireProtocol.EMOTION_COUNT];
 
             while (true) {
                 long startTime = System.currentTimeMillis();
@@ -22,7 +30,12 @@ public class EmotionDataServer implements Runnable{
                 float v3 = random.nextFloat();
                 float v4 = random.nextFloat();
                 float v5 = random.nextFloat();
-                outputStream.writeUTF(v1 + ", " + v2 + ", " + v3 + ", " + v4 + ", " + v5);
+                scores[0] = v1;
+                scores[1] = v2;
+                scores[2] = v3;
+                scores[3] = v4;
+                scores[4] = v5;
+                WireProtocol.writeEmotion(outputStream, format, scores, System.currentTimeMillis());
                 outputStream.flush();  // Ensure each packet is sent immediately
                 long endTime = System.currentTimeMillis();
                 System.out.println("Sent emotion data: " + v1 + ", " + v2 + ", " + v3 + ", " + v4 + ", " + v5 + " in " + (endTime - startTime) + "ms");
@@ -1,5 +1,9 @@
 package TestServers;
 
+import Model.WireFormat;
+import Model.WireProtocol;
+
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -12,13 +16,16 @@ public class EyeTrackingServer implements Runnable {
         Random random = new Random();
         try (ServerSocket ss = new ServerSocket(6001);
              Socket connection = ss.accept();
+             DataInputStream inputStream = new DataInputStream(connection.getInputStream());
              DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream());) {
             System.out.println("Eye Tracking Connection Made");
+            WireFormat format = WireProtocol.acceptFormat(connection, inputStream, outputStream);
+            System.out.println("Eye Tracking Server using " + format + " wire format");
             while (true) {
                 long startTime = System.currentTimeMillis();
                 int x_pos = random.nextInt(1000);
                 int y_pos = random.nextInt(950 - 200); // accommodate for top bar and pad accordingly
-                outputStream.writeUTF(x_pos + ", " + y_pos);
+                WireProtocol.writeGaze(outputStream, format, x_pos, y_pos, System.currentTimeMillis());
                 outputStream.flush();  // Ensure each packet is sent immediately
                 long endTime = System.currentTimeMillis();
                 System.out.println("Sent eye tracking data: " + x_pos + ", " + y_pos + " in " + (endTime - startTime) + "ms");
@@ -0,0 +1,291 @@
+package TestServers;
+
+import Model.WireFormat;
+import Model.WireProtocol;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load-generating test server that sends eye-tracking or emotion samples at tracker rates, instead of the
+ * fixed two samples a second of {@link EyeTrackingServer} and {@link EmotionDataServer}.
+ * <p>
+ * The rate, the number of connections served at once, the most capable wire format agreed to, the jitter and
+ * the burst size are set by a {@link Profile}. Each connection is served by its own thread, which parks until
+ * shortly before each sample is due and spins the rest of the way, so rates of 1000 Hz and more are kept.
+ * With bursts, samples are sent in groups back to back, with the gaps between groups stretched to keep the
+ * average rate. Jitter moves each send time randomly by up to the given fraction of the gap, without
+ * changing the average rate. Binary frames carry the time each sample was sent, so the hub can measure
+ * the latency from the wire to the screen.
+ * <p>
+ * Gaze samples dwell around a random point for {@value #DWELL_IN_MS} ms at a time, with a few pixels of noise,
+ * before jumping to the next, so fixation detection and circle consolidation see realistic input.
+ * <p>
+ * Run with {@code java TestServers.LoadGenerator [options]}, see {@link #main(String[])}. With a duration
+ * set, each connection stops after it and a summary is printed, so the generator can be used in CI.
+ */
+public class LoadGenerator implements Runnable {
+
+    /**
+     * The kind of samples a generator sends.
+     */
+    public enum Feed {
+        EYE_TRACKING,
+        EMOTION
+    }
+
+    /**
+     * How a generator sends samples.
+     *
+     * @param rate the samples sent per second on each connection
+     * @param connections the most connections served at once; further connections are closed straight away
+     * @param format the most capable format agreed to during the handshake
+     * @param jitter how far each send time may move, as a fraction of the gap between sends, from 0 to 1
+     * @param burstSize how many samples are sent back to back each time
+     * @param durationInSeconds how long each connection is served, or 0 to serve until the client disconnects
+     * @param seed the seed of the random samples and jitter
+     */
+    public record Profile(double rate, int connections, WireFormat format, double jitter, int burstSize,
+                          long durationInSeconds, long seed) {
+
+        public Profile {
+            if (!(rate > 0) || connections < 1 || burstSize < 1 || durationInSeconds < 0
+                    || !(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("Invalid load profile");
+            }
+        }
+    }
+
+    public static final int EYE_TRACKING_PORT = 6001;
+    public static final int EMOTION_PORT = 6000;
+    private static final int DEFAULT_GAZE_RATE = 1000;
+    private static final int DEFAULT_EMOTION_RATE = 30;
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int ACCEPT_TIMEOUT_IN_MS = 500; // so the server notices when its duration is over
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 950 - 200; // accommodate for top bar and pad accordingly
+    private static final long DWELL_IN_MS = 250;
+    private static final int GAZE_NOISE = 3;
+
+    private final Feed feed;
+    private final int port;
+    private final Profile profile;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final List<Sender> senders = new ArrayList<>();
+
+    public LoadGenerator(Feed feed, int port, Profile profile) {
+        this.feed = feed;
+        this.port = port;
+        this.profile = profile;
+    }
+
+    /**
+     * Starts a generator for each feed and waits for them to finish.
+     * <p>
+     * Options, each followed by its value:
+     * <ul>
+     *     <li>{@code --feed eye|emotion|both}, default both</li>
+     *     <li>{@code --rate} gaze samples per second, default {@value #DEFAULT_GAZE_RATE}</li>
+     *     <li>{@code --emotion-rate} emotion samples per second, default {@value #DEFAULT_EMOTION_RATE}</li>
+     *     <li>{@code --connections} connections served at once on each port, default 1</li>
+     *     <li>{@code --format binary|text}, default binary</li>
+     *     <li>{@code --jitter} fraction of the gap between sends, default 0</li>
+     *     <li>{@code --burst} samples sent back to back, default 1</li>
+     *     <li>{@code --duration} seconds to serve each connection, default 0 for no limit</li>
+     *     <li>{@code --seed} random seed, default 0</li>
+     * </ul>
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String feeds = "both";
+        double gazeRate = DEFAULT_GAZE_RATE;
+        double emotionRate = DEFAULT_EMOTION_RATE;
+        int connections = 1;
+        WireFormat format = WireFormat.BINARY;
+        double jitter = 0;
+        int burstSize = 1;
+        long duration = 0;
+        long seed = 0;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--feed" -> feeds = value;
+                    case "--rate" -> gazeRate = Double.parseDouble(value);
+                    case "--emotion-rate" -> emotionRate = Double.parseDouble(value);
+                    case "--connections" -> connections = Integer.parseInt(value);
+                    case "--format" -> format = WireFormat.valueOf(value.toUpperCase());
+                    case "--jitter" -> jitter = Double.parseDouble(value);
+                    case "--burst" -> burstSize = Integer.parseInt(value);
+                    case "--duration" -> duration = Long.parseLong(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Load Generator: " + e.getMessage());
+            System.out.println("Usage: LoadGenerator [--feed eye|emotion|both] [--rate hz] [--emotion-rate hz]"
+                    + " [--connections n] [--format binary|text] [--jitter fraction] [--burst n]"
+                    + " [--duration seconds] [--seed n]");
+            return;
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        if (!feeds.equals("emotion")) {
+            threads.add(new Thread(new LoadGenerator(Feed.EYE_TRACKING, EYE_TRACKING_PORT,
+                    new Profile(gazeRate, connections, format, jitter, burstSize, duration, seed))));
+        }
+        if (!feeds.equals("eye")) {
+            threads.add(new Thread(new LoadGenerator(Feed.EMOTION, EMOTION_PORT,
+                    new Profile(emotionRate, connections, format, jitter, burstSize, duration, seed))));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Accepts connections until the duration is over, or forever without one, then waits for every
+     * connection to finish and prints what each sent.
+     */
+    @Override
+    public void run() {
+        System.out.println("Load Generator sending " + feed + " at " + profile.rate() + " Hz on port " + port);
+        long deadline = profile.durationInSeconds() > 0
+                ? System.nanoTime() + TimeUnit.SECONDS.toNanos(profile.durationInSeconds()) : Long.MAX_VALUE;
+        try (ServerSocket ss = new ServerSocket(port)) {
+            ss.setSoTimeout(ACCEPT_TIMEOUT_IN_MS);
+            while (deadline == Long.MAX_VALUE || System.nanoTime() - deadline < 0) {
+                Socket connection;
+                try {
+                    connection = ss.accept();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                if (activeConnections.incrementAndGet() > profile.connections()) {
+                    activeConnections.decrementAndGet();
+                    System.out.println("Load Generator " + feed + ": refusing connection, "
+                            + profile.connections() + " already served");
+                    connection.close();
+                    continue;
+                }
+                Sender sender = new Sender(connection, senders.size() + 1);
+                senders.add(sender);
+                sender.start();
+            }
+            for (Sender sender : senders) {
+                sender.join();
+            }
+        } catch (Exception e) {
+            System.out.println("Load Generator " + feed + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves one connection at the profile's rate until the duration is over or the client disconnects.
+     */
+    private class Sender extends Thread {
+        private final Socket connection;
+        private final int number;
+        private final Random random;
+        private final float[] scores = new float[WireProtocol.EMOTION_COUNT];
+        private int dwellX;
+        private int dwellY;
+        private long dwellEnd;
+
+        Sender(Socket connection, int number) {
+            super("LoadGenerator-" + feed + "-" + number);
+            this.connection = connection;
+            this.number = number;
+            this.random = new Random(profile.seed() + number);
+        }
+
+        @Override
+        public void run() {
+            long sent = 0;
+            long maxLateness = 0;
+            long start = System.nanoTime();
+            WireFormat format = null;
+            try (connection;
+                 DataInputStream inputStream = new DataInputStream(connection.getInputStream());
+                 DataOutputStream outputStream = new DataOutputStream(
+                         new BufferedOutputStream(connection.getOutputStream()))) {
+                format = WireProtocol.acceptFormat(connection, inputStream, outputStream, profile.format());
+                long interval = (long) (TimeUnit.SECONDS.toNanos(1) * profile.burstSize() / profile.rate());
+                long maxJitter = (long) (interval * profile.jitter());
+                start = System.nanoTime();
+                long end = profile.durationInSeconds() > 0
+                        ? start + TimeUnit.SECONDS.toNanos(profile.durationInSeconds()) : Long.MAX_VALUE;
+                for (long scheduled = start; end == Long.MAX_VALUE || scheduled - end < 0; scheduled += interval) {
+                    long due = maxJitter > 0
+                            ? scheduled + (long) ((random.nextDouble() * 2 - 1) * maxJitter) : scheduled;
+                    awaitDue(due);
+                    maxLateness = Math.max(maxLateness, System.nanoTime() - due);
+                    for (int i = 0; i < profile.burstSize(); i++) {
+                        writeSample(outputStream, format);
+                    }
+                    outputStream.flush();
+                    sent += profile.burstSize();
+                }
+            } catch (IOException e) {
+                System.out.println("Load Generator " + feed + " connection " + number + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                activeConnections.decrementAndGet();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Load Generator %s connection %d: sent %d samples in %.3f s (%.0f samples/s) as %s,"
+                            + " max lateness %.3f ms%n", feed, number, sent, seconds, sent / seconds, format,
+                    maxLateness / 1e6);
+        }
+
+        private void writeSample(DataOutputStream outputStream, WireFormat format) throws IOException {
+            long sendTime = System.currentTimeMillis();
+            if (feed == Feed.EYE_TRACKING) {
+                if (sendTime >= dwellEnd) {
+                    dwellX = random.nextInt(WIDTH);
+                    dwellY = random.nextInt(HEIGHT);
+                    dwellEnd = sendTime + DWELL_IN_MS;
+                }
+                int x = Math.max(0, dwellX + random.nextInt(2 * GAZE_NOISE + 1) - GAZE_NOISE);
+                int y = Math.max(0, dwellY + random.nextInt(2 * GAZE_NOISE + 1) - GAZE_NOISE);
+                WireProtocol.writeGaze(outputStream, format, x, y, sendTime);
+            } else {
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] = random.nextFloat();
+                }
+                WireProtocol.writeEmotion(outputStream, format, scores, sendTime);
+            }
+        }
+    }
+
+    /**
+     * Parks until shortly before the given time and spins the rest of the way.
+     */
+    private static void awaitDue(long due) throws InterruptedException {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        while (System.nanoTime() - due < 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
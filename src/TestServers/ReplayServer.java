@@ -0,0 +1,139 @@
+package TestServers;
+
+import Model.Recording.ReplayMode;
+import Model.Recording.ReplayReport;
+import Model.Recording.ReplayTarget;
+import Model.Recording.SessionReader;
+import Model.Recording.SessionReplayer;
+import Model.WireFormat;
+import Model.WireProtocol;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+
+/**
+ * Serves a recorded session on the eye-tracking and emotion ports, in place of the random test servers,
+ * so the hub can be driven over its sockets by real data.
+ * <p>
+ * Run with {@code java TestServers.ReplayServer <session directory> [speed]}, where a speed of 1 replays in
+ * real time, 0 as fast as possible and anything else that many times faster than recorded.
+ * Once both connections are made the session is replayed once and the report is printed.
+ */
+public class ReplayServer implements Runnable {
+
+    private static final int EYE_TRACKING_PORT = 6001;
+    private static final int EMOTION_PORT = 6000;
+
+    private final Path session;
+    private final ReplayMode mode;
+    private final double speed;
+
+    public ReplayServer(Path session, ReplayMode mode, double speed) {
+        this.session = session;
+        this.mode = mode;
+        this.speed = speed;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayServer <session directory> [speed]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        new ReplayServer(Path.of(args[0]), ReplayMode.forSpeed(speed), speed).run();
+    }
+
+    @Override
+    public void run() {
+        System.out.println("Replay Server replaying " + session + " " + mode);
+        try (SessionReader reader = new SessionReader(session);
+             ServerSocket eyeTrackingServer = new ServerSocket(EYE_TRACKING_PORT);
+             ServerSocket emotionServer = new ServerSocket(EMOTION_PORT);
+             SocketTarget target = new SocketTarget(eyeTrackingServer, emotionServer)) {
+            System.out.println("Replay Server using " + target.eyeTrackingFormat + " and "
+                    + target.emotionFormat + " wire formats");
+            // the hub runs in another process, so only the sending side is measured
+            SessionReplayer replayer = new SessionReplayer(reader, target, mode, speed, null);
+            replayer.start();
+            replayer.join();
+            ReplayReport report = replayer.getReport();
+            System.out.println("Replay Server: " + report);
+        } catch (Exception e) {
+            System.out.println("Replay Server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the samples to the two connections in the format each negotiated, buffering them between flushes.
+     */
+    private static class SocketTarget implements ReplayTarget, AutoCloseable {
+        private final Socket eyeTrackingConnection;
+        private final Socket emotionConnection;
+        private final DataOutputStream eyeTrackingStream;
+        private final WireFormat eyeTrackingFormat;
+        private final DataOutputStream emotionStream;
+        private final WireFormat emotionFormat;
+        private final float[] scores = new float[WireProtocol.EMOTION_COUNT];
+
+        /**
+         * Accepts the eye-tracking connection and agrees its format before accepting the emotion connection,
+         * so a client that connects one after the other is not kept waiting.
+         */
+        SocketTarget(ServerSocket eyeTrackingServer, ServerSocket emotionServer) throws IOException {
+            eyeTrackingConnection = eyeTrackingServer.accept();
+            System.out.println("Replay Eye Tracking Connection Made");
+            eyeTrackingStream = new DataOutputStream(new BufferedOutputStream(eyeTrackingConnection.getOutputStream()));
+            eyeTrackingFormat = WireProtocol.acceptFormat(eyeTrackingConnection,
+                    new DataInputStream(eyeTrackingConnection.getInputStream()), eyeTrackingStream);
+            try {
+                emotionConnection = emotionServer.accept();
+            } catch (IOException e) {
+                eyeTrackingConnection.close();
+                throw e;
+            }
+            System.out.println("Replay Emotion Connection Made");
+            emotionStream = new DataOutputStream(new BufferedOutputStream(emotionConnection.getOutputStream()));
+            emotionFormat = WireProtocol.acceptFormat(emotionConnection,
+                    new DataInputStream(emotionConnection.getInputStream()), emotionStream);
+        }
+
+        @Override
+        public void sendGaze(int xCoord, int yCoord, long sendTime) throws IOException {
+            WireProtocol.writeGaze(eyeTrackingStream, eyeTrackingFormat, xCoord, yCoord, sendTime);
+        }
+
+        @Override
+        public void sendEmotion(float[] emotionScores, int scoreCount, long sendTime) throws IOException {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = i < scoreCount ? emotionScores[i] : 0;
+            }
+            WireProtocol.writeEmotion(emotionStream, emotionFormat, scores, sendTime);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            eyeTrackingStream.flush();
+            emotionStream.flush();
+        }
+
+        /**
+         * Sends anything still buffered and closes both connections. Safe to call more than once.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!eyeTrackingConnection.isClosed() && !emotionConnection.isClosed()) {
+                    flush();
+                }
+            } finally {
+                eyeTrackingConnection.close();
+                emotionConnection.close();
+            }
+        }
+    }
+}
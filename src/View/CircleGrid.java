@@ -0,0 +1,148 @@
+package View;
+
+import Data.CircleSnapshot;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code CircleGrid} class is a uniform grid over the area covered by each circle drawn by the {@link DrawPanel},
+ * used to find the circles that overlap a region to be redrawn without scanning every circle.
+ * <p>
+ * Unlike the {@link Model.CircleIndex}, which only indexes centers, a circle is put in every cell its bounds
+ * overlap, outline included, since a circle must be redrawn wherever any of it shows. Cells hold circle ids,
+ * which stay the same from one snapshot to the next; a circle that grows is {@link #remove removed} at its old
+ * size and {@link #add added} at its new one.
+ * <p>
+ * This class is not thread safe and is meant to be used on the event dispatch thread.
+ */
+class CircleGrid {
+
+    private static final int CELL_SIZE = 64;
+
+    private final Map<Long, IdList> cells = new HashMap<>();
+    private long[] found = new long[16]; // the ids found by the last lookup
+    private int foundCount;
+
+    /**
+     * Indexes every circle of a snapshot, replacing what was indexed before.
+     */
+    void rebuild(CircleSnapshot snapshot) {
+        cells.clear();
+        for (int i = 0; i < snapshot.size(); i++) {
+            add(snapshot, i);
+        }
+    }
+
+    /**
+     * Indexes the circle at the given position of a snapshot at its radius in that snapshot.
+     */
+    void add(CircleSnapshot snapshot, int index) {
+        long id = snapshot.getId(index);
+        int radius = snapshot.getRadius(index) + 2;
+        int maxCellX = cellCoord(snapshot.getX(index) + radius);
+        int maxCellY = cellCoord(snapshot.getY(index) + radius);
+        for (int cellX = cellCoord(snapshot.getX(index) - radius); cellX <= maxCellX; cellX++) {
+            for (int cellY = cellCoord(snapshot.getY(index) - radius); cellY <= maxCellY; cellY++) {
+                cells.computeIfAbsent(cellKey(cellX, cellY), key -> new IdList()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes the circle at the given position of a snapshot, as it was {@link #add added} from that snapshot.
+     */
+    void remove(CircleSnapshot snapshot, int index) {
+        long id = snapshot.getId(index);
+        int radius = snapshot.getRadius(index) + 2;
+        int maxCellX = cellCoord(snapshot.getX(index) + radius);
+        int maxCellY = cellCoord(snapshot.getY(index) + radius);
+        for (int cellX = cellCoord(snapshot.getX(index) - radius); cellX <= maxCellX; cellX++) {
+            for (int cellY = cellCoord(snapshot.getY(index) - radius); cellY <= maxCellY; cellY++) {
+                long key = cellKey(cellX, cellY);
+                IdList cell = cells.get(key);
+                if (cell != null && cell.remove(id) && cell.size == 0) {
+                    cells.remove(key); // keep the grid no larger than the set of occupied cells
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the circles whose cells overlap a region. Some of them may not overlap the region itself.
+     *
+     * @param region the region to look up
+     * @return the number of circles found, whose ids are the first entries of {@link #getFound()}
+     */
+    int find(Rectangle region) {
+        foundCount = 0;
+        int maxCellX = cellCoord(region.x + region.width - 1);
+        int maxCellY = cellCoord(region.y + region.height - 1);
+        for (int cellX = cellCoord(region.x); cellX <= maxCellX; cellX++) {
+            for (int cellY = cellCoord(region.y); cellY <= maxCellY; cellY++) {
+                IdList cell = cells.get(cellKey(cellX, cellY));
+                if (cell == null) {
+                    continue;
+                }
+                if (foundCount + cell.size > found.length) {
+                    found = Arrays.copyOf(found, Math.max(found.length * 2, foundCount + cell.size));
+                }
+                System.arraycopy(cell.ids, 0, found, foundCount, cell.size);
+                foundCount += cell.size;
+            }
+        }
+        // circles are drawn oldest first, and one covering several cells is found in each of them
+        Arrays.sort(found, 0, foundCount);
+        int distinct = 0;
+        for (int i = 0; i < foundCount; i++) {
+            if (distinct == 0 || found[i] != found[distinct - 1]) {
+                found[distinct++] = found[i];
+            }
+        }
+        foundCount = distinct;
+        return foundCount;
+    }
+
+    /**
+     * @return the ids found by the last {@link #find(Rectangle) lookup}, in ascending order and each once,
+     * in an array that is reused by the next lookup
+     */
+    long[] getFound() {
+        return found;
+    }
+
+    private static int cellCoord(int coordinate) {
+        return Math.floorDiv(coordinate, CELL_SIZE);
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The ids of the circles in one cell.
+     */
+    private static class IdList {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package View;
 
 import Model.Blackboard;
-import Data.Circle;
+import Model.LatencyStage;
+import Model.LatencyTracker;
+import Data.CircleSnapshot;
+import Data.Emotion;
 import java.awt.*;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import javax.swing.*;
 import javax.swing.border.MatteBorder;
 
@@ -16,8 +21,42 @@ import javax.swing.border.MatteBorder;
  * This panel is used as part of a graphical interface to display real-time visualizations
  * of the circles generated by the system. It ensures that each circle is displayed with
  * its fill color and a black border.
+ * <p>
+ * Frames are driven by a {@link RenderScheduler} calling {@link #renderFrame()} at a fixed rate,
+ * independent of how fast data arrives. Each frame draws one immutable {@link CircleSnapshot}, and frames
+ * whose snapshot has the same epoch as the last one drawn are skipped.
+ * <p>
+ * In buffered rendering mode, the default, circles are drawn into an off-screen image. On each frame
+ * the new snapshot is compared with the one last drawn, and only the regions of circles that were added,
+ * grew or were evicted are redrawn, and only those regions
+ * are copied to the screen. The circles overlapping each region are looked up in a {@link CircleGrid} kept in step
+ * with the drawn snapshot, so the cost of a frame follows what changed rather than how many circles there are.
+ * <p>
+ * When a new snapshot reaches the screen, the time since it was published and since its newest gaze sample was
+ * read from the socket are recorded in the {@link Blackboard}'s {@link LatencyTracker}. If the latency overlay
+ * is turned on, the percentiles of each stage are drawn over the bottom left corner, refreshed a few times a second.
  */
-public class DrawPanel extends JPanel implements PropertyChangeListener {
+public class DrawPanel extends JPanel {
+
+    private static final int MAX_DIRTY_REGIONS = 64; // beyond this, redrawing everything is cheaper
+    private static final long OVERLAY_REFRESH_NANOS = 250_000_000;
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color OVERLAY_BACKGROUND = new Color(255, 255, 255, 220);
+    private static final int OVERLAY_PADDING = 6;
+    private static final int OVERLAY_MARGIN = 10;
+    private static final Color[] EMOTION_COLORS = emotionColors();
+
+    private boolean bufferedRendering = true;
+    private BufferedImage backBuffer;
+    private CircleSnapshot drawn = CircleSnapshot.EMPTY; // the snapshot last drawn
+    private final CircleGrid grid = new CircleGrid(); // the circles of the drawn snapshot
+    private final List<Rectangle> dirtyRegions = new ArrayList<>();
+    private CircleSnapshot pendingPaint; // a new snapshot rendered but not yet on the screen
+    private long paintedSourceTimestamp; // the newest gaze sample already timed to the screen
+    private List<String> overlayLines = List.of();
+    private Rectangle overlayBounds; // where the overlay was last drawn, null if it is not shown
+    private long overlayRefreshTime;
+    private final LongAdder paints = Blackboard.getInstance().getMetricsRegistry().counter("render.paints");
 
     /**
      * Constructs a {@code DrawPanel} with a white background and a black border around the panel.
@@ -26,12 +65,10 @@ public class DrawPanel extends JPanel implements PropertyChangeListener {
     public DrawPanel(){
         setBackground(Color.WHITE);
         setBorder(new MatteBorder(3, 3, 3, 3, Color.BLACK));
-        Blackboard.getInstance().addChangeSupportListener(
-                Blackboard.PROPERTY_NAME_VIEW_DATA, this);
     }
 
     /**
-     * Paints the circles stored in the {@link Blackboard}'s circle list onto the panel.
+     * Paints the circles in the {@link Blackboard}'s latest {@link CircleSnapshot} onto the panel.
      *
      * For each circle:
      * <ul>
@@ -39,21 +76,301 @@ public class DrawPanel extends JPanel implements PropertyChangeListener {
      *     <li>An outline is drawn around the circle using a black border.</li>
      * </ul>
      * The circles are drawn as ovals, and their positions and sizes are determined by the
-     * coordinates and radius stored in each {@link Circle} object.
+     * coordinates and radius stored in the snapshot.
+     * <p>
+     * In buffered rendering mode the circles are already in the back buffer, which is copied to the screen.
      *
      * @param g the {@link Graphics} object used for drawing the circles and their outlines
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        if (bufferedRendering) {
+            if (!hasCurrentBackBuffer()) {
+                redrawBackBuffer(Blackboard.getInstance().getCircleSnapshot());
+            }
+            g.drawImage(backBuffer, 0, 0, null);
+        } else {
+            super.paintComponent(g);
 
-        for (Circle c : Blackboard.getInstance().getCircleList()) {
-            c.drawCircle(g);
+            drawn = Blackboard.getInstance().getCircleSnapshot();
+            for (int i = 0; i < drawn.size(); i++) {
+                drawCircle(g, drawn, i);
+            }
+        }
+        paints.increment();
+        recordPaintLatency();
+        if (overlayBounds != null) {
+            drawLatencyOverlay(g);
         }
     }
 
-    @Override
-    public void propertyChange(PropertyChangeEvent evt) {
+    /**
+     * Records the latency of the snapshot that just reached the screen, if it has not been recorded yet.
+     * The end-to-end latency is only recorded when the snapshot shows a gaze sample newer than the last one timed.
+     */
+    private void recordPaintLatency() {
+        if (pendingPaint == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        LatencyTracker latencyTracker = Blackboard.getInstance().getLatencyTracker();
+        latencyTracker.record(LatencyStage.PAINT, now - pendingPaint.getPublishTime());
+        long sourceTimestamp = pendingPaint.getSourceTimestamp();
+        if (sourceTimestamp != 0 && sourceTimestamp != paintedSourceTimestamp) {
+            latencyTracker.record(LatencyStage.END_TO_END, now - sourceTimestamp);
+            paintedSourceTimestamp = sourceTimestamp;
+        }
+        pendingPaint = null;
+    }
+
+    private void drawLatencyOverlay(Graphics g) {
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(overlayBounds.x, overlayBounds.y, overlayBounds.width, overlayBounds.height);
+        g.setColor(Color.BLACK);
+        g.drawRect(overlayBounds.x, overlayBounds.y, overlayBounds.width - 1, overlayBounds.height - 1);
+        g.setFont(OVERLAY_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        int y = overlayBounds.y + OVERLAY_PADDING + metrics.getAscent();
+        for (String line : overlayLines) {
+            g.drawString(line, overlayBounds.x + OVERLAY_PADDING, y);
+            y += metrics.getHeight();
+        }
+    }
+
+    /**
+     * Refreshes the latency overlay every {@value #OVERLAY_REFRESH_NANOS} ns while it is turned on,
+     * and clears it once when it is turned off.
+     */
+    private void refreshLatencyOverlay() {
+        if (!Blackboard.getInstance().isLatencyOverlayVisible()) {
+            if (overlayBounds != null) {
+                Rectangle previous = overlayBounds;
+                overlayBounds = null;
+                repaint(previous);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        if (overlayBounds != null && now - overlayRefreshTime < OVERLAY_REFRESH_NANOS) {
+            return;
+        }
+        overlayRefreshTime = now;
+        overlayLines = Blackboard.getInstance().getLatencyTracker().formatStats();
+        FontMetrics metrics = getFontMetrics(OVERLAY_FONT);
+        int width = 0;
+        for (String line : overlayLines) {
+            width = Math.max(width, metrics.stringWidth(line));
+        }
+        width += 2 * OVERLAY_PADDING;
+        int height = overlayLines.size() * metrics.getHeight() + 2 * OVERLAY_PADDING;
+        Rectangle bounds = new Rectangle(OVERLAY_MARGIN, getHeight() - height - OVERLAY_MARGIN, width, height);
+        if (overlayBounds != null && !overlayBounds.equals(bounds)) {
+            repaint(overlayBounds);
+        }
+        overlayBounds = bounds;
+        repaint(bounds);
+    }
+
+    /**
+     * Renders one frame if a new snapshot was published since the last one. Called by the {@link RenderScheduler}
+     * on the event dispatch thread.
+     *
+     * @return true if anything was rendered, false if the frame was skipped because nothing changed
+     */
+    public boolean renderFrame() {
+        refreshLatencyOverlay();
+        CircleSnapshot snapshot = Blackboard.getInstance().getCircleSnapshot();
+        if (snapshot.getEpoch() == drawn.getEpoch() && hasCurrentBackBuffer()) {
+            return false;
+        }
+        pendingPaint = snapshot;
+        if (!bufferedRendering) {
+            drawn = snapshot;
+            repaint();
+            return true;
+        }
+        if (!hasCurrentBackBuffer()) {
+            redrawBackBuffer(snapshot);
+            repaint();
+            return true;
+        }
+        Rectangle changedArea = redrawChangedRegions(snapshot);
+        if (changedArea != null) {
+            repaint(changedArea);
+        } else {
+            pendingPaint = null; // nothing visible changed, so nothing will be painted
+        }
+        return true;
+    }
+
+    public boolean isBufferedRendering() {
+        return bufferedRendering;
+    }
+
+    /**
+     * Switches between drawing through the back buffer and drawing every circle on every repaint.
+     *
+     * @param bufferedRendering true to use the back buffer
+     */
+    public void setBufferedRendering(boolean bufferedRendering) {
+        this.bufferedRendering = bufferedRendering;
+        backBuffer = null;
+        drawn = CircleSnapshot.EMPTY;
         repaint();
     }
+
+    private boolean hasCurrentBackBuffer() {
+        return !bufferedRendering
+                || backBuffer != null && backBuffer.getWidth() == getWidth() && backBuffer.getHeight() == getHeight();
+    }
+
+    /**
+     * Recreates the back buffer at the panel's size and draws every circle of the snapshot into it.
+     */
+    private void redrawBackBuffer(CircleSnapshot snapshot) {
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        backBuffer = configuration != null
+                ? configuration.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        drawn = snapshot;
+        grid.rebuild(snapshot);
+        Graphics2D g = backBuffer.createGraphics();
+        try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < snapshot.size(); i++) {
+                drawCircle(g, snapshot, i);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Compares the snapshot with the one last drawn, and redraws the regions of circles that were added,
+     * grew or were evicted, updating the grid as it goes. Both snapshots are in ascending id order, so they are
+     * compared in a single pass, which skips whole chunks of circles the two snapshots share.
+     *
+     * @return the area that changed, or null if nothing did
+     */
+    private Rectangle redrawChangedRegions(CircleSnapshot snapshot) {
+        CircleSnapshot previous = drawn;
+        dirtyRegions.clear();
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < snapshot.size()) {
+            long previousId = i < previous.size() ? previous.getId(i) : Long.MAX_VALUE;
+            long id = j < snapshot.size() ? snapshot.getId(j) : Long.MAX_VALUE;
+            if (previousId < id) {
+                dirtyRegions.add(bounds(previous, i, previous.getRadius(i))); // evicted
+                grid.remove(previous, i);
+                i++;
+            } else if (id < previousId) {
+                dirtyRegions.add(bounds(snapshot, j, snapshot.getRadius(j))); // added
+                grid.add(snapshot, j);
+                j++;
+            } else {
+                int unchanged = snapshot.countUnchangedIn(previous, j);
+                if (unchanged > 0) {
+                    i += unchanged;
+                    j += unchanged;
+                    continue;
+                }
+                if (previous.getRadius(i) != snapshot.getRadius(j)) {
+                    dirtyRegions.add(bounds(snapshot, j,
+                            Math.max(previous.getRadius(i), snapshot.getRadius(j)))); // grew
+                    grid.remove(previous, i);
+                    grid.add(snapshot, j);
+                }
+                i++;
+                j++;
+            }
+        }
+        drawn = snapshot;
+
+        if (dirtyRegions.isEmpty()) {
+            return null;
+        }
+        Rectangle changedArea = new Rectangle(dirtyRegions.get(0));
+        for (Rectangle region : dirtyRegions) {
+            changedArea.add(region);
+        }
+        if (dirtyRegions.size() > MAX_DIRTY_REGIONS) {
+            redrawRegions(List.of(changedArea));
+        } else {
+            redrawRegions(dirtyRegions);
+        }
+        return changedArea;
+    }
+
+    /**
+     * Clears each region of the back buffer and redraws, in order, every circle of the drawn snapshot that overlaps it,
+     * as found in the grid.
+     */
+    private void redrawRegions(List<Rectangle> regions) {
+        Graphics2D g = backBuffer.createGraphics();
+        try {
+            for (Rectangle region : regions) {
+                g.setClip(region);
+                g.setColor(getBackground());
+                g.fillRect(region.x, region.y, region.width, region.height);
+                int found = grid.find(region);
+                long[] ids = grid.getFound();
+                for (int k = 0; k < found; k++) {
+                    int i = (int) (ids[k] - drawn.getFirstId());
+                    int radius = drawn.getRadius(i);
+                    if (region.intersects(drawn.getX(i) - radius - 2, drawn.getY(i) - radius - 2,
+                            2 * radius + 4, 2 * radius + 4)) {
+                        drawCircle(g, drawn, i);
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Draws a circle filled with its emotion's color and outlined in black.
+     *
+     * @param g the graphics to draw with
+     * @param snapshot the circles
+     * @param index the position of the circle, 0 being the oldest
+     */
+    private static void drawCircle(Graphics g, CircleSnapshot snapshot, int index) {
+        int xCoord = snapshot.getX(index);
+        int yCoord = snapshot.getY(index);
+        int radius = snapshot.getRadius(index);
+        // do not draw in preferencepanel area
+        if (xCoord - radius >= Blackboard.paddingFromTop) {
+            g.setColor(EMOTION_COLORS[snapshot.getEmotion(index).ordinal()]);
+            g.fillOval(xCoord - radius, yCoord - radius,
+                    2 * radius, 2 * radius);
+            g.setColor(Color.BLACK);
+            g.drawOval(xCoord - radius, yCoord - radius,
+                    2 * radius, 2 * radius);
+        }
+    }
+
+    /**
+     * @return the color of each emotion, indexed by ordinal
+     */
+    private static Color[] emotionColors() {
+        Emotion[] emotions = Emotion.values();
+        Color[] colors = new Color[emotions.length];
+        for (Emotion emotion : emotions) {
+            colors[emotion.ordinal()] = new Color(emotion.getRgb());
+        }
+        return colors;
+    }
+
+    /**
+     * @return the area covered by a circle of the snapshot at the given radius, including its outline
+     */
+    private static Rectangle bounds(CircleSnapshot snapshot, int index, int radius) {
+        return new Rectangle(snapshot.getX(index) - radius - 2, snapshot.getY(index) - radius - 2,
+                2 * radius + 4, 2 * radius + 4);
+    }
 }
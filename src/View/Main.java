@@ -3,13 +3,21 @@ package View;
 import Controller.MainController;
 import Model.DataClients.*;
 import Model.*;
+import Model.Recording.BlackboardReplayTarget;
+import Model.Recording.ReplayMode;
+import Model.Recording.SessionReader;
+import Model.Recording.SessionRecorder;
+import Model.Recording.SessionReplayer;
 import TestServers.EmotionDataServer;
 import TestServers.EyeTrackingServer;
 
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.logging.Logger;
 import javax.swing.*;
 
 /**
@@ -30,15 +38,20 @@ import javax.swing.*;
 public class Main extends JFrame implements PropertyChangeListener {
 
     private static final String TESTING_FLAG = "-test";
+    private static final Logger mainLog = Logger.getLogger(Main.class.getName());
 
     private final ArrayList<CustomThread> threads;
+    private final ByteBufferPool bufferPool = new ByteBufferPool(SelectorClientEngine.BUFFER_SIZE);
+    private Session session; // the live session on the default Blackboard, null when not connected
 
     /**
      * The main method starts the application, setting up the main window.
+     * Logging is moved off the calling threads first, so no thread waits on the console.
      *
      * @param args command-line arguments; if "-test" is passed, test servers are started
      */
     public static void main (String[] args){
+        AsyncLogHandler.install();
         Main window = new Main();
         window.setSize(1000,1000); // center on screen
         window.setLocationRelativeTo(null);
@@ -64,19 +77,52 @@ public class Main extends JFrame implements PropertyChangeListener {
         JMenu actionsMenu = new JMenu("Actions");
         JMenuItem start = new JMenuItem("Start");
         JMenuItem stop = new JMenuItem("Stop");
+        JMenuItem replay = new JMenuItem(MainController.REPLAY_COMMAND);
+        JCheckBoxMenuItem record = new JCheckBoxMenuItem("Record Sessions",
+                Blackboard.getInstance().isRecordingEnabled());
+        record.addActionListener(e -> Blackboard.getInstance().setRecordingEnabled(record.isSelected()));
+        JCheckBoxMenuItem showLatency = new JCheckBoxMenuItem("Show Latency Stats",
+                Blackboard.getInstance().isLatencyOverlayVisible());
+        showLatency.addActionListener(e -> Blackboard.getInstance().setLatencyOverlayVisible(showLatency.isSelected()));
+        JMenuItem dumpLatency = new JMenuItem("Dump Latency Stats");
+        dumpLatency.addActionListener(e -> dumpLatencyStats());
+        JMenu workers = new JMenu("Run Workers On");
+        ButtonGroup workerGroup = new ButtonGroup();
+        for (WorkerExecution execution : WorkerExecution.values()) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(execution.toString(),
+                    execution == Blackboard.getInstance().getWorkerExecution());
+            item.setEnabled(execution.isAvailable());
+            item.addActionListener(e -> Blackboard.getInstance().setWorkerExecution(execution));
+            workerGroup.add(item);
+            workers.add(item);
+        }
+        JMenuItem resetLatency = new JMenuItem("Reset Latency Stats");
+        resetLatency.addActionListener(e -> Blackboard.getInstance().getLatencyTracker().reset());
 
         menuBar.add(actionsMenu);
         actionsMenu.add(start);
         actionsMenu.add(stop);
+        actionsMenu.add(replay);
+        actionsMenu.addSeparator();
+        actionsMenu.add(record);
+        actionsMenu.add(workers);
+        actionsMenu.addSeparator();
+        actionsMenu.add(showLatency);
+        actionsMenu.add(dumpLatency);
+        actionsMenu.add(resetLatency);
         setJMenuBar(menuBar);
 
         MainController controller = new MainController(this);
         start.addActionListener(controller);
         stop.addActionListener(controller);
+        replay.addActionListener(controller);
 
         DrawPanel drawPanel = new DrawPanel();
         drawPanel.setPreferredSize(new Dimension(1000,1000));
         add(drawPanel, BorderLayout.CENTER);
+        new RenderScheduler(drawPanel).start();
+        Blackboard.getInstance().getMetricsRegistry().registerMBean(SessionManager.METRICS_OBJECT_NAME);
+        new MetricsReporter().start();
 
         PreferencePanel preferencePanel = new PreferencePanel();
         add(preferencePanel, BorderLayout.NORTH);
@@ -92,33 +138,94 @@ public class Main extends JFrame implements PropertyChangeListener {
 
     /**
      * Function to be called when the user presses "Start".
-     * Closes all previous connections if present.
+     * Closes all previous connections if present, waiting for their threads to finish.
      * Attempts to connect to the sever IP addresses in blackboard.
      * Creates and starts all necessary threads.
+     * <p>
+     * By default both servers are read by a single {@link SelectorClientEngine};
+     * otherwise each server gets its own client thread.
      */
     public void connectClients() {
-        int eyeTrackingPort = Blackboard.getInstance().getEyeTrackingSocket_Port();
-        int emotionPort = Blackboard.getInstance().getEmotionSocket_Port();
+        Blackboard blackboard = Blackboard.getInstance();
         cleanUpThreads();
-        CustomThread eyeTrackingThread = new EyeTrackingClient(
-                                                Blackboard.getInstance().getEyeTrackingSocket_Host(),
-                                                eyeTrackingPort);
-        CustomThread emotionThread = new EmotionDataClient(
-                                                Blackboard.getInstance().getEmotionSocket_Host(),
-                                                emotionPort);
-        CustomThread dataProcessor = new RawDataProcessor();
-        ViewDataProcessor dpDelegate = new ViewDataProcessor();
-
-        threads.add(eyeTrackingThread);
-        threads.add(emotionThread);
-        threads.add(dataProcessor);
-        threads.add(dpDelegate);
-        for (CustomThread thread : threads){thread.start();}
+        session = new Session(blackboard, bufferPool);
+        if (blackboard.isRecordingEnabled()) {
+            try {
+                session.startRecording();
+            } catch (IOException ex) {
+                createConnectionErrorPopUp("Unable to start recording the session.", ex.getMessage());
+            }
+        }
+        try {
+            session.start(blackboard.getWorkerExecution());
+        } catch (IOException ex) {
+            createConnectionErrorPopUp("Unable to open the connection selector.", ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks for a recorded session and a replay speed, then replays the session through the pipeline.
+     * A speed of 1 replays in real time, 0 as fast as possible and anything else that many times faster.
+     */
+    public void chooseSessionToReplay() {
+        JFileChooser chooser = new JFileChooser(Blackboard.getInstance().getRecordingDirectory().toFile());
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        chooser.setDialogTitle("Choose a recorded session");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String input = JOptionPane.showInputDialog(this,
+                "Replay speed (1 = real time, 0 = as fast as possible):", "1");
+        if (input == null) {
+            return;
+        }
+        double speed;
+        try {
+            speed = Double.parseDouble(input.trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid replay speed: " + input);
+            return;
+        }
+        if (speed < 0) {
+            JOptionPane.showMessageDialog(this, "Invalid replay speed: " + input);
+            return;
+        }
+        replaySession(chooser.getSelectedFile().toPath(), ReplayMode.forSpeed(speed), speed);
     }
 
     /**
-     * Stop all threads from running.
+     * Closes all previous connections, waiting for their threads to finish, and replays a recorded session
+     * into the Blackboard in place of the data clients. The replay is not recorded again. The report is logged when the session ends.
+     *
+     * @param session the session directory
+     * @param mode how quickly to replay
+     * @param speed how many times faster than recorded to replay, for {@link ReplayMode#SCALED}
+     */
+    public void replaySession(Path session, ReplayMode mode, double speed) {
+        cleanUpThreads();
+        SessionReader reader;
+        try {
+            reader = new SessionReader(session);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, String.format("Unable to read the session.\n\nError: %s",
+                    ex.getMessage()));
+            return;
+        }
+        Blackboard blackboard = Blackboard.getInstance();
+        threads.add(new SessionReplayer(reader, new BlackboardReplayTarget(blackboard), mode, speed, blackboard));
+        threads.add(new RawDataProcessor());
+        threads.add(new ViewDataProcessor());
+        WorkerExecution execution = Blackboard.getInstance().getWorkerExecution();
+        for (CustomThread thread : threads){thread.start(execution);}
+    }
+
+    /**
+     * Stop all threads from running and wait for them to finish,
+     * since the Blackboard's queues take a single producer and consumer each.
      * They clean up all resources.
+     * Any session being recorded is closed.
      */
     public void cleanUpThreads(){
         for (CustomThread thread: threads){
@@ -126,7 +233,22 @@ public class Main extends JFrame implements PropertyChangeListener {
                 thread.stopThread();
             }
         }
+        try {
+            for (CustomThread thread : threads) {
+                if (thread != null) {
+                    thread.awaitStop();
+                }
+            }
+            if (session != null) {
+                session.stopAndWait();
+            }
+        } catch (InterruptedException ex) {
+            mainLog.warning("Interrupted while waiting for the threads to stop.");
+            Thread.currentThread().interrupt();
+        }
         threads.clear();
+        session = null;
+        Blackboard.getInstance().setSessionRecorder(null);
     }
 
     /**
@@ -142,6 +264,18 @@ public class Main extends JFrame implements PropertyChangeListener {
         eyeTrackingThread.start();
     }
 
+    /**
+     * Writes the latency percentiles of every pipeline stage to the log and shows them in a dialog they can be copied from.
+     */
+    private void dumpLatencyStats() {
+        String stats = String.join("\n", Blackboard.getInstance().getLatencyTracker().formatStats());
+        mainLog.info("Latency stats:\n" + stats);
+        JTextArea text = new JTextArea(stats);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(this, text, "Latency Stats", JOptionPane.PLAIN_MESSAGE);
+    }
+
     /**
      * Display a pop-up to show error to user.
      *
@@ -157,12 +291,18 @@ public class Main extends JFrame implements PropertyChangeListener {
 
     /**
      * Deal with thread errors as necessary.
+     * Errors are reported on the failing thread, so they are handled on the event dispatch thread,
+     * where waiting for that thread to stop cannot wait on itself.
      *
      * @param evt A PropertyChangeEvent object describing the event source
      *          and the property that has changed.
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> propertyChange(evt));
+            return;
+        }
 
         switch (evt.getPropertyName()){
             //disconnect everything if we can't connect to the eye tracking server
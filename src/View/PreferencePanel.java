@@ -1,14 +1,19 @@
 package View;
 
 import Model.Blackboard;
+import Model.EmotionAggregation;
+import Model.FixationAlgorithm;
+import Model.OverflowPolicy;
+import Model.WireFormat;
 import java.awt.*;
 import javax.swing.*;
 
 /**
  * The {@code PreferencePanel} class represents a configuration panel that allows users to modify
  * server connection settings, display parameters, and system behavior. This panel provides fields
- * for setting IP addresses, ports, the maximum number of circles displayed, and the threshold radius
- * for circle consolidation.
+ * for setting IP addresses, ports, the wire format requested from the servers, the overflow policy
+ * of the data queues, the maximum number of circles displayed, the threshold radius for circle consolidation,
+ * the target frame rate, the fixation detection algorithm, and how emotion samples are aggregated.
  *
  * When the "Apply" button is pressed, the updated values are applied to the {@link Blackboard},
  * and the display is refreshed. If the system is actively running, it will restart data retrieval
@@ -22,6 +27,12 @@ public class PreferencePanel extends JPanel {
     private final JTextField eyeTrackingPortField;
     private final JTextField maxCirclesField;
     private final JTextField thresholdRadiusField;
+    private final JTextField targetFpsField;
+    private final JComboBox<FixationAlgorithm> fixationAlgorithmBox;
+    private final JComboBox<EmotionAggregation> emotionAggregationBox;
+    private final JTextField emotionWindowField;
+    private final JComboBox<WireFormat> wireFormatBox;
+    private final JComboBox<OverflowPolicy> overflowPolicyBox;
 
     /**
      * Constructs a {@code PreferencePanel} and initializes it with the current configuration values
@@ -53,6 +64,14 @@ public class PreferencePanel extends JPanel {
         gbc.gridx = 3;
         add(emotionPortField, gbc);
 
+        // Wire Format requested from the servers
+        gbc.gridx = 4;
+        add(new JLabel("Wire Format:"), gbc);
+        wireFormatBox = new JComboBox<>(WireFormat.values());
+        wireFormatBox.setSelectedItem(blackboard.getRequestedWireFormat()); // Autofill with current value
+        gbc.gridx = 5;
+        add(wireFormatBox, gbc);
+
         // Eye Tracking Server IP
         gbc.gridx = 0;
         gbc.gridy = 1;
@@ -68,6 +87,14 @@ public class PreferencePanel extends JPanel {
         gbc.gridx = 3;
         add(eyeTrackingPortField, gbc);
 
+        // Queue Overflow Policy
+        gbc.gridx = 4;
+        add(new JLabel("Queue Overflow:"), gbc);
+        overflowPolicyBox = new JComboBox<>(OverflowPolicy.values());
+        overflowPolicyBox.setSelectedItem(blackboard.getOverflowPolicy()); // Autofill with current value
+        gbc.gridx = 5;
+        add(overflowPolicyBox, gbc);
+
         // Max Circles
         gbc.gridx = 0;
         gbc.gridy = 2;
@@ -83,9 +110,40 @@ public class PreferencePanel extends JPanel {
         gbc.gridx = 3;
         add(thresholdRadiusField, gbc);
 
+        // Target Frames Per Second
+        gbc.gridx = 4;
+        add(new JLabel("Target FPS:"), gbc);
+        targetFpsField = new JTextField(String.valueOf(blackboard.getTargetFramesPerSecond()), 10);  // Autofill with current value
+        gbc.gridx = 5;
+        add(targetFpsField, gbc);
+
+        // Emotion Aggregation
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        add(new JLabel("Emotion:"), gbc);
+        emotionAggregationBox = new JComboBox<>(EmotionAggregation.values());
+        emotionAggregationBox.setSelectedItem(blackboard.getEmotionAggregation()); // Autofill with current value
+        gbc.gridx = 1;
+        add(emotionAggregationBox, gbc);
+
+        // Emotion Window
+        gbc.gridx = 2;
+        add(new JLabel("Emotion Window (ms):"), gbc);
+        emotionWindowField = new JTextField(String.valueOf(blackboard.getEmotionWindowInMs()), 10);  // Autofill with current value
+        gbc.gridx = 3;
+        add(emotionWindowField, gbc);
+
+        // Fixation Detection
+        gbc.gridx = 4;
+        add(new JLabel("Fixations:"), gbc);
+        fixationAlgorithmBox = new JComboBox<>(FixationAlgorithm.values());
+        fixationAlgorithmBox.setSelectedItem(blackboard.getFixationAlgorithm()); // Autofill with current value
+        gbc.gridx = 5;
+        add(fixationAlgorithmBox, gbc);
+
         // Apply Button
         gbc.gridx = 1;
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         gbc.gridwidth = 2;
         gbc.anchor = GridBagConstraints.CENTER;
         JButton applyButton = new JButton("Apply");
@@ -109,17 +167,23 @@ public class PreferencePanel extends JPanel {
             blackboard.setEmotionSocket_Port(Integer.parseInt(emotionPortField.getText()));
             blackboard.setEyeTrackingSocket_Host(eyeTrackingIpField.getText());
             blackboard.setEyeTrackingSocket_Port(Integer.parseInt(eyeTrackingPortField.getText()));
+            blackboard.setRequestedWireFormat((WireFormat) wireFormatBox.getSelectedItem());
+            blackboard.setOverflowPolicy((OverflowPolicy) overflowPolicyBox.getSelectedItem());
+            blackboard.setFixationAlgorithm((FixationAlgorithm) fixationAlgorithmBox.getSelectedItem());
+            blackboard.setEmotionAggregation((EmotionAggregation) emotionAggregationBox.getSelectedItem());
 
             int maxCircles = Integer.parseInt(maxCirclesField.getText());
             int thresholdRadius = Integer.parseInt(thresholdRadiusField.getText());
 
             blackboard.setMaxCircles(maxCircles);
             blackboard.setThresholdRadius(thresholdRadius);
+            blackboard.setTargetFramesPerSecond(Integer.parseInt(targetFpsField.getText()));
+            blackboard.setEmotionWindowInMs(Long.parseLong(emotionWindowField.getText()));
 
 
             System.out.println("Settings applied.");
         } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Please enter valid ints for ports, Max Circles, and Threshold Radius.");
+            JOptionPane.showMessageDialog(this, "Please enter valid ints for ports, Max Circles, Threshold Radius, Target FPS, and Emotion Window.");
         }
     }
 }
@@ -0,0 +1,121 @@
+package View;
+
+import Model.Blackboard;
+import Model.MetricsRegistry;
+
+import javax.swing.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code RenderScheduler} class drives the {@link DrawPanel} at a fixed frame rate with a
+ * {@link javax.swing.Timer}, so the display updates at the same pace whether data arrives quickly, slowly or not at all.
+ * <p>
+ * The target rate is read from the {@link Blackboard} on every tick and can be changed while running.
+ * Ticks where nothing changed are skipped cheaply. A frame that starts more than a quarter of a period late
+ * is counted as late, and every whole period missed entirely, for example while the event dispatch thread
+ * was busy, is counted as a dropped frame. An early tick starts the schedule again from its own time, so the timer
+ * running slightly fast never builds up slack that would hide later delays. The counts are kept in the
+ * {@link MetricsRegistry}.
+ */
+public class RenderScheduler {
+
+    private final DrawPanel drawPanel;
+    private final Timer timer;
+    private int framesPerSecond;
+    private long periodNanos;
+    private long nextFrameTime;
+
+    private final LongAdder renderedFrames;
+    private final LongAdder skippedFrames;
+    private final LongAdder lateFrames;
+    private final LongAdder droppedFrames;
+
+    public RenderScheduler(DrawPanel drawPanel) {
+        this.drawPanel = drawPanel;
+        this.timer = new Timer(0, e -> tick());
+        this.timer.setCoalesce(true); // never queue up ticks behind a busy event dispatch thread
+        MetricsRegistry metrics = Blackboard.getInstance().getMetricsRegistry();
+        this.renderedFrames = metrics.counter("render.frames.rendered");
+        this.skippedFrames = metrics.counter("render.frames.skipped");
+        this.lateFrames = metrics.counter("render.frames.late");
+        this.droppedFrames = metrics.counter("render.frames.dropped");
+        updateRate(Blackboard.getInstance().getTargetFramesPerSecond());
+    }
+
+    public void start() {
+        nextFrameTime = 0;
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Renders one frame and keeps the frame statistics. Runs on the event dispatch thread.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+        if (nextFrameTime != 0) {
+            long lateness = now - nextFrameTime;
+            if (lateness < 0) {
+                // the timer's delay is whole milliseconds, so it fires slightly early; re-anchor the schedule
+                // on this tick, or the early ticks would build up and hide the late ones
+                nextFrameTime = now;
+                lateness = 0;
+            }
+            if (lateness >= periodNanos) {
+                long missed = lateness / periodNanos;
+                droppedFrames.add(missed);
+                nextFrameTime += missed * periodNanos;
+                lateness -= missed * periodNanos;
+            }
+            if (lateness > periodNanos / 4) {
+                lateFrames.increment();
+            }
+            nextFrameTime += periodNanos;
+        } else {
+            nextFrameTime = now + periodNanos;
+        }
+
+        if (drawPanel.renderFrame()) {
+            renderedFrames.increment();
+        } else {
+            skippedFrames.increment();
+        }
+
+        int target = Blackboard.getInstance().getTargetFramesPerSecond();
+        if (target != framesPerSecond) {
+            updateRate(target);
+            nextFrameTime = 0;
+        }
+    }
+
+    private void updateRate(int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        int delayInMs = Math.max(1, 1000 / framesPerSecond);
+        timer.setDelay(delayInMs);
+        timer.setInitialDelay(delayInMs);
+    }
+
+    public long getRenderedFrames() {
+        return renderedFrames.sum();
+    }
+
+    /**
+     * @return the number of ticks where nothing had changed, so nothing was drawn
+     */
+    public long getSkippedFrames() {
+        return skippedFrames.sum();
+    }
+
+    public long getLateFrames() {
+        return lateFrames.sum();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+}